@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The beans the benchmarks run their assertions against.
+ */
+public final class BenchmarkBeans {
+
+    /**
+     * Utility class
+     */
+    private BenchmarkBeans() {
+    }
+
+    /**
+     * Creates an order with a customer, an address and lines.
+     *
+     * @param lineCount the number of lines on the order.
+     * @return a new order.
+     */
+    public static Order order(final int lineCount) {
+        final List<Line> lines = new ArrayList<Line>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new Line("sku-" + i, i % 10 + 1, 2.5 * i));
+        }
+        return new Order(42L, new Customer(7, "Lando", new Address("Cloud City", "90210")), lines);
+    }
+
+    /**
+     * An order.
+     */
+    public static class Order {
+
+        private final long id;
+        private final Customer customer;
+        private final List<Line> lines;
+
+        public Order(final long id, final Customer customer, final List<Line> lines) {
+            this.id = id;
+            this.customer = customer;
+            this.lines = lines;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * The customer of an order.
+     */
+    public static class Customer {
+
+        private final int id;
+        private final String name;
+        private final Address address;
+
+        public Customer(final int id, final String name, final Address address) {
+            this.id = id;
+            this.name = name;
+            this.address = address;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    /**
+     * The address of a customer.
+     */
+    public static class Address {
+
+        private final String city;
+        private final String zip;
+
+        public Address(final String city, final String zip) {
+            this.city = city;
+            this.zip = zip;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getZip() {
+            return zip;
+        }
+    }
+
+    /**
+     * A line of an order.
+     */
+    public static class Line {
+
+        private final String sku;
+        private final int quantity;
+        private final double price;
+
+        public Line(final String sku, final int quantity, final double price) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.price = price;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+    }
+}
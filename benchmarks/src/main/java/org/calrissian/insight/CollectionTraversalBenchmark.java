@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures wildcard assertions over the lines of an order and over a primitive array of the same size, with a
+ * boxed hamcrest matcher and with a primitive matcher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionTraversalBenchmark {
+
+    /**
+     * The number of elements walked.
+     */
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private BenchmarkBeans.Order order;
+    private int[] quantities;
+    private CompiledBeanAssertion<Object> eachLine;
+    private CompiledBeanAssertion<Object> projection;
+    private CompiledBeanAssertion<Object> boxed;
+    private CompiledBeanAssertion<Object> primitive;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkBeans.order(size);
+        quantities = new int[size];
+        for (int i = 0; i < size; i++) {
+            quantities[i] = i % 10 + 1;
+        }
+        eachLine = builder().that("lines[*].quantity", Matchers.greaterThan(0)).compile();
+        projection = builder().thatProjection("lines[*].sku", Matchers.hasItem("sku-0")).compile();
+        boxed = builder().that("[*]", Matchers.both(Matchers.greaterThanOrEqualTo(1))
+                .and(Matchers.lessThanOrEqualTo(10))).compile();
+        primitive = builder().that("[*]", PrimitiveMatchers.intBetween(1, 10)).compile();
+    }
+
+    @Benchmark
+    public void eachLine() {
+        eachLine.runAssert(order);
+    }
+
+    @Benchmark
+    public void projection() {
+        projection.runAssert(order);
+    }
+
+    @Benchmark
+    public void boxedArray() {
+        boxed.runAssert(quantities);
+    }
+
+    @Benchmark
+    public void primitiveArray() {
+        primitive.runAssert(quantities);
+    }
+
+    /**
+     * @return a builder the assertions are compiled from.
+     */
+    private static AssertBeanBuilder<Object> builder() {
+        return new AssertBeanBuilder<Object>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw new UnsupportedOperationException("Only the compiled assertions are run.");
+            }
+        });
+    }
+}
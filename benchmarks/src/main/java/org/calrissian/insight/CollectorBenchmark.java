@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures running an AssertBuilderCollector holding a number of AssertBeanBuilders with a few assertions each, when
+ * every assertion passes and when every assertion fails, sealed and not.  The failing run includes rendering the
+ * message of the MultipleAssertionError.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectorBenchmark {
+
+    /**
+     * The number of AssertBeanBuilders in the collector.
+     */
+    @Param({"1", "10", "100", "1000"})
+    public int builders;
+
+    /**
+     * Whether the collectors and their builders are sealed before they are run.
+     */
+    @Param({"false", "true"})
+    public boolean sealed;
+
+    private AssertBuilderCollector passing;
+    private AssertBuilderCollector failing;
+
+    @Setup
+    public void setUp() {
+        passing = collector("Lando", "90210", 42L);
+        failing = collector("Han", "00000", 43L);
+        if (sealed) {
+            passing.seal();
+            failing.seal();
+        }
+    }
+
+    @Benchmark
+    public void passing() {
+        passing.runAssert();
+    }
+
+    @Benchmark
+    public String failing() {
+        try {
+            failing.runAssert();
+        } catch (final AssertionError e) {
+            return e.getMessage();
+        }
+        throw new IllegalStateException("The assertions passed.");
+    }
+
+    /**
+     * Creates a collector of builders asserting an order.
+     *
+     * @param name the customer name expected.
+     * @param zip  the zip code expected.
+     * @param id   the order id expected.
+     * @return the collector.
+     */
+    private AssertBuilderCollector collector(final String name, final String zip, final long id) {
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        for (int i = 0; i < builders; i++) {
+            collector.createAssertBeanBuilder("order " + i, BenchmarkBeans.order(4))
+                    .that("id", Matchers.is(id))
+                    .that("customer.name", Matchers.is(name))
+                    .that("customer.address.zip", Matchers.is(zip))
+                    .that("lines[2].sku", Matchers.is("sku-2"));
+        }
+        return collector;
+    }
+}
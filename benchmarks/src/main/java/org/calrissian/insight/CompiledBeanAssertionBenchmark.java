@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the interpreted matcher loop of AbstractMatcherAssertBuilder with a CompiledBeanAssertion running the same
+ * assertions, and with AssertBeanBuilder#runAssert, which runs the compiled form.  The order has lineCount lines and
+ * two paths are asserted on each, so the larger sizes show what sharing the prefixes of the paths is worth.  Run it
+ * with several forks, for example <code>-f 5 -i 10</code>; a single fork is too noisy to tell them apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledBeanAssertionBenchmark {
+
+    /**
+     * The number of lines of the order, each asserted by two paths that share the lines[i] prefix.
+     */
+    @Param({"4", "16"})
+    private int lineCount;
+
+    /**
+     * The bean being asserted.
+     */
+    private BenchmarkBeans.Order order;
+
+    /**
+     * The matchers of the builder, run the way AbstractMatcherAssertBuilder#runAssert does.
+     */
+    private List<Matcher<?>> matchers;
+
+    /**
+     * The builder, whose runAssert runs its compiled form.
+     */
+    private AssertBeanBuilder<BenchmarkBeans.Order> builder;
+
+    /**
+     * The compiled builder.
+     */
+    private CompiledBeanAssertion<BenchmarkBeans.Order> compiled;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkBeans.order(lineCount);
+        builder = new AssertBeanBuilder<BenchmarkBeans.Order>(
+                new Callable<BenchmarkBeans.Order>() {
+                    @Override
+                    public BenchmarkBeans.Order call() throws Exception {
+                        return order;
+                    }
+                });
+        builder.that("id", Matchers.is(42L))
+                .that("customer.id", Matchers.is(7))
+                .that("customer.name", Matchers.is("Lando"))
+                .that("customer.address.zip", Matchers.is("90210"))
+                .that("customer.address.city", Matchers.is("Cloud City"));
+        for (int i = 0; i < lineCount; i++) {
+            builder.that("lines[" + i + "].sku", Matchers.is("sku-" + i))
+                    .that("lines[" + i + "].quantity", Matchers.is(i % 10 + 1));
+        }
+        matchers = builder.getMatchers();
+        compiled = builder.compile();
+    }
+
+    @Benchmark
+    public void interpreted() {
+        for (final Matcher matcher : matchers) {
+            MatcherAssert.assertThat(order, matcher);
+        }
+    }
+
+    @Benchmark
+    public void compiled() {
+        compiled.runAssert(order);
+    }
+
+    @Benchmark
+    public void builder() {
+        builder.runAssert();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocations of runs in which every assertion passes.  Run it with the GC profiler,
+ * <code>java -jar benchmarks/target/benchmarks.jar PassingAllocationBenchmark -prof gc</code>, and
+ * <code>gc.alloc.rate.norm</code> should be 0 B/op for every benchmark.  The bean is created once and its numbers are
+ * small enough to be boxed from the Integer and Long caches, so only the assertions themselves are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PassingAllocationBenchmark {
+
+    /**
+     * The bean being asserted.
+     */
+    private BenchmarkBeans.Order order;
+
+    /**
+     * A builder asserting the order.
+     */
+    private AssertBeanBuilder<BenchmarkBeans.Order> builder;
+
+    /**
+     * The builder compiled.
+     */
+    private CompiledBeanAssertion<BenchmarkBeans.Order> compiled;
+
+    /**
+     * A collector of ten builders asserting the order.
+     */
+    private AssertBuilderCollector collector;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkBeans.order(4);
+        builder = builder(null);
+        compiled = builder.compile();
+        collector = new AssertBuilderCollector();
+        for (int i = 0; i < 10; i++) {
+            collector.add(builder("order " + i));
+        }
+    }
+
+    @Benchmark
+    public void compiled() {
+        compiled.runAssert(order);
+    }
+
+    @Benchmark
+    public void builder() {
+        builder.runAssert();
+    }
+
+    @Benchmark
+    public void collector() {
+        collector.runAssert();
+    }
+
+    /**
+     * Creates a builder asserting the order.
+     *
+     * @param name of the builder or null.
+     * @return the builder.
+     */
+    private AssertBeanBuilder<BenchmarkBeans.Order> builder(final String name) {
+        final Callable<BenchmarkBeans.Order> callable = new Callable<BenchmarkBeans.Order>() {
+            @Override
+            public BenchmarkBeans.Order call() throws Exception {
+                return order;
+            }
+        };
+        final AssertBeanBuilder<BenchmarkBeans.Order> assertBeanBuilder = (name == null) ?
+                new AssertBeanBuilder<BenchmarkBeans.Order>(callable) :
+                new AssertBeanBuilder<BenchmarkBeans.Order>(name, callable);
+        assertBeanBuilder.that("id", Matchers.is(42L))
+                .that("customer.id", Matchers.is(7))
+                .that("customer.name", Matchers.is("Lando"))
+                .that("customer.address.zip", Matchers.is("90210"))
+                .that("lines[0].sku", Matchers.is("sku-0"))
+                .that("lines[3].quantity", Matchers.is(4));
+        return assertBeanBuilder;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures walking compiled property paths: a single getter, a chain of getters, a List index and a Map key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyAccessBenchmark {
+
+    /**
+     * The bean being walked.
+     */
+    private BenchmarkBeans.Order order;
+
+    /**
+     * A Map holding the order.
+     */
+    private Map<String, BenchmarkBeans.Order> orders;
+
+    private PropertyPath single;
+    private PropertyPath deep;
+    private PropertyPath listIndex;
+    private PropertyPath mapKey;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkBeans.order(10);
+        orders = Collections.singletonMap("first", order);
+        single = PropertyPath.parse("id");
+        deep = PropertyPath.parse("customer.address.zip");
+        listIndex = PropertyPath.parse("lines[7].sku");
+        mapKey = PropertyPath.parse("[first].customer.name");
+    }
+
+    @Benchmark
+    public Object single() {
+        return single.get(order);
+    }
+
+    @Benchmark
+    public Object deep() {
+        return deep.get(order);
+    }
+
+    @Benchmark
+    public Object listIndex() {
+        return listIndex.get(order);
+    }
+
+    @Benchmark
+    public Object mapKey() {
+        return mapKey.get(orders);
+    }
+}
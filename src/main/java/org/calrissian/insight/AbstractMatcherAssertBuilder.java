@@ -15,11 +15,12 @@
  */
 package org.calrissian.insight;
 
+import org.hamcrest.Description;
 import org.hamcrest.Matcher;
-import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.hamcrest.StringDescription;
 
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -40,9 +41,24 @@ public abstract class AbstractMatcherAssertBuilder<T> implements AssertBuilder {
 
     /**
      * Holds all the matchers to apply to the Object.  This collection has order and it is important to keep the order
-     * how the user has added the matchers.
+     * how the user has added the matchers.  Walked by index so a run does not allocate an iterator.
      */
-    private final List<Matcher<?>> matchers = new LinkedList<Matcher<?>>();
+    private final SealableList<Matcher<?>> matchers = new SealableList<Matcher<?>>();
+
+    /**
+     * The read only view of the matchers returned by {@link #getMatchers()}.
+     */
+    private final List<Matcher<?>> view = Collections.unmodifiableList(matchers);
+
+    /**
+     * What to do with the failures of a run.
+     */
+    private volatile FailurePolicy failurePolicy = FailurePolicy.collectAll();
+
+    /**
+     * Hears how long the object took to retrieve and how long each matcher took.
+     */
+    private volatile AssertionListener listener = AssertionListener.NONE;
 
     /**
      * Constructor without a name to identify the org.calrissian.insight.AssertBuilder
@@ -80,14 +96,34 @@ public abstract class AbstractMatcherAssertBuilder<T> implements AssertBuilder {
      * .AssertBuilder#runAssert</code>
      *
      * @param matcher to add
+     * @throws java.lang.IllegalStateException if this AssertBuilder is sealed.
      */
     protected void addMatcher(final Matcher<?> matcher) {
         if (matcher == null) {
             throw new NullPointerException("Matcher must not be null.");
         }
+        if (matchers.isSealed()) {
+            throw new IllegalStateException("Matchers cannot be added once the AssertBuilder is sealed.");
+        }
         matchers.add(matcher);
     }
 
+    /**
+     * Seals this AssertBuilder once all its matchers have been added.  The matchers are trimmed to an array of exactly
+     * their number and no more can be added, which keeps builders generated by the thousand for data-driven tests
+     * compact.  Sealing a sealed AssertBuilder does nothing.
+     */
+    public void seal() {
+        matchers.seal();
+    }
+
+    /**
+     * @return true once this AssertBuilder is sealed.
+     */
+    public boolean isSealed() {
+        return matchers.isSealed();
+    }
+
     /**
      * Adds a check that the object during assertion is null.
      */
@@ -102,42 +138,195 @@ public abstract class AbstractMatcherAssertBuilder<T> implements AssertBuilder {
         addMatcher(Matchers.notNullValue());
     }
 
+    /**
+     * @return the name of this AssertBuilder or null if it does not have one.
+     */
+    protected String getName() {
+        return name;
+    }
+
+    /**
+     * @return the matchers in the order they were added.
+     */
+    protected List<Matcher<?>> getMatchers() {
+        return view;
+    }
+
+    /**
+     * Sets what to do with the failures of a run, for example to stop at the first failure.  Every failure is reported
+     * until this is called.
+     *
+     * @param failurePolicy to follow.
+     * @throws java.lang.NullPointerException if the failurePolicy is null.
+     */
+    public void setFailurePolicy(final FailurePolicy failurePolicy) {
+        if (failurePolicy == null) {
+            throw new NullPointerException("FailurePolicy must not be null.");
+        }
+        this.failurePolicy = failurePolicy;
+    }
+
+    /**
+     * @return what to do with the failures of a run.
+     */
+    protected FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * Sets the listener that hears how long the object took to retrieve and how long each matcher took, each time the
+     * assertions are run.  Nothing is timed until this is called.
+     *
+     * @param listener to tell.
+     * @throws java.lang.NullPointerException if the listener is null.
+     */
+    public void setListener(final AssertionListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("AssertionListener must not be null.");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * @return the listener that hears how long the assertions took.
+     */
+    protected AssertionListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Creates a polling version of this AssertBuilder that re-runs the assertions, calling the callable again each
+     * time, until they all pass or the policy times out.  Register the returned AssertBuilder instead of this one.
+     *
+     * @param policy how long and how often to re-run the assertions.
+     * @return a new PollingAssertBuilder using the shared scheduler.
+     * @throws java.lang.NullPointerException if the policy is null.
+     */
+    public PollingAssertBuilder eventually(final PollingPolicy policy) {
+        return new PollingAssertBuilder(this, policy);
+    }
+
     public void runAssert() {
-        // need to get the object we will run the assertions on.
-        final Object object;
+        final Object object = retrieveObject();
+
+        // run through all the assertions.
+        final AssertionListener current = listener;
+        final boolean timed = current != AssertionListener.NONE;
+        FailureRecorder failures = null;
+        for (int i = 0, size = matchers.size(); i < size; i++) {
+            final Matcher<?> entry = matchers.get(i);
+            final long start = timed ? System.nanoTime() : 0;
+            final AssertionError failure = check(object, entry);
+            if (timed) {
+                current.matched(name, entry, System.nanoTime() - start, failure == null);
+            }
+            if (failure != null) {
+                // collect the failures the policy keeps
+                if (failures == null) {
+                    failures = new FailureRecorder(failurePolicy);
+                }
+                if (!failures.record(failure, entry)) {
+                    break;
+                }
+            }
+        }
+        if (failures != null) {
+            failures.throwFailures(name);
+        }
+    }
+
+    /**
+     * Applies a matcher the way org.hamcrest.MatcherAssert does but records the failure without a stack trace.
+     *
+     * @param object  to apply the matcher to.
+     * @param matcher to apply.
+     * @return the failure or null if the matcher matched.
+     */
+    private static AssertionError check(final Object object, final Matcher<?> matcher) {
         try {
-            object = callable.call();
-        } catch (final Exception e) {
-            final String message = (name == null) ? "Could not retrieve object." :
-                    "Could not retrieve object (" + name + ").";
-            final AssertionError a = new AssertionError(message);
-            a.initCause(e);
-            throw a;
+            if (matcher.matches(object)) {
+                return null;
+            }
+            final Description description = new StringDescription().appendText("\nExpected: ")
+                    .appendDescriptionOf(matcher).appendText("\n     but: ");
+            matcher.describeMismatch(object, description);
+            return new FailureRecord(description.toString());
+        } catch (final AssertionError e) {
+            // a property that could not be fetched
+            return e;
         }
+    }
 
-        // run through all the assertions.
-        final List<AssertionError> failures = new LinkedList<AssertionError>();
-        for (final Matcher entry : matchers) {
+    /**
+     * Gets the object we will run the assertions on from the callable.
+     *
+     * @return the object to run the assertions on.
+     * @throws java.lang.AssertionError if the callable failed.
+     */
+    protected Object retrieveObject() {
+        final AssertionListener current = listener;
+        if (current == AssertionListener.NONE) {
             try {
-                MatcherAssert.assertThat(object, entry);
-            } catch (final AssertionError e) {
-                // collect all the failures
-                failures.add(e);
+                return callable.call();
+            } catch (final Exception e) {
+                throw retrievalFailure(e);
             }
         }
+        final long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            final Object object = callable.call();
+            succeeded = true;
+            return object;
+        } catch (final Exception e) {
+            throw retrievalFailure(e);
+        } finally {
+            current.retrieved(name, System.nanoTime() - start, succeeded);
+        }
+    }
+
+    /**
+     * Creates the failure for when the object to run the assertions on could not be retrieved.
+     *
+     * @param cause why the object could not be retrieved.
+     * @return the failure.
+     */
+    protected AssertionError retrievalFailure(final Throwable cause) {
+        final String message = (name == null) ? "Could not retrieve object." :
+                "Could not retrieve object (" + name + ").";
+        final AssertionError a = new AssertionError(message);
+        a.initCause(cause);
+        return a;
+    }
 
+    /**
+     * Throws the failures of an AssertBuilder.  A single failure is thrown as is, or prefixed with the name when
+     * there is one, and multiple failures are combined into a MultipleAssertionError.  Failures recorded without a
+     * stack trace are never thrown themselves, so the AssertionError thrown always has one.
+     *
+     * @param name     of the AssertBuilder or null if it does not have one.
+     * @param failures that were collected.  Nothing is thrown if this is empty.
+     * @throws java.lang.AssertionError if there are any failures.
+     */
+    static void throwFailures(final String name, final List<AssertionError> failures) {
         // if we have no failures we have succeeded in our assertions
         if (failures.isEmpty()) {
             return;
         }
         if (failures.size() == 1) {
             final AssertionError assertionError = failures.get(0);
-            if (name == null) {
+            // a failure recorded without a stack trace is replaced by one with the stack of the caller
+            final boolean recorded = assertionError instanceof FailureRecord;
+            if (name == null && !recorded) {
                 throw assertionError;
             }
 
-            final AssertionError a = new AssertionError(name + " failed because: " + assertionError.getMessage());
-            a.initCause(assertionError);
+            final AssertionError a = new AssertionError((name == null) ? assertionError.getMessage() :
+                    name + " failed because: " + assertionError.getMessage());
+            final Throwable cause = recorded ? assertionError.getCause() : assertionError;
+            if (cause != null) {
+                a.initCause(cause);
+            }
             throw a;
         }
         // throw the combined error
@@ -15,17 +15,18 @@
  */
 package org.calrissian.insight;
 
-import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.DiagnosingMatcher;
 import org.hamcrest.Matcher;
-import org.hamcrest.beans.PropertyUtil;
+import org.hamcrest.StringDescription;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
 
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An org.calrissian.insight.AssertBuilder tailored for accessing Java Beans.  This org.calrissian.insight
@@ -35,6 +36,11 @@ import java.util.concurrent.Callable;
  */
 public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
 
+    /**
+     * The matchers compiled for running.  Cleared whenever a matcher is added.
+     */
+    private volatile CompiledBeanAssertion<T> compiled;
+
     /**
      * Constructor
      *
@@ -61,8 +67,14 @@ public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
      * Bean Properties: <code>propertyName</code>
      * List: <code>propertyName[index]</code>
      * Map:  <code>propertyName[key]</code>
+     * Every element of a List, Array, Map or Iterable: <code>propertyName[*]</code>
      * Child Bean Properties: <code>propertyName.propertyName...</code>
      * </p>
+     * When the property has wildcards, like <code>orders[*].lines[*].qty</code>, the matcher is applied to every
+     * property reached and each one that does not match is reported by its index, like
+     * <code>orders[2].lines[0].qty</code>.  The elements are walked one at a time and never copied.  Large Lists and
+     * Arrays are split across the common ForkJoinPool, the failures are still reported in index order.  The elements
+     * of int[], long[] and double[] are matched without boxing them by the matchers of PrimitiveMatchers.
      *
      * @param property of the object the matcher will be applied
      * @param matcher  that will be applied to the property
@@ -76,7 +88,34 @@ public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
         if (matcher == null) {
             throw new NullPointerException("Matcher cannot be null.");
         }
-        addMatcher(new PropertyMatcher(matcher, property));
+        if (PropertyPathCache.getSharedCache().get(property).getWildcardIndex() != -1) {
+            addMatcher(new EachPropertyMatcher(matcher, property));
+        } else {
+            addMatcher(new PropertyMatcher(matcher, property));
+        }
+        return this;
+    }
+
+    /**
+     * Check that the projection of a property with wildcards matches the matcher during the running of the
+     * assertions.  The matcher is given a single Iterable of every property the wildcards reach, in order, so
+     * Iterable matchers like <code>hasItem</code> or <code>iterableWithSize</code> can be used.  The Iterable is a
+     * view that walks the bean each time it is iterated, nothing is copied.  A property without wildcards projects to
+     * an Iterable of its one value.
+     *
+     * @param property of the object to project, see {@link #that(String, org.hamcrest.Matcher)} for the syntax.
+     * @param matcher  that will be applied to the projection
+     * @return this
+     * @throws java.lang.NullPointerException if the property or matcher is null.
+     */
+    public AssertBeanBuilder thatProjection(final String property, final Matcher<?> matcher) {
+        if (property == null) {
+            throw new NullPointerException("property cannot be null");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("Matcher cannot be null.");
+        }
+        addMatcher(new ProjectionMatcher(matcher, property));
         return this;
     }
 
@@ -100,6 +139,20 @@ public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
         return this;
     }
 
+    /**
+     * Check that every property of the bean is the same as the property of the expected bean during the running of
+     * the assertions.  Every differing path is reported.  Use
+     * {@link BeanDiffMatcher#sameBeanAs(Object)} with {@link #that(org.hamcrest.Matcher)} to ignore paths or match
+     * them differently.
+     *
+     * @param expected the bean the bean must be the same as.
+     * @return this
+     */
+    public AssertBeanBuilder thatSameBeanAs(final Object expected) {
+        addMatcher(BeanDiffMatcher.sameBeanAs(expected));
+        return this;
+    }
+
     public AssertBeanBuilder that(final Matcher<?> matcher) {
         if (matcher == null) {
             throw new NullPointerException("Matcher cannot be null.");
@@ -109,14 +162,64 @@ public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
     }
 
     /**
-     * Matcher that will get the property from the object and pass to the subMatcher.
+     * Compiles the assertions added so far for running against many beans, for example a template applied to every
+     * row of a result set.  Assertions added to this builder afterwards are not part of the returned instance.
+     *
+     * @return the compiled assertions.
+     */
+    public CompiledBeanAssertion<T> compile() {
+        CompiledBeanAssertion<T> current = compiled;
+        if (current == null) {
+            current = new CompiledBeanAssertion<T>(getName(), getMatchers(), getFailurePolicy(), getListener());
+            compiled = current;
+        }
+        return current;
+    }
+
+    /**
+     * Runs the compiled assertions so properties that share a path prefix fetch the shared beans once.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void runAssert() {
+        final CompiledBeanAssertion<T> current = compile();
+        current.runAssert((T) retrieveObject());
+    }
+
+    @Override
+    protected void addMatcher(final Matcher<?> matcher) {
+        super.addMatcher(matcher);
+        compiled = null;
+    }
+
+    @Override
+    public void setFailurePolicy(final FailurePolicy failurePolicy) {
+        super.setFailurePolicy(failurePolicy);
+        compiled = null;
+    }
+
+    @Override
+    public void setListener(final AssertionListener listener) {
+        super.setListener(listener);
+        compiled = null;
+    }
+
+    /**
+     * Matcher that will get the property from the object and pass to the subMatcher.  It describes itself and its
+     * mismatches the way a FeatureMatcher named after the property does, but matching does not allocate a
+     * Description.
      */
-    private static class PropertyMatcher extends FeatureMatcher {
+    static class PropertyMatcher extends DiagnosingMatcher<Object> {
+
+        /**
+         * The compiled path to go through to get the final bean.
+         */
+        private final PropertyPath path;
 
         /**
-         * The list of properties to go through to get the final bean.
+         * The matcher to apply to the property.
          */
-        private final List<BeanAccessor> accessors;
+        private final Matcher<?> subMatcher;
 
         /**
          * Constructor
@@ -126,221 +229,351 @@ public class AssertBeanBuilder<T> extends AbstractMatcherAssertBuilder<T> {
          */
         public PropertyMatcher(final Matcher subMatcher,
                                final String property) {
-            super(subMatcher, property, property);
-            accessors = parse(property);
+            path = PropertyPathCache.getSharedCache().get(property);
+            this.subMatcher = subMatcher;
         }
 
         /**
-         * Parses the propertyString to valid BeanAccessors.
-         *
-         * @param propertyString that needs to be parsed
-         * @return
+         * @return the compiled path to the property.
          */
-        private List<BeanAccessor> parse(final String propertyString) {
-            if (propertyString.trim().isEmpty()) {
-                throw new IllegalArgumentException("Property must have at least one bean property.");
-            }
+        PropertyPath getPath() {
+            return path;
+        }
 
-            // go through each property
-            final List<BeanAccessor> myAccessors = new ArrayList<BeanAccessor>();
-            final StringBuilder propertyBeanName = new StringBuilder(propertyString.length());
-            for (final StringTokenizer tokenizer = new StringTokenizer(propertyString,
-                    "."); tokenizer.hasMoreElements(); ) {
-                final String property = tokenizer.nextToken();
-                if (propertyBeanName.length() != 0) {
-                    propertyBeanName.append('.');
-                }
-                propertyBeanName.append(property);
+        /**
+         * @return the matcher to apply to the property.
+         */
+        Matcher<?> getSubMatcher() {
+            return subMatcher;
+        }
 
-                if (property.isEmpty()) {
-                    throw new IllegalArgumentException("Property (" + propertyString + ") is missing a property name " +
-                            "or has two . next to each other.");
-                }
-                final StringBuilder propertyName = new StringBuilder(property.length());
-                boolean inBracket = false;
-                boolean done = false;
-                final StringBuilder bracketText = new StringBuilder(property.length());
-                for (final char character : property.toCharArray()) {
-                    if (inBracket) {
-                        if (']' == character) {
-                            done = true;
-                            continue;
-                        } else {
-                            bracketText.append(character);
-                            continue;
-                        }
-                    } else if ('[' == character) {
-                        inBracket = true;
-                        continue;
-                    } else if (!Character.isJavaIdentifierPart(character)) {
-                        throw new IllegalArgumentException("Property (" + propertyString + ") contains an invalid " +
-                                "character (" + character + ").");
-                    }
-                    propertyName.append(character);
-                }
-                // do we have a bracket
-                if (inBracket) {
-                    if (!done) {
-                        throw new IllegalArgumentException("Property (" + propertyString + ") must end in a bracket " +
-                                "(]).");
-                    }
-                    if (propertyName.length() != 0) {
-                        myAccessors.add(new PropertyBeanAccessor(propertyName.toString(), propertyBeanName.toString()));
-                    }
-                    myAccessors.add(new BracketAccessor(bracketText.toString(), propertyBeanName.toString()));
-                } else {
-                    myAccessors.add(new PropertyBeanAccessor(propertyName.toString(), propertyBeanName.toString()));
-                }
+        @Override
+        protected boolean matches(final Object item, final Description mismatch) {
+            if (item == null) {
+                mismatch.appendText("was ").appendValue(null);
+                return false;
             }
-            return myAccessors;
+            final Object value = path.get(item);
+            if (subMatcher.matches(value)) {
+                return true;
+            }
+            mismatch.appendText(path.getPath()).appendText(" ");
+            subMatcher.describeMismatch(value, mismatch);
+            return false;
         }
 
         @Override
-        protected Object featureValueOf(final Object actual) {
-            // got through the accessor till we get the object
-            // we want.
-            Object currentObject = actual;
-            for (final BeanAccessor accessor : accessors) {
-                currentObject = accessor.get(currentObject);
-            }
-            return currentObject;
+        public void describeTo(final Description description) {
+            description.appendText(path.getPath()).appendText(" ").appendDescriptionOf(subMatcher);
         }
     }
 
     /**
-     * Interface for how we will access the bean properties
+     * Matcher for a property with wildcards.  The path up to the first wildcard is fetched like any other property,
+     * the rest is walked with a PropertyPath.Cursor.
      */
-    private static interface BeanAccessor {
+    abstract static class WildcardMatcher extends TypeSafeDiagnosingMatcher<Object> {
+
+        /**
+         * The most properties named in a mismatch.
+         */
+        static final int MAXIMUM_REPORTED = 20;
+
+        /**
+         * The compiled path to the properties.
+         */
+        private final PropertyPath path;
+
+        /**
+         * The matcher to apply.
+         */
+        private final Matcher<?> subMatcher;
+
+        /**
+         * Constructor
+         *
+         * @param subMatcher the matcher to apply.
+         * @param property   the property of the object to access.
+         */
+        WildcardMatcher(final Matcher<?> subMatcher, final String property) {
+            path = PropertyPathCache.getSharedCache().get(property);
+            this.subMatcher = subMatcher;
+        }
+
+        /**
+         * @return the compiled path to the properties.
+         */
+        PropertyPath getPath() {
+            return path;
+        }
 
         /**
-         * Gets the bean element from the object.
+         * @return the matcher to apply.
+         */
+        Matcher<?> getSubMatcher() {
+            return subMatcher;
+        }
+
+        @Override
+        public void describeTo(final Description description) {
+            description.appendText(path.getPath()).appendText(" ").appendDescriptionOf(subMatcher);
+        }
+
+        @Override
+        protected boolean matchesSafely(final Object item, final Description mismatch) {
+            return matchesPrefix(path.getPrefix(item), mismatch);
+        }
+
+        /**
+         * Matches the properties reached from the collection the first wildcard walks.
          *
-         * @param object to get the element from.
-         * @return the object retrieved.
+         * @param prefix   the value of the path up to the first wildcard.
+         * @param mismatch to describe the mismatch to.  Matching may stop at the first failure when this is a
+         *                 Description.NullDescription.
+         * @return true if the properties matched.
+         * @throws java.lang.AssertionError if the collection could not be walked.
          */
-        Object get(final Object object);
+        abstract boolean matchesPrefix(final Object prefix, final Description mismatch);
     }
 
     /**
-     * Accesses the Property of the bean.
+     * Matcher that applies the subMatcher to every property reached by a path with wildcards.  When the first
+     * wildcard walks a List, Array or Map with at least parallelThreshold elements the elements are split into ranges
+     * that are matched on the common ForkJoinPool, so the subMatcher must be thread safe, as the hamcrest matchers are.
+     * The entries of such a Map are copied first so the ranges can be fetched by position.
      */
-    private static class PropertyBeanAccessor implements BeanAccessor {
+    static class EachPropertyMatcher extends WildcardMatcher {
 
         /**
-         * The name of the property to get
+         * The number of elements above which they are matched in parallel unless the
+         * <code>insight.parallelThreshold</code> system property says otherwise.
          */
-        private final String propertyName;
+        static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
 
         /**
-         * The full name of this bean.
+         * The number of elements above which they are matched in parallel.  0 or less never matches in parallel.
          */
-        private final String beanPropertyName;
+        static final int PARALLEL_THRESHOLD = Integer.getInteger("insight.parallelThreshold",
+                DEFAULT_PARALLEL_THRESHOLD);
+
+        /**
+         * The number of elements above which they are matched in parallel by this matcher.
+         */
+        private final int parallelThreshold;
 
         /**
          * Constructor
          *
-         * @param propertyName     on the bean being access.
-         * @param beanPropertyName the name of the property in relation to the object.
+         * @param subMatcher the matcher to apply to every property.
+         * @param property   the property of the object to access.
          */
-        private PropertyBeanAccessor(final String propertyName, final String beanPropertyName) {
-            this.propertyName = propertyName;
-            this.beanPropertyName = beanPropertyName;
+        EachPropertyMatcher(final Matcher<?> subMatcher, final String property) {
+            this(subMatcher, property, PARALLEL_THRESHOLD);
         }
 
+        /**
+         * Constructor
+         *
+         * @param subMatcher        the matcher to apply to every property.
+         * @param property          the property of the object to access.
+         * @param parallelThreshold the number of elements above which they are matched in parallel, 0 or less to
+         *                          never match in parallel.
+         */
+        EachPropertyMatcher(final Matcher<?> subMatcher, final String property, final int parallelThreshold) {
+            super(subMatcher, property);
+            this.parallelThreshold = parallelThreshold;
+        }
 
         @Override
-        public Object get(Object object) {
-            PropertyDescriptor property = PropertyUtil.getPropertyDescriptor(propertyName, object);
-            if (property == null) {
-                final String beanName = (beanPropertyName.length() == propertyName.length()) ?
-                        "root bean." : "bean " + beanPropertyName.substring(0,
-                        beanPropertyName.length() - propertyName.length());
-                throw new AssertionError("Property (" + propertyName + ") does not exist on " + beanName);
+        boolean matchesPrefix(final Object prefix, final Description mismatch) {
+            final boolean describing = !(mismatch instanceof Description.NullDescription);
+            final PropertyPath.Cursor cursor = getPath().walk(prefix);
+            final int size = cursor.size();
+            final ElementFailures failures;
+            if (parallelThreshold > 0 && size >= parallelThreshold) {
+                failures = parallel(prefix, size, describing);
+            } else if (parallelThreshold > 0 && size == -1 && prefix instanceof Map &&
+                    ((Map<?, ?>) prefix).size() >= parallelThreshold) {
+                failures = parallel(WildcardAccessor.entries((Map<?, ?>) prefix), ((Map<?, ?>) prefix).size(),
+                        describing);
+            } else {
+                failures = collect(cursor, describing, null);
+            }
+            failures.describeTo(mismatch);
+            return failures.getCount() == 0;
+        }
+
+        /**
+         * Matches ranges of the elements of the first wildcard on the common ForkJoinPool.
+         *
+         * @param prefix     the collection walked by the first wildcard, fetched by position.
+         * @param size       the number of elements of the collection.
+         * @param describing true to walk every property and describe the failures, false to stop at the first one.
+         * @return the failures, in the order of the elements.
+         */
+        private ElementFailures parallel(final Object prefix, final int size, final boolean describing) {
+            final int leafSize = Math.max(1, size / (ForkJoinPool.getCommonPoolParallelism() * 8));
+            return ForkJoinPool.commonPool().invoke(new EachElementTask(this, prefix, 0, size, leafSize,
+                    describing ? null : new AtomicBoolean()));
+        }
+
+        /**
+         * Applies the subMatcher to the properties of a cursor.
+         *
+         * @param cursor     over the properties.
+         * @param describing true to walk every property and describe the failures, false to stop at the first one.
+         * @param failed     when not describing, shared by every range walked in parallel to stop them all at the
+         *                   first failure.  Null when walking sequentially.
+         * @return the failures.
+         */
+        ElementFailures collect(final PropertyPath.Cursor cursor, final boolean describing,
+                                final AtomicBoolean failed) {
+            final Matcher<?> subMatcher = getSubMatcher();
+            final ElementFailures failures = new ElementFailures(MAXIMUM_REPORTED);
+            while (cursor.advanceToMismatch(subMatcher)) {
+                final AssertionError error = cursor.error();
+                if (!describing) {
+                    failures.add(null);
+                    if (failed != null) {
+                        failed.set(true);
+                    }
+                    break;
+                }
+                if (!failures.isDescribing()) {
+                    failures.add(null);
+                    continue;
+                }
+                final Description description = new StringDescription().appendText(cursor.describe());
+                if (error == null) {
+                    description.appendText(" ");
+                    subMatcher.describeMismatch(cursor.value(), description);
+                } else {
+                    description.appendText(" could not be read: ").appendText(error.getMessage());
+                }
+                failures.add(description.toString());
             }
-            try {
-                return property.getReadMethod().invoke(object);
-            } catch (final IllegalAccessException e) {
-                final AssertionError a = new AssertionError("Error accessing bean (" + beanPropertyName + ") reason: " +
-                        "" + e);
-                a.initCause(e);
-                throw a;
-            } catch (final InvocationTargetException e) {
-                final AssertionError a = new AssertionError("Error accessing bean (" + beanPropertyName + ") reason: " +
-                        "" + e.getCause());
-                a.initCause(e.getCause());
-                throw a;
+            return failures;
+        }
+    }
+
+    /**
+     * Matcher that applies the subMatcher to an Iterable view of every property reached by a path with wildcards.
+     */
+    static class ProjectionMatcher extends WildcardMatcher {
+
+        /**
+         * Constructor
+         *
+         * @param subMatcher the matcher to apply to the projection.
+         * @param property   the property of the object to access.
+         */
+        ProjectionMatcher(final Matcher<?> subMatcher, final String property) {
+            super(subMatcher, property);
+        }
+
+        @Override
+        boolean matchesPrefix(final Object prefix, final Description mismatch) {
+            final Projection projection = new Projection(getPath(), prefix);
+            if (getSubMatcher().matches(projection)) {
+                return true;
             }
+            mismatch.appendText(getPath().getPath()).appendText(" ");
+            getSubMatcher().describeMismatch(projection, mismatch);
+            return false;
         }
     }
 
     /**
-     * Bean accessor for when the user has brackets []
+     * An Iterable view of the properties reached by a path.  Each iterator walks the bean again.
      */
-    private static class BracketAccessor implements BeanAccessor {
+    private static final class Projection implements Iterable<Object> {
 
         /**
-         * The key to the Collection/Array/Map
+         * The path to the properties.
          */
-        private final String key;
+        private final PropertyPath path;
 
         /**
-         * The name of the beanProperty
+         * The value of the path up to the first wildcard.
          */
-        private final String beanPropertyName;
+        private final Object prefix;
 
         /**
          * Constructor
          *
-         * @param key
+         * @param path   to the properties.
+         * @param prefix the value of the path up to the first wildcard.
          */
-        private BracketAccessor(final String key, final String beanPropertyName) {
-            this.key = key;
-            this.beanPropertyName = beanPropertyName;
+        private Projection(final PropertyPath path, final Object prefix) {
+            this.path = path;
+            this.prefix = prefix;
         }
 
-
+        /**
+         * @return an iterator over the properties.
+         * @throws java.lang.AssertionError from the iterator if a property could not be fetched.
+         */
         @Override
-        public Object get(Object object) {
-
-            if (object == null) {
-                throw new AssertionError("Cannot access into Map, List, or Array of " + beanPropertyName + " because " +
-                        "the bean is null.");
-            }
+        public Iterator<Object> iterator() {
+            final PropertyPath.Cursor cursor = path.walk(prefix);
+            return new Iterator<Object>() {
+
+                /**
+                 * True when the cursor is on a property that has not been returned yet.
+                 */
+                private boolean ready;
+
+                /**
+                 * True once the cursor ran out of properties.
+                 */
+                private boolean done;
+
+                @Override
+                public boolean hasNext() {
+                    if (!ready && !done) {
+                        ready = cursor.advance();
+                        done = !ready;
+                    }
+                    return ready;
+                }
 
-            if (object instanceof List) {
-                final List list = (List) object;
-                return list.get(getIndex());
-            }
-            if (object.getClass().isArray()) {
-                final Object[] array = (Object[]) object;
-                return array[getIndex()];
-            }
+                @Override
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ready = false;
+                    if (cursor.error() != null) {
+                        throw cursor.error();
+                    }
+                    return cursor.value();
+                }
 
-            // check if the object is a map
-            if (object instanceof Map) {
-                final Map map = (Map) object;
-                // may want to do some more sophisticated things with the key
-                // like if the keys are Enums convert the key.
-                return map.get(key);
-            }
-            throw new AssertionError(beanPropertyName + " is not a Map, List or Array but a " + object.getClass()
-                    .getCanonicalName());
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
         }
 
         /**
-         * Gets the index into the List.
-         *
-         * @return the index into the list
+         * Renders the first properties for mismatch descriptions.
          */
-        private int getIndex() {
-            try {
-                return Integer.valueOf(key);
-            } catch (final NumberFormatException e) {
-                final AssertionError a = new AssertionError(key + " cannot index into bean (" +
-                        beanPropertyName + ").  The index must be a number when accessing Lists or Arrays.");
-                a.initCause(e);
-                throw a;
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder("[");
+            int count = 0;
+            for (final Iterator<Object> iterator = iterator(); iterator.hasNext(); count++) {
+                if (count == WildcardMatcher.MAXIMUM_REPORTED) {
+                    builder.append(", ...");
+                    break;
+                }
+                if (count != 0) {
+                    builder.append(", ");
+                }
+                builder.append(iterator.next());
             }
+            return builder.append(']').toString();
         }
     }
 }
@@ -15,66 +15,490 @@
  */
 package org.calrissian.insight;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * A collector of AssertBuilders that can be ran together and all assertion failures will be combined. This class can
  * be extended to add other types of
  * AssertBuilders or be used to add AssertBuilders directly.
  */
-public class AssertBuilderCollector implements AssertBuilder {
+public class AssertBuilderCollector implements AsyncAssertBuilder {
 
     /**
      * The list of assertions
      */
-    private final List<AssertBuilder> assertions = new LinkedList<AssertBuilder>();
+    private final SealableList<AssertBuilder> assertions = new SealableList<AssertBuilder>();
+
+    /**
+     * The read only view of the assertions returned by {@link #getAssertions()}, created once so a run does not
+     * allocate it.
+     */
+    private final List<AssertBuilder> view = Collections.unmodifiableList(assertions);
+
+    /**
+     * The sources created by {@link #memoize(java.util.concurrent.Callable)}, invalidated at the start of every run.
+     */
+    private final List<MemoizingCallable<?>> sources = new CopyOnWriteArrayList<MemoizingCallable<?>>();
+
+    /**
+     * Runs the assertions in parallel, or null to run them one after another on the calling thread.
+     */
+    private final Executor executor;
+
+    /**
+     * What to do with the failures of a run.
+     */
+    private volatile FailurePolicy failurePolicy = FailurePolicy.collectAll();
+
+    /**
+     * Hears how long each AssertBuilder took to run.
+     */
+    private volatile AssertionListener listener = AssertionListener.NONE;
+
+    /**
+     * Constructor for a collector that runs the assertions one after another on the calling thread.
+     */
+    public AssertBuilderCollector() {
+        executor = null;
+    }
+
+    /**
+     * Constructor for a collector that runs the assertions in parallel on the executor.  The calling thread waits for
+     * all of them to finish and the failures are still reported in the order the AssertBuilders were added.
+     *
+     * @param executor to run the assertions on.
+     * @throws java.lang.NullPointerException if the executor is null.
+     */
+    public AssertBuilderCollector(final Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor must not be null.");
+        }
+        this.executor = executor;
+    }
 
     /**
      * Adds an org.calrissian.insight.AssertBuilder to the collection of assertions to run.
      *
      * @param assertBuilder to add
+     * @throws java.lang.IllegalStateException if this collector is sealed.
      */
     public void add(final AssertBuilder assertBuilder) {
         if (assertBuilder == null) {
             throw new NullPointerException("Cannot add a null assertBuilder");
         }
+        if (assertions.isSealed()) {
+            throw new IllegalStateException("AssertBuilders cannot be added once the collector is sealed.");
+        }
         assertions.add(assertBuilder);
     }
 
     /**
-     * Clears out all assertions to run.  This is equivalent to starting fresh with no assertions added.
+     * Clears out all assertions to run.  This is equivalent to starting fresh with no assertions added, so a sealed
+     * collector is unsealed.
      */
     public void reset() {
-        assertions.clear();
+        assertions.reset();
+        clearSources();
+    }
+
+    /**
+     * Forgets the sources created by {@link #memoize(java.util.concurrent.Callable)}, as {@link #reset()} does.
+     * Collectors that override {@link #runAndReset()} call this once the run is over.
+     */
+    protected void clearSources() {
+        sources.clear();
+    }
+
+    /**
+     * Seals this collector once all its AssertBuilders have been added, along with every AbstractMatcherAssertBuilder
+     * in it.  The AssertBuilders and their matchers are trimmed to arrays of exactly their number and no more can be
+     * added, which keeps collectors of tens of thousands of generated builders compact.  Sealing a sealed collector
+     * does nothing.
+     */
+    public void seal() {
+        assertions.seal();
+        for (int i = 0; i < assertions.size(); i++) {
+            final AssertBuilder assertBuilder = assertions.get(i);
+            if (assertBuilder instanceof AbstractMatcherAssertBuilder) {
+                ((AbstractMatcherAssertBuilder<?>) assertBuilder).seal();
+            }
+        }
+    }
+
+    /**
+     * @return true once this collector is sealed.
+     */
+    public boolean isSealed() {
+        return assertions.isSealed();
+    }
+
+    /**
+     * Creates a source that AssertBuilders of this collector can share.  The callable is called at most once per run
+     * of this collector, by the first AssertBuilder that needs it, and the other AssertBuilders get the same result.
+     *
+     * @param callable the expensive source to share.
+     * @param <T>      type of object returned
+     * @return a new MemoizingCallable that is invalidated at the start of every run.
+     * @throws java.lang.NullPointerException if the callable is null.
+     */
+    public <T> MemoizingCallable<T> memoize(final Callable<T> callable) {
+        final MemoizingCallable<T> source = MemoizingCallable.of(callable);
+        sources.add(source);
+        return source;
+    }
+
+    /**
+     * Invalidates the sources created by {@link #memoize(java.util.concurrent.Callable)} so this run calls them again.
+     */
+    private void invalidateSources() {
+        if (sources.isEmpty()) {
+            // iterating would allocate an iterator on every run
+            return;
+        }
+        for (final MemoizingCallable<?> source : sources) {
+            source.invalidate();
+        }
+    }
+
+    /**
+     * Sets what to do with the failures of a run, for example to stop at the first AssertBuilder that fails.  Every
+     * failure is reported until this is called.  Past the maximum of a counting policy the failures are counted by
+     * the name of the AssertBuilder that failed.
+     *
+     * @param failurePolicy to follow.
+     * @throws java.lang.NullPointerException if the failurePolicy is null.
+     */
+    public void setFailurePolicy(final FailurePolicy failurePolicy) {
+        if (failurePolicy == null) {
+            throw new NullPointerException("FailurePolicy must not be null.");
+        }
+        this.failurePolicy = failurePolicy;
+    }
+
+    /**
+     * @return what to do with the failures of a run.
+     */
+    protected FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * Sets the listener that hears how long each AssertBuilder took to run and whether it passed.  The AssertBuilders
+     * created by this collector from now on are given the listener too, so it also hears how long their objects took
+     * to retrieve and how long each of their matchers took.  Nothing is timed until this is called.
+     *
+     * @param listener to tell.
+     * @throws java.lang.NullPointerException if the listener is null.
+     */
+    public void setListener(final AssertionListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("AssertionListener must not be null.");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * @return the listener that hears how long the AssertBuilders took.
+     */
+    protected AssertionListener getListener() {
+        return listener;
     }
 
     /**
      * Runs all the assertions.
      */
     public void runAssert() {
+        runAll(getAssertions());
+    }
+
+    /**
+     * Gets the assertions to run.  Collectors that store their assertions differently override this along with
+     * {@link #add(AssertBuilder)} and {@link #reset()}.
+     *
+     * @return the assertions in the order they were added.
+     */
+    protected List<AssertBuilder> getAssertions() {
+        return view;
+    }
+
+    /**
+     * Runs the assertions and combines their failures.
+     *
+     * @param assertBuilders the assertions to run.
+     * @throws java.lang.AssertionError if any of the assertions failed.
+     */
+    protected void runAll(final List<AssertBuilder> assertBuilders) {
+        invalidateSources();
         // run through all the assertions.
-        final List<AssertionError> failures = new LinkedList<AssertionError>();
-        for (final AssertBuilder assertBuilder : assertions) {
+        final FailureRecorder failures;
+        if (executor == null) {
+            failures = runSequential(assertBuilders);
+        } else {
+            failures = new FailureRecorder(failurePolicy);
+            runParallel(assertBuilders, failures);
+        }
+        if (failures != null) {
+            failures.throwFailures(null);
+        }
+    }
+
+    /**
+     * Starts all the assertions without waiting for them.  AsyncAssertBuilders are started with
+     * {@link AsyncAssertBuilder#runAssertAsync()} so hundreds of them can wait for their objects together without a
+     * thread each.  Other AssertBuilders run on the executor, or on the calling thread when there is no executor.  The
+     * failures are combined in the order the AssertBuilders were added.  Every assertion is started up front, so the
+     * FailurePolicy only limits the failures reported.
+     *
+     * @return a future that completes when all the assertions have run, exceptionally with the combined failures.
+     */
+    @Override
+    public CompletableFuture<Void> runAssertAsync() {
+        final List<AssertBuilder> assertBuilders = new ArrayList<AssertBuilder>(getAssertions());
+        invalidateSources();
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[assertBuilders.size()];
+        final FailurePolicy policy = failurePolicy;
+        final AssertionListener current = listener;
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = current == AssertionListener.NONE ? start(assertBuilders.get(i)) :
+                    timed(assertBuilders.get(i), current);
+        }
+
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        CompletableFuture.allOf(futures).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable error) {
+                final FailureRecorder failures = new FailureRecorder(policy);
+                for (int i = 0; i < futures.length; i++) {
+                    if (!futures[i].isCompletedExceptionally()) {
+                        continue;
+                    }
+                    final Throwable cause = failure(futures[i]);
+                    if (!(cause instanceof AssertionError)) {
+                        // anything else stops the run as it would when running one after another
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    if (!failures.record((AssertionError) cause, name(assertBuilders.get(i)))) {
+                        break;
+                    }
+                }
+                try {
+                    failures.throwFailures(null);
+                    result.complete(null);
+                } catch (final AssertionError e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts an assertion for {@link #runAssertAsync()}.
+     *
+     * @param assertBuilder to start.
+     * @return the future of the assertion.
+     */
+    private CompletableFuture<Void> start(final AssertBuilder assertBuilder) {
+        if (executor == null || assertBuilder instanceof AsyncAssertBuilder) {
+            return Futures.start(assertBuilder);
+        }
+        try {
+            return CompletableFuture.runAsync(new Runnable() {
+                @Override
+                public void run() {
+                    assertBuilder.runAssert();
+                }
+            }, executor);
+        } catch (final RuntimeException e) {
+            return Futures.failed(e);
+        }
+    }
+
+    /**
+     * Starts an assertion for {@link #runAssertAsync()} and tells the listener how long it took once it completes.
+     *
+     * @param assertBuilder to start.
+     * @param listener      to tell.
+     * @return the future of the assertion.
+     */
+    private CompletableFuture<Void> timed(final AssertBuilder assertBuilder, final AssertionListener listener) {
+        final long start = System.nanoTime();
+        final CompletableFuture<Void> future = start(assertBuilder);
+        future.whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable error) {
+                listener.finished(name(assertBuilder), System.nanoTime() - start, error == null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the failure of a future that completed exceptionally.
+     *
+     * @param future that completed exceptionally.
+     * @return the failure without the wrappers of the future.
+     */
+    private static Throwable failure(final CompletableFuture<?> future) {
+        try {
+            future.join();
+            throw new IllegalStateException("The future did not fail.");
+        } catch (final CompletionException e) {
+            return Futures.unwrap(e);
+        } catch (final CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Runs the assertions one after another on the calling thread until the FailurePolicy stops the run.  Nothing is
+     * allocated unless an assertion fails.
+     *
+     * @param assertBuilders the assertions to run.
+     * @return the failures in the order the AssertBuilders were added, or null if every assertion passed.
+     */
+    private FailureRecorder runSequential(final List<AssertBuilder> assertBuilders) {
+        final AssertionListener current = listener;
+        FailureRecorder failures = null;
+        final boolean indexed = assertBuilders instanceof RandomAccess;
+        final Iterator<AssertBuilder> iterator = indexed ? null : assertBuilders.iterator();
+        for (int i = 0, size = assertBuilders.size(); i < size; i++) {
+            final AssertBuilder assertBuilder = indexed ? assertBuilders.get(i) : iterator.next();
             try {
-                assertBuilder.runAssert();
+                run(assertBuilder, current);
             } catch (final AssertionError e) {
-                // collect all the failures
-                failures.add(e);
+                // collect the failures the policy keeps
+                if (failures == null) {
+                    failures = new FailureRecorder(failurePolicy);
+                }
+                if (!failures.record(e, name(assertBuilder))) {
+                    break;
+                }
             }
         }
+        return failures;
+    }
+
+    /**
+     * Runs the assertions on the executor and waits for them to finish.  An exception other than an AssertionError is
+     * rethrown as soon as it is reached in the order the AssertBuilders were added, as it would be when running one
+     * after another, and the assertions still running are cancelled.  They are also cancelled when the FailurePolicy
+     * stops the run, or when the executor rejects one of them.
+     *
+     * @param assertBuilders the assertions to run.
+     * @param failures       records the failures in the order the AssertBuilders were added.
+     */
+    private void runParallel(final List<AssertBuilder> assertBuilders, final FailureRecorder failures) {
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(assertBuilders.size());
+        final AssertionListener current = listener;
+        try {
+            for (final AssertBuilder assertBuilder : assertBuilders) {
+                final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        run(assertBuilder, current);
+                        return null;
+                    }
+                });
+                futures.add(task);
+                // a rejected task is thrown from here and the tasks already submitted are cancelled
+                executor.execute(task);
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof AssertionError) {
+                        // collect the failures the policy keeps
+                        if (!failures.record((AssertionError) cause, name(assertBuilders.get(i)))) {
+                            return;
+                        }
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    } else {
+                        throw new IllegalStateException(cause);
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final AssertionError a = new AssertionError("Interrupted while waiting for the assertions to run.");
+            a.initCause(e);
+            throw a;
+        } finally {
+            for (final Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
 
-        // if we have no failures we have succeeded in our assertions
-        if (failures.isEmpty()) {
+    /**
+     * Runs an assertion and tells the listener how long it took.
+     *
+     * @param assertBuilder to run.
+     * @param listener      to tell, the assertion is not timed if nobody listens.
+     * @throws java.lang.AssertionError if the assertion failed.
+     */
+    private static void run(final AssertBuilder assertBuilder, final AssertionListener listener) {
+        if (listener == AssertionListener.NONE) {
+            assertBuilder.runAssert();
             return;
         }
-        if (failures.size() == 1) {
-            final AssertionError assertionError = failures.get(0);
-            throw assertionError;
+        final long start = System.nanoTime();
+        boolean passed = false;
+        try {
+            assertBuilder.runAssert();
+            passed = true;
+        } finally {
+            listener.finished(name(assertBuilder), System.nanoTime() - start, passed);
+        }
+    }
+
+    /**
+     * Gets the name of an AssertBuilder, which is also what its failures are counted by past the maximum of a counting
+     * FailurePolicy.
+     *
+     * @param assertBuilder to name.
+     * @return the name of the AssertBuilder, or null if it does not have one.
+     */
+    private static String name(final AssertBuilder assertBuilder) {
+        if (assertBuilder instanceof AbstractMatcherAssertBuilder) {
+            return ((AbstractMatcherAssertBuilder<?>) assertBuilder).getName();
         }
-        // throw the combined error
-        throw new MultipleAssertionError(null, failures);
+        return null;
+    }
+
+    /**
+     * Creates a polling version of this collector that re-runs all the assertions until every one of them passes or
+     * the policy times out.  Only the failures of the last attempt are reported.
+     *
+     * @param policy how long and how often to re-run the assertions.
+     * @return a new PollingAssertBuilder using the shared scheduler.
+     * @throws java.lang.NullPointerException if the policy is null.
+     */
+    public PollingAssertBuilder eventually(final PollingPolicy policy) {
+        return new PollingAssertBuilder(this, policy);
     }
 
     /**
@@ -100,6 +524,7 @@ public class AssertBuilderCollector implements AssertBuilder {
      */
     public <T> AssertBeanBuilder<T> createAssertBeanBuilder(final Callable<T> callable) {
         final AssertBeanBuilder<T> builder = new AssertBeanBuilder(callable);
+        builder.setListener(listener);
         add(builder);
         return builder;
     }
@@ -127,6 +552,7 @@ public class AssertBuilderCollector implements AssertBuilder {
      */
     public <T> AssertBeanBuilder<T> createAssertBeanBuilder(final String name, final Callable<T> callable) {
         final AssertBeanBuilder<T> builder = new AssertBeanBuilder(name, callable);
+        builder.setListener(listener);
         add(builder);
         return builder;
     }
@@ -144,6 +570,102 @@ public class AssertBuilderCollector implements AssertBuilder {
         return createAssertBeanBuilder(name, identity(bean));
     }
 
+    /**
+     * Creates a TableAssertBuilder.  The TableAssertBuilder will be registered to this object and when this runAssert
+     * method is called its assertions will run against every row.
+     *
+     * @param rows that gets the rows as an Iterator, Iterable or Stream each time the assertions are run
+     * @param <T>  type of the rows
+     * @return a new TableAssertBuilder
+     */
+    public <T> TableAssertBuilder<T> createTableAssertBuilder(final Callable<?> rows) {
+        final TableAssertBuilder<T> builder = new TableAssertBuilder<T>(rows);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
+    /**
+     * Creates a TableAssertBuilder.  The TableAssertBuilder will be registered to this object and when this runAssert
+     * method is called its assertions will run against every row.
+     *
+     * @param name of the table.  Used for identifying the table among other AssertBuilders.
+     * @param rows that gets the rows as an Iterator, Iterable or Stream each time the assertions are run
+     * @param <T>  type of the rows
+     * @return a new TableAssertBuilder
+     */
+    public <T> TableAssertBuilder<T> createTableAssertBuilder(final String name, final Callable<?> rows) {
+        final TableAssertBuilder<T> builder = new TableAssertBuilder<T>(name, rows);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run when this runAssert or runAssertAsync method is called.
+     *
+     * @param source that produces the bean each time the assertions are run
+     * @param <T>    type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(
+            final Supplier<? extends CompletionStage<? extends T>> source) {
+        final AsyncAssertBeanBuilder<T> builder = new AsyncAssertBeanBuilder<T>(source);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run when this runAssert or runAssertAsync method is called.
+     *
+     * @param name   of the bean.  Used for identifying the bean among other AssertBuilders.
+     * @param source that produces the bean each time the assertions are run
+     * @param <T>    type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final String name,
+            final Supplier<? extends CompletionStage<? extends T>> source) {
+        final AsyncAssertBeanBuilder<T> builder = new AsyncAssertBeanBuilder<T>(name, source);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run when this runAssert or runAssertAsync method is called.
+     *
+     * @param stage that produces the bean
+     * @param <T>   type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final CompletionStage<? extends T> stage) {
+        final AsyncAssertBeanBuilder<T> builder = new AsyncAssertBeanBuilder<T>(stage);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run when this runAssert or runAssertAsync method is called.
+     *
+     * @param name  of the bean.  Used for identifying the bean among other AssertBuilders.
+     * @param stage that produces the bean
+     * @param <T>   type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final String name,
+            final CompletionStage<? extends T> stage) {
+        final AsyncAssertBeanBuilder<T> builder = new AsyncAssertBeanBuilder<T>(name, stage);
+        builder.setListener(listener);
+        add(builder);
+        return builder;
+    }
+
     /**
      * Creates the identity callable.
      *
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+
+/**
+ * Receives the timings and outcomes of running assertions, to find out which assertions make a suite slow.  Set it
+ * on an AssertBuilder to hear how long its object took to retrieve and how long each matcher took, and on an
+ * AssertBuilderCollector to hear how long each of its AssertBuilders took.  Every method does nothing unless
+ * overridden.  The methods are called on the thread running the assertions, which may be many threads at once, so
+ * implementations must be thread safe and should be quick.  {@link AssertionMetrics} aggregates them.  Times are in
+ * nanoseconds from System.nanoTime.
+ */
+public abstract class AssertionListener {
+
+    /**
+     * The listener of AssertBuilders nobody listens to.  The assertions are not timed at all when it is set.
+     */
+    static final AssertionListener NONE = new AssertionListener() {
+    };
+
+    /**
+     * Called after an AssertBuilder retrieved the object to run its assertions on.
+     *
+     * @param name      of the AssertBuilder, or null if it does not have one.
+     * @param nanos     how long the object took to retrieve.
+     * @param succeeded false if the object could not be retrieved.
+     */
+    public void retrieved(final String name, final long nanos, final boolean succeeded) {
+    }
+
+    /**
+     * Called after an AssertBuilder applied one of its matchers.  When properties share a path prefix the matcher
+     * that first needs a shared bean is timed fetching it.
+     *
+     * @param name    of the AssertBuilder, or null if it does not have one.
+     * @param matcher that was applied.
+     * @param nanos   how long the matcher took, including fetching the property it was applied to.
+     * @param passed  false if the matcher failed.
+     */
+    public void matched(final String name, final Matcher<?> matcher, final long nanos, final boolean passed) {
+    }
+
+    /**
+     * Called after an AssertBuilderCollector ran one of its AssertBuilders.
+     *
+     * @param name   of the AssertBuilder, or null if it does not have one.
+     * @param nanos  how long the AssertBuilder took to run, including retrieving its object.
+     * @param passed false if the AssertBuilder failed.
+     */
+    public void finished(final String name, final long nanos, final boolean passed) {
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * An AssertionListener that aggregates the timings of the assertions so the slowest can be found.  Retrievals and
+ * AssertBuilder runs are aggregated by the name of the AssertBuilder, matchers by the name of the AssertBuilder and the
+ * description of the matcher, so the matchers of AssertBuilders created again for every test share a Timer instead of
+ * piling up.  Every Timer counts with striped LongAdders and keeps a histogram of powers of two, so recording never
+ * blocks and costs the same no matter how many threads record at once.  Percentiles are accurate to within a factor of
+ * two.  Share one instance between every AssertBuilder and AssertBuilderCollector of a suite and print
+ * {@link #toString()} at the end.
+ */
+public final class AssertionMetrics extends AssertionListener {
+
+    /**
+     * What the AssertBuilders without a name are aggregated as.
+     */
+    private static final String UNNAMED = "unnamed assertions";
+
+    /**
+     * The number of slots of the table of the matchers applied most recently, a power of two.
+     */
+    private static final int RECENT_MATCHERS = 1024;
+
+    /**
+     * The number of entries of each kind {@link #toString()} reports.
+     */
+    private static final int REPORTED = 10;
+
+    /**
+     * Orders the timers from the most total time to the least.
+     */
+    private static final Comparator<Timer> SLOWEST_FIRST = new Comparator<Timer>() {
+        @Override
+        public int compare(final Timer first, final Timer second) {
+            return Long.compare(second.getTotalNanos(), first.getTotalNanos());
+        }
+    };
+
+    /**
+     * The retrieval timers by the name of the AssertBuilder.
+     */
+    private final ConcurrentMap<String, Timer> retrievals = new ConcurrentHashMap<String, Timer>();
+
+    /**
+     * The AssertBuilder timers by the name of the AssertBuilder.
+     */
+    private final ConcurrentMap<String, Timer> builders = new ConcurrentHashMap<String, Timer>();
+
+    /**
+     * The matcher timers by the name of the AssertBuilder and the description of the matcher.
+     */
+    private final ConcurrentMap<String, Timer> matchers = new ConcurrentHashMap<String, Timer>();
+
+    /**
+     * The timers of the matchers applied most recently, in the slot of their identity hash, so the key of a matcher is
+     * not rendered every time it is applied.  The table has a fixed size and only weakly refers to the matchers, so it
+     * neither grows nor keeps matchers from being collected; a matcher that lost its slot is simply looked up again.
+     */
+    private final AtomicReferenceArray<RecentMatcher> recentMatchers =
+            new AtomicReferenceArray<RecentMatcher>(RECENT_MATCHERS);
+
+    @Override
+    public void retrieved(final String name, final long nanos, final boolean succeeded) {
+        timer(retrievals, name).record(nanos, succeeded);
+    }
+
+    @Override
+    public void matched(final String name, final Matcher<?> matcher, final long nanos, final boolean passed) {
+        final int slot = System.identityHashCode(matcher) & (RECENT_MATCHERS - 1);
+        final RecentMatcher recent = recentMatchers.get(slot);
+        if (recent != null && recent.get() == matcher && (recent.name == null ? name == null :
+                recent.name.equals(name))) {
+            recent.timer.record(nanos, passed);
+            return;
+        }
+        // the description is only rendered the first time the matcher of a builder is seen in its slot
+        final Timer timer = timer(matchers, (name == null ? UNNAMED : name) + ": " +
+                StringDescription.toString(matcher));
+        recentMatchers.set(slot, new RecentMatcher(matcher, name, timer));
+        timer.record(nanos, passed);
+    }
+
+    @Override
+    public void finished(final String name, final long nanos, final boolean passed) {
+        timer(builders, name).record(nanos, passed);
+    }
+
+    /**
+     * Gets the timer of an AssertBuilder, creating it the first time.
+     *
+     * @param timers to get the timer from.
+     * @param name   of the AssertBuilder or null if it does not have one.
+     * @return the timer.
+     */
+    private static Timer timer(final ConcurrentMap<String, Timer> timers, final String name) {
+        final String key = name == null ? UNNAMED : name;
+        final Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        final Timer created = new Timer(key);
+        final Timer existing = timers.putIfAbsent(key, created);
+        return existing == null ? created : existing;
+    }
+
+    /**
+     * @return the timers of retrieving the objects of the AssertBuilders, slowest first.
+     */
+    public List<Timer> getRetrievals() {
+        return sorted(retrievals.values());
+    }
+
+    /**
+     * @return the timers of running the AssertBuilders of collectors, slowest first.
+     */
+    public List<Timer> getAssertBuilders() {
+        return sorted(builders.values());
+    }
+
+    /**
+     * @return the timers of the matchers, slowest first.
+     */
+    public List<Timer> getMatchers() {
+        return sorted(matchers.values());
+    }
+
+    /**
+     * Sorts timers from the most total time to the least.
+     *
+     * @param timers to sort.
+     * @return a new list of the timers.
+     */
+    private static List<Timer> sorted(final Iterable<Timer> timers) {
+        final List<Timer> list = new ArrayList<Timer>();
+        for (final Timer timer : timers) {
+            list.add(timer);
+        }
+        Collections.sort(list, SLOWEST_FIRST);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        retrievals.clear();
+        builders.clear();
+        matchers.clear();
+        for (int i = 0; i < RECENT_MATCHERS; i++) {
+            recentMatchers.set(i, null);
+        }
+    }
+
+    /**
+     * Writes the slowest retrievals, AssertBuilders and matchers.
+     *
+     * @param out   to write to.
+     * @param limit the most entries of each kind written.
+     * @throws java.io.IOException if writing failed.
+     * @throws java.lang.IllegalArgumentException if the limit is less than 1.
+     */
+    public void report(final Appendable out, final int limit) throws IOException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be at least 1.");
+        }
+        report(out, "Slowest retrievals", getRetrievals(), limit);
+        report(out, "Slowest AssertBuilders", getAssertBuilders(), limit);
+        report(out, "Slowest matchers", getMatchers(), limit);
+    }
+
+    /**
+     * Writes the slowest entries of one kind.
+     *
+     * @param out    to write to.
+     * @param title  of the kind.
+     * @param timers of the kind, slowest first.
+     * @param limit  the most entries written.
+     * @throws java.io.IOException if writing failed.
+     */
+    private static void report(final Appendable out, final String title, final List<Timer> timers, final int limit)
+            throws IOException {
+        if (timers.isEmpty()) {
+            return;
+        }
+        out.append(title).append(":\n");
+        for (int i = 0; i < timers.size() && i < limit; i++) {
+            out.append("  ").append(timers.get(i).toString()).append('\n');
+        }
+        if (timers.size() > limit) {
+            out.append("  ...and ").append(String.valueOf(timers.size() - limit)).append(" more\n");
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            report(builder, REPORTED);
+        } catch (final IOException e) {
+            // a StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The timer of a matcher applied by an AssertBuilder, weakly referring to the matcher.
+     */
+    private static final class RecentMatcher extends WeakReference<Matcher<?>> {
+
+        /**
+         * The name of the AssertBuilder, or null if it does not have one.
+         */
+        private final String name;
+
+        /**
+         * The timer of the matcher.
+         */
+        private final Timer timer;
+
+        /**
+         * Constructor
+         *
+         * @param matcher that was applied.
+         * @param name    of the AssertBuilder, or null if it does not have one.
+         * @param timer   of the matcher.
+         */
+        private RecentMatcher(final Matcher<?> matcher, final String name, final Timer timer) {
+            super(matcher);
+            this.name = name;
+            this.timer = timer;
+        }
+    }
+
+    /**
+     * The aggregated timings of one retrieval, AssertBuilder or matcher.
+     */
+    public static final class Timer {
+
+        /**
+         * The number of buckets of the histogram, one per power of two a long can hold.
+         */
+        private static final int BUCKETS = 64;
+
+        /**
+         * What is being timed.
+         */
+        private final String name;
+
+        /**
+         * The number of times recorded.
+         */
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * The number of times that failed.
+         */
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * The sum of the times recorded.
+         */
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * The longest time recorded.
+         */
+        private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+            @Override
+            public long applyAsLong(final long left, final long right) {
+                return Math.max(left, right);
+            }
+        }, 0);
+
+        /**
+         * The histogram.  Bucket i counts the times of i bits, so bucket 0 counts the times of 0 and bucket i the
+         * times from 2^(i-1) to 2^i - 1.
+         */
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        /**
+         * Constructor
+         *
+         * @param name what is being timed.
+         */
+        private Timer(final String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records a time.
+         *
+         * @param nanos  the time.
+         * @param passed false if it failed.
+         */
+        private void record(final long nanos, final boolean passed) {
+            final long time = Math.max(0, nanos);
+            count.increment();
+            if (!passed) {
+                failures.increment();
+            }
+            total.add(time);
+            max.accumulate(time);
+            buckets[BUCKETS - Long.numberOfLeadingZeros(time)].increment();
+        }
+
+        /**
+         * @return what is being timed.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of times recorded.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the number of times that failed.
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the sum of the times recorded in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return total.sum();
+        }
+
+        /**
+         * @return the longest time recorded in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return max.get();
+        }
+
+        /**
+         * Gets a percentile of the times recorded.  The result is the upper bound of the bucket of the histogram the
+         * percentile falls in, so at most twice the exact value, and never more than the longest time.
+         *
+         * @param percentile between 0 and 100.
+         * @return the percentile in nanoseconds, or 0 if nothing was recorded.
+         * @throws java.lang.IllegalArgumentException if the percentile is not between 0 and 100.
+         */
+        public long getPercentileNanos(final double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+            }
+            final long[] counts = new long[BUCKETS];
+            long recorded = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                recorded += counts[i];
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    final long upper = i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upper, getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: count %d, failed %d, total %.3f ms, p50 %.3f ms, " +
+                            "p99 %.3f ms, max %.3f ms", name, getCount(), getFailures(), millis(getTotalNanos()),
+                    millis(getPercentileNanos(50)), millis(getPercentileNanos(99)), millis(getMaxNanos()));
+        }
+
+        /**
+         * Converts nanoseconds to milliseconds.
+         *
+         * @param nanos to convert.
+         * @return the milliseconds.
+         */
+        private static double millis(final long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * An AssertBeanBuilder for beans that are produced asynchronously.  The bean comes from a supplier of a
+ * CompletionStage, called each time the assertions are run.  {@link #runAssertAsync()} attaches the assertions to the
+ * stage so no thread waits for the bean, and {@link #runAssert()} still works by waiting for it.  That wait has no
+ * timeout: a stage that never completes blocks runAssert until the thread is interrupted, so complete the stage
+ * exceptionally after a timeout, or use runAssertAsync, when the bean may never come.
+ */
+public class AsyncAssertBeanBuilder<T> extends AssertBeanBuilder<T> implements AsyncAssertBuilder {
+
+    /**
+     * Produces the bean each time the assertions are run.
+     */
+    private final Supplier<? extends CompletionStage<? extends T>> source;
+
+    /**
+     * Constructor
+     *
+     * @param name   that identifies the Assertions
+     * @param source that produces the bean each time the assertions are run
+     */
+    public AsyncAssertBeanBuilder(final String name, final Supplier<? extends CompletionStage<? extends T>> source) {
+        super(name, blocking(source));
+        this.source = source;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param source that produces the bean each time the assertions are run
+     */
+    public AsyncAssertBeanBuilder(final Supplier<? extends CompletionStage<? extends T>> source) {
+        super(blocking(source));
+        this.source = source;
+    }
+
+    /**
+     * Constructor for a bean that is produced once.
+     *
+     * @param name  that identifies the Assertions
+     * @param stage that produces the bean
+     */
+    public AsyncAssertBeanBuilder(final String name, final CompletionStage<? extends T> stage) {
+        this(name, constant(stage));
+    }
+
+    /**
+     * Constructor for a bean that is produced once.
+     *
+     * @param stage that produces the bean
+     */
+    public AsyncAssertBeanBuilder(final CompletionStage<? extends T> stage) {
+        this(constant(stage));
+    }
+
+    @Override
+    public CompletableFuture<Void> runAssertAsync() {
+        final CompiledBeanAssertion<T> assertion = compile();
+        final AssertionListener listener = getListener();
+        final long start = listener == AssertionListener.NONE ? 0 : System.nanoTime();
+        final CompletionStage<? extends T> stage;
+        try {
+            stage = source.get();
+            if (stage == null) {
+                throw new NullPointerException("The source produced a null CompletionStage.");
+            }
+        } catch (final RuntimeException e) {
+            if (listener != AssertionListener.NONE) {
+                listener.retrieved(getName(), System.nanoTime() - start, false);
+            }
+            return Futures.failed(retrievalFailure(e));
+        }
+
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        stage.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void accept(final Object bean, final Throwable error) {
+                if (listener != AssertionListener.NONE) {
+                    // the bean is retrieved when the stage completes
+                    listener.retrieved(getName(), System.nanoTime() - start, error == null);
+                }
+                if (error != null) {
+                    result.completeExceptionally(retrievalFailure(Futures.unwrap(error)));
+                    return;
+                }
+                try {
+                    assertion.runAssert((T) bean);
+                    result.complete(null);
+                } catch (final Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Creates the Callable used by {@link #runAssert()} that waits for the bean, for as long as the stage takes.  If
+     * the waiting thread is interrupted it stays interrupted.
+     *
+     * @param source that produces the bean
+     * @param <T>    type of bean
+     * @return a new callable.
+     * @throws java.lang.NullPointerException if the source is null.
+     */
+    private static <T> Callable<T> blocking(final Supplier<? extends CompletionStage<? extends T>> source) {
+        if (source == null) {
+            throw new NullPointerException("Source must not be null.");
+        }
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    return source.get().toCompletableFuture().get();
+                } catch (final InterruptedException e) {
+                    // the failure is reported by runAssert, the caller still has to see the interrupt
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a supplier that always returns the stage.
+     *
+     * @param stage to return
+     * @param <T>   type of bean
+     * @return a new supplier.
+     * @throws java.lang.NullPointerException if the stage is null.
+     */
+    private static <T> Supplier<CompletionStage<? extends T>> constant(final CompletionStage<? extends T> stage) {
+        if (stage == null) {
+            throw new NullPointerException("CompletionStage must not be null.");
+        }
+        return new Supplier<CompletionStage<? extends T>>() {
+            @Override
+            public CompletionStage<? extends T> get() {
+                return stage;
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An AssertBuilder whose assertions can be run without blocking a thread while the object being asserted is produced.
+ */
+public interface AsyncAssertBuilder extends AssertBuilder {
+
+    /**
+     * Runs the {@link org.hamcrest.Matcher}s once the object being asserted is available.  The calling thread does
+     * not wait for the object.
+     *
+     * @return a future that completes when the assertions have run.  It completes exceptionally with the
+     * java.lang.AssertionError if any of the {@link org.hamcrest.Matcher}s failed.
+     */
+    CompletableFuture<Void> runAssertAsync();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+/**
+ * Interface for how we will access the bean properties.  Implementations must be immutable so a single instance can
+ * be shared by every PropertyPath that contains it.  Two accessors are equal when they access the same element of the
+ * same bean property, which lets paths with a common prefix share the accessors of the prefix.
+ */
+interface BeanAccessor {
+
+    /**
+     * Gets the bean element from the object.
+     *
+     * @param object to get the element from.
+     * @return the object retrieved.
+     * @throws java.lang.AssertionError if the element could not be retrieved.
+     */
+    Object get(final Object object);
+}
@@ -0,0 +1,858 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Description;
+import org.hamcrest.DiagnosingMatcher;
+import org.hamcrest.Factory;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.lang.reflect.Array;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches a whole bean graph against an expected bean and reports every path where they differ, like
+ * <code>customer.address.zip expected "90210" but was "00000"</code>.  Both graphs are walked together once, reading
+ * the properties with the same cached readers AssertBeanBuilder uses.  Beans are compared property by property,
+ * Lists, arrays and other Collections element by element, Maps key by key and Sets, Strings, numbers, enums, Paths
+ * and other Iterables, the other classes of the JDK and beans without properties with equals.  Each pair of expected
+ * and actual beans is compared once, so shared and cyclic graphs are walked in linear time, and the walk can be
+ * limited to a depth below which beans are compared with equals.
+ * <p>
+ * Paths can be ignored or given their own matcher.  A path names one property, like <code>lines[2].sku</code>, and
+ * <code>[*]</code> stands for any index or key, like <code>lines[*].sku</code>.  The root bean has the empty path.
+ * The paths are followed along with the walk, so the path of a value is only built when it differs.  Instances are
+ * immutable; the <code>with</code> methods return a copy.
+ * </p>
+ */
+public final class BeanDiffMatcher extends DiagnosingMatcher<Object> {
+
+    /**
+     * The most differences described.
+     */
+    static final int MAXIMUM_REPORTED = 20;
+
+    /**
+     * The bean the actual bean must be the same as.
+     */
+    private final Object expected;
+
+    /**
+     * The paths that are not compared.
+     */
+    private final Set<String> ignored;
+
+    /**
+     * The matchers applied instead of comparing, by path.
+     */
+    private final Map<String, Matcher<?>> overrides;
+
+    /**
+     * The deepest beans compared property by property.
+     */
+    private final int maximumDepth;
+
+    /**
+     * The root of the trie of the ignored and overridden paths, or no node if there are none.
+     */
+    private final Pattern[] roots;
+
+    /**
+     * Constructor
+     *
+     * @param expected     the bean the actual bean must be the same as.
+     * @param ignored      the paths that are not compared.
+     * @param overrides    the matchers applied instead of comparing, by path.
+     * @param maximumDepth the deepest beans compared property by property.
+     */
+    private BeanDiffMatcher(final Object expected, final Set<String> ignored, final Map<String, Matcher<?>> overrides,
+                            final int maximumDepth) {
+        this.expected = expected;
+        this.ignored = ignored;
+        this.overrides = overrides;
+        this.maximumDepth = maximumDepth;
+        if (ignored.isEmpty() && overrides.isEmpty()) {
+            roots = new Pattern[0];
+        } else {
+            final Pattern root = new Pattern();
+            for (final String path : ignored) {
+                root.add(path).ignored = true;
+            }
+            for (final Map.Entry<String, Matcher<?>> override : overrides.entrySet()) {
+                root.add(override.getKey()).matcher = override.getValue();
+            }
+            roots = new Pattern[]{root};
+        }
+    }
+
+    /**
+     * Creates a matcher that compares every property of a bean graph to the expected one.
+     *
+     * @param expected the bean the actual bean must be the same as.
+     * @return the matcher.
+     */
+    @Factory
+    public static BeanDiffMatcher sameBeanAs(final Object expected) {
+        return new BeanDiffMatcher(expected, Collections.<String>emptySet(), Collections.<String, Matcher<?>>emptyMap(),
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Copies this matcher with more paths that are not compared.
+     *
+     * @param paths not to compare.
+     * @return the copy.
+     * @throws java.lang.NullPointerException if a path is null.
+     * @throws java.lang.IllegalArgumentException if a path has a bracket that is not closed.
+     */
+    public BeanDiffMatcher withIgnored(final String... paths) {
+        final Set<String> copy = new HashSet<String>(ignored);
+        for (final String path : paths) {
+            if (path == null) {
+                throw new NullPointerException("Path must not be null.");
+            }
+            copy.add(path);
+        }
+        return new BeanDiffMatcher(expected, Collections.unmodifiableSet(copy), overrides, maximumDepth);
+    }
+
+    /**
+     * Copies this matcher with a matcher applied to a path instead of comparing it to the expected bean.
+     *
+     * @param path    to apply the matcher to.
+     * @param matcher to apply.
+     * @return the copy.
+     * @throws java.lang.NullPointerException if the path or matcher is null.
+     * @throws java.lang.IllegalArgumentException if the path has a bracket that is not closed.
+     */
+    public BeanDiffMatcher withMatcher(final String path, final Matcher<?> matcher) {
+        if (path == null) {
+            throw new NullPointerException("Path must not be null.");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("Matcher cannot be null.");
+        }
+        final Map<String, Matcher<?>> copy = new HashMap<String, Matcher<?>>(overrides);
+        copy.put(path, matcher);
+        return new BeanDiffMatcher(expected, ignored, Collections.unmodifiableMap(copy), maximumDepth);
+    }
+
+    /**
+     * Copies this matcher with a limit to how deep beans are compared property by property.  Beans deeper than the
+     * limit are compared with equals.  The root bean is at depth 0 and every property, element or entry is one deeper
+     * than the value it is in, so the elements of a List property of the root are at depth 2.
+     *
+     * @param depth the deepest beans compared property by property.
+     * @return the copy.
+     * @throws java.lang.IllegalArgumentException if the depth is negative.
+     */
+    public BeanDiffMatcher withMaximumDepth(final int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("The maximum depth must not be negative.");
+        }
+        return new BeanDiffMatcher(expected, ignored, overrides, depth);
+    }
+
+    @Override
+    protected boolean matches(final Object actual, final Description mismatch) {
+        final boolean describing = !(mismatch instanceof Description.NullDescription);
+        final ElementFailures differences = new ElementFailures(MAXIMUM_REPORTED);
+        new Walk(differences, describing).run(actual);
+        if (differences.getCount() == 0) {
+            return true;
+        }
+        differences.describeTo(mismatch);
+        return false;
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        description.appendText("the same bean as ").appendText(name(expected));
+        if (!ignored.isEmpty()) {
+            final List<String> sorted = new ArrayList<String>(ignored);
+            Collections.sort(sorted);
+            description.appendValueList(" ignoring ", ", ", "", sorted);
+        }
+    }
+
+    /**
+     * Names a value in a difference.
+     *
+     * @param value to name.
+     * @return the value itself if it is compared with equals, otherwise its class.
+     */
+    private static String name(final Object value) {
+        if (value == null || isValue(value.getClass())) {
+            return new StringDescription().appendValue(value).toString();
+        }
+        final String simpleName = value.getClass().getSimpleName();
+        return "a " + (simpleName.isEmpty() ? value.getClass().getName() : simpleName);
+    }
+
+    /**
+     * Checks if values of a class are compared with equals rather than property by property.  An Iterable that is not
+     * a Collection, like a Path, is a value: walking it may create new elements forever, as every element of a Path
+     * is a new Path.
+     *
+     * @param type of the value.
+     * @return true if the values are compared with equals.
+     */
+    private static boolean isValue(final Class<?> type) {
+        if (type.isEnum() || Number.class.isAssignableFrom(type) || CharSequence.class.isAssignableFrom(type) ||
+                Boolean.class == type || Character.class == type || Path.class.isAssignableFrom(type) ||
+                (Iterable.class.isAssignableFrom(type) && !Collection.class.isAssignableFrom(type))) {
+            return true;
+        }
+        final String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") ||
+                BeanProperties.of(type).getPropertyNames().length == 0;
+    }
+
+    /**
+     * Splits a path into the segments a Frame adds, like <code>lines</code>, <code>[2]</code> and <code>sku</code>.
+     *
+     * @param path to split.
+     * @return the segments.
+     * @throws java.lang.IllegalArgumentException if a bracket is not closed.
+     */
+    private static List<String> segments(final String path) {
+        final List<String> segments = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < path.length(); i++) {
+            final char character = path.charAt(i);
+            if (character == '.' || character == '[') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+                if (character == '[') {
+                    final int end = path.indexOf(']', i);
+                    if (end == -1) {
+                        throw new IllegalArgumentException("Path (" + path + ") must end in a bracket (]).");
+                    }
+                    segments.add(path.substring(i, end + 1));
+                    i = end;
+                    start = end + 1;
+                }
+            }
+        }
+        if (start < path.length()) {
+            segments.add(path.substring(start));
+        }
+        return segments;
+    }
+
+    /**
+     * A node of the trie of the ignored and overridden paths.  Walking the trie along with the graphs finds the
+     * ignored and overridden values without building the path of every value.
+     */
+    private static final class Pattern {
+
+        /**
+         * The nodes of the next segments, by segment.
+         */
+        private final Map<String, Pattern> next = new HashMap<String, Pattern>();
+
+        /**
+         * True if the path ending here is ignored.
+         */
+        private boolean ignored;
+
+        /**
+         * The matcher applied to the path ending here, or null.
+         */
+        private Matcher<?> matcher;
+
+        /**
+         * Gets the node of a path, creating the nodes along the way.
+         *
+         * @param path of the node.
+         * @return the node.
+         */
+        private Pattern add(final String path) {
+            Pattern node = this;
+            for (final String segment : segments(path)) {
+                Pattern child = node.next.get(segment);
+                if (child == null) {
+                    child = new Pattern();
+                    node.next.put(segment, child);
+                }
+                node = child;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * A pair of expected and actual values waiting to be compared.  The path of the values is only built when they
+     * differ, from the frames of their parents.
+     */
+    private static final class Frame {
+
+        /**
+         * The frame of the bean or collection the values are in, or null for the root.
+         */
+        private final Frame parent;
+
+        /**
+         * The name of the property the values are, or null if they are elements.
+         */
+        private final String property;
+
+        /**
+         * The index or key of the elements the values are.
+         */
+        private final Object key;
+
+        /**
+         * The expected value.
+         */
+        private final Object expected;
+
+        /**
+         * The actual value.
+         */
+        private final Object actual;
+
+        /**
+         * How many properties, elements and entries the path of the values has, 0 for the root.
+         */
+        private final int depth;
+
+        /**
+         * The nodes of the trie of ignored and overridden paths the path of the values has reached.
+         */
+        private final Pattern[] patterns;
+
+        /**
+         * Constructor
+         *
+         * @param parent   the frame of the bean or collection the values are in, or null for the root.
+         * @param property the name of the property the values are, or null if they are elements.
+         * @param key      the index or key of the elements the values are.
+         * @param expected value.
+         * @param actual   value.
+         * @param patterns the nodes of the trie the path of the values has reached.
+         */
+        private Frame(final Frame parent, final String property, final Object key, final Object expected,
+                      final Object actual, final Pattern[] patterns) {
+            this.parent = parent;
+            this.property = property;
+            this.key = key;
+            this.expected = expected;
+            this.actual = actual;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.patterns = patterns;
+        }
+
+        /**
+         * Creates the frame of a property of the values of this frame.
+         *
+         * @param name     of the property.
+         * @param expected value of the property.
+         * @param actual   value of the property.
+         * @return the frame.
+         */
+        private Frame property(final String name, final Object expected, final Object actual) {
+            return new Frame(this, name, null, expected, actual, advance(name, false));
+        }
+
+        /**
+         * Creates the frame of an element of the values of this frame.
+         *
+         * @param elementKey the index or key of the element.
+         * @param expected   element.
+         * @param actual     element.
+         * @return the frame.
+         */
+        private Frame element(final Object elementKey, final Object expected, final Object actual) {
+            return new Frame(this, null, elementKey, expected, actual, patterns.length == 0 ? patterns :
+                    advance("[" + elementKey + "]", true));
+        }
+
+        /**
+         * Moves the nodes of the trie this frame reached along a segment.
+         *
+         * @param segment to move along.
+         * @param indexed true if the segment is an index or key, which <code>[*]</code> also matches.
+         * @return the nodes reached.
+         */
+        private Pattern[] advance(final String segment, final boolean indexed) {
+            if (patterns.length == 0) {
+                return patterns;
+            }
+            final List<Pattern> reached = new ArrayList<Pattern>(2);
+            for (final Pattern pattern : patterns) {
+                final Pattern literal = pattern.next.get(segment);
+                if (literal != null) {
+                    reached.add(literal);
+                }
+                final Pattern wildcard = indexed ? pattern.next.get("[*]") : null;
+                if (wildcard != null) {
+                    reached.add(wildcard);
+                }
+            }
+            return reached.toArray(new Pattern[reached.size()]);
+        }
+
+        /**
+         * @return true if the path of the values is ignored.
+         */
+        private boolean isIgnored() {
+            for (final Pattern pattern : patterns) {
+                if (pattern.ignored) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the matcher applied to the path of the values instead of comparing them, or null.
+         */
+        private Matcher<?> getMatcher() {
+            for (final Pattern pattern : patterns) {
+                if (pattern.matcher != null) {
+                    return pattern.matcher;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the path of the values, like <code>lines[2].sku</code>, empty for the root.
+         */
+        private String path() {
+            final Deque<Frame> frames = new ArrayDeque<Frame>();
+            for (Frame frame = this; frame.parent != null; frame = frame.parent) {
+                frames.push(frame);
+            }
+            final StringBuilder builder = new StringBuilder();
+            for (final Frame frame : frames) {
+                if (frame.property == null) {
+                    builder.append('[').append(frame.key).append(']');
+                } else {
+                    if (builder.length() != 0) {
+                        builder.append('.');
+                    }
+                    builder.append(frame.property);
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * An expected and actual bean compared by identity, so each pair is only compared once.
+     */
+    private static final class Visit {
+
+        /**
+         * The expected bean.
+         */
+        private final Object expected;
+
+        /**
+         * The actual bean.
+         */
+        private final Object actual;
+
+        /**
+         * Constructor
+         *
+         * @param expected bean.
+         * @param actual   bean.
+         */
+        private Visit(final Object expected, final Object actual) {
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Visit)) {
+                return false;
+            }
+            final Visit that = (Visit) o;
+            return expected == that.expected && actual == that.actual;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(expected) + System.identityHashCode(actual);
+        }
+    }
+
+    /**
+     * One walk of the expected and actual graphs.  The pairs waiting to be compared are kept on a stack rather than
+     * the call stack so graphs of any depth can be walked.  Instances are not thread safe.
+     */
+    private final class Walk {
+
+        /**
+         * The differences found.
+         */
+        private final ElementFailures differences;
+
+        /**
+         * True to find and describe every difference, false to stop at the first one.
+         */
+        private final boolean describing;
+
+        /**
+         * The pairs waiting to be compared, the next one on top.
+         */
+        private final Deque<Frame> pending = new ArrayDeque<Frame>();
+
+        /**
+         * The children of the pair being compared, pushed onto the stack in reverse so they are compared in order.
+         */
+        private final List<Frame> children = new ArrayList<Frame>();
+
+        /**
+         * The pairs of beans and collections already compared.
+         */
+        private final Set<Visit> visited = new HashSet<Visit>();
+
+        /**
+         * Constructor
+         *
+         * @param differences the differences found.
+         * @param describing  true to find and describe every difference, false to stop at the first one.
+         */
+        private Walk(final ElementFailures differences, final boolean describing) {
+            this.differences = differences;
+            this.describing = describing;
+        }
+
+        /**
+         * Compares the actual graph to the expected one.
+         *
+         * @param actual the root of the actual graph.
+         */
+        void run(final Object actual) {
+            pending.push(new Frame(null, null, null, expected, actual, roots));
+            while (!pending.isEmpty()) {
+                compare(pending.pop());
+                if (!describing && differences.getCount() != 0) {
+                    return;
+                }
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+                children.clear();
+            }
+        }
+
+        /**
+         * Compares a pair of values, adding the pairs of their properties or elements to the children.
+         *
+         * @param frame the pair to compare.
+         */
+        private void compare(final Frame frame) {
+            final Matcher<?> override = frame.getMatcher();
+            if (override != null) {
+                if (!override.matches(frame.actual)) {
+                    if (isDescribing()) {
+                        final Description description = new StringDescription();
+                        prefix(description, frame).appendText("expected ").appendDescriptionOf(override)
+                                .appendText(" but ");
+                        override.describeMismatch(frame.actual, description);
+                        differences.add(description.toString());
+                    } else {
+                        differences.add(null);
+                    }
+                }
+                return;
+            }
+            if (frame.isIgnored()) {
+                return;
+            }
+            final Object expectedValue = frame.expected;
+            final Object actualValue = frame.actual;
+            if (expectedValue == actualValue) {
+                return;
+            }
+            if (expectedValue == null || actualValue == null || frame.depth > maximumDepth) {
+                compareEquals(frame);
+                return;
+            }
+            if (expectedValue instanceof Map) {
+                if (expect(frame, actualValue instanceof Map) && visit(frame)) {
+                    compareMaps(frame, (Map<?, ?>) expectedValue, (Map<?, ?>) actualValue);
+                }
+            } else if (expectedValue instanceof Set) {
+                if (expect(frame, actualValue instanceof Set)) {
+                    compareEquals(frame);
+                }
+            } else if (expectedValue instanceof Collection) {
+                if (expect(frame, actualValue instanceof Iterable && !(actualValue instanceof Set)) && visit(frame)) {
+                    compareIterables(frame, ((Iterable<?>) expectedValue).iterator(),
+                            ((Iterable<?>) actualValue).iterator());
+                }
+            } else if (expectedValue.getClass().isArray()) {
+                if (expect(frame, actualValue.getClass().isArray()) && visit(frame)) {
+                    compareArrays(frame);
+                }
+            } else if (isValue(expectedValue.getClass())) {
+                compareEquals(frame);
+            } else if (expect(frame, actualValue.getClass() == expectedValue.getClass()) && visit(frame)) {
+                compareBeans(frame);
+            }
+        }
+
+        /**
+         * Compares a pair of values with equals.
+         *
+         * @param frame the pair to compare.
+         */
+        private void compareEquals(final Frame frame) {
+            if (frame.expected == null ? frame.actual != null : !frame.expected.equals(frame.actual)) {
+                difference(frame, "expected ", name(frame.expected), " but was ", name(frame.actual));
+            }
+        }
+
+        /**
+         * Checks that the actual value can be compared to the expected one.
+         *
+         * @param frame      the pair to compare.
+         * @param comparable true if the actual value is of a kind that can be compared to the expected one.
+         * @return the comparable flag, after adding the difference when it is false.
+         */
+        private boolean expect(final Frame frame, final boolean comparable) {
+            if (!comparable) {
+                difference(frame, "expected ", name(frame.expected), " but was ", name(frame.actual));
+            }
+            return comparable;
+        }
+
+        /**
+         * Records that a pair is being compared.
+         *
+         * @param frame the pair to compare.
+         * @return false if the pair was already compared.
+         */
+        private boolean visit(final Frame frame) {
+            return visited.add(new Visit(frame.expected, frame.actual));
+        }
+
+        /**
+         * Compares two beans of the same class property by property.
+         *
+         * @param frame the pair to compare.
+         */
+        private void compareBeans(final Frame frame) {
+            final BeanProperties properties = BeanProperties.of(frame.expected.getClass());
+            for (final String propertyName : properties.getPropertyNames()) {
+                final PropertyReader reader = properties.getReader(propertyName);
+                final Object expectedValue;
+                final Object actualValue;
+                try {
+                    expectedValue = reader.read(frame.expected);
+                    actualValue = reader.read(frame.actual);
+                } catch (final Exception | LinkageError e) {
+                    difference(frame.property(propertyName, null, null), "could not be read: ", e.toString());
+                    continue;
+                } catch (final Error e) {
+                    // an OutOfMemoryError, StackOverflowError or ThreadDeath is not a difference of the beans
+                    throw e;
+                } catch (final Throwable e) {
+                    difference(frame.property(propertyName, null, null), "could not be read: ", e.toString());
+                    continue;
+                }
+                children.add(frame.property(propertyName, expectedValue, actualValue));
+            }
+        }
+
+        /**
+         * Compares two Maps key by key.  The keys of the actual Map that are not expected are differences.
+         *
+         * @param frame    the pair to compare.
+         * @param expected the expected Map.
+         * @param actual   the actual Map.
+         */
+        private void compareMaps(final Frame frame, final Map<?, ?> expected, final Map<?, ?> actual) {
+            int found = 0;
+            for (final Map.Entry<?, ?> entry : expected.entrySet()) {
+                final Object actualValue = actual.get(entry.getKey());
+                if (actualValue == null && !actual.containsKey(entry.getKey())) {
+                    missing(frame.element(entry.getKey(), entry.getValue(), null));
+                } else {
+                    found++;
+                    children.add(frame.element(entry.getKey(), entry.getValue(), actualValue));
+                }
+            }
+            if (found != actual.size()) {
+                // only look for the keys that were not expected when there are some
+                for (final Map.Entry<?, ?> entry : actual.entrySet()) {
+                    if (!expected.containsKey(entry.getKey())) {
+                        unexpected(frame.element(entry.getKey(), null, entry.getValue()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compares two Iterables element by element.
+         *
+         * @param frame    the pair to compare.
+         * @param expected the expected elements.
+         * @param actual   the actual elements.
+         */
+        private void compareIterables(final Frame frame, final Iterator<?> expected, final Iterator<?> actual) {
+            int index = 0;
+            while (expected.hasNext() && actual.hasNext()) {
+                children.add(frame.element(index, expected.next(), actual.next()));
+                index++;
+            }
+            for (; expected.hasNext(); index++) {
+                missing(frame.element(index, expected.next(), null));
+            }
+            for (; actual.hasNext(); index++) {
+                unexpected(frame.element(index, null, actual.next()));
+            }
+        }
+
+        /**
+         * Compares two arrays element by element.  Primitive arrays of the same type that are equal are not walked.
+         *
+         * @param frame the pair to compare.
+         */
+        private void compareArrays(final Frame frame) {
+            final Object expectedArray = frame.expected;
+            final Object actualArray = frame.actual;
+            if (expectedArray.getClass() == actualArray.getClass() && expectedArray.getClass().getComponentType()
+                    .isPrimitive() && primitiveEquals(expectedArray, actualArray)) {
+                return;
+            }
+            final int expectedLength = Array.getLength(expectedArray);
+            final int actualLength = Array.getLength(actualArray);
+            for (int i = 0; i < Math.max(expectedLength, actualLength); i++) {
+                if (i >= actualLength) {
+                    missing(frame.element(i, Array.get(expectedArray, i), null));
+                } else if (i >= expectedLength) {
+                    unexpected(frame.element(i, null, Array.get(actualArray, i)));
+                } else {
+                    children.add(frame.element(i, Array.get(expectedArray, i), Array.get(actualArray, i)));
+                }
+            }
+        }
+
+        /**
+         * Adds the difference of an expected element the actual collection does not have.
+         *
+         * @param frame of the element.
+         */
+        private void missing(final Frame frame) {
+            if (!frame.isIgnored()) {
+                difference(frame, "expected ", name(frame.expected), " but was missing");
+            }
+        }
+
+        /**
+         * Adds the difference of an element of the actual collection that was not expected.
+         *
+         * @param frame of the element.
+         */
+        private void unexpected(final Frame frame) {
+            if (!frame.isIgnored()) {
+                difference(frame, "was not expected but was ", name(frame.actual));
+            }
+        }
+
+        /**
+         * Adds a difference at the path of a pair.  The text is only joined when the difference is described.
+         *
+         * @param frame the pair that differs.
+         * @param text  the parts of what differs.
+         */
+        private void difference(final Frame frame, final String... text) {
+            if (!isDescribing()) {
+                differences.add(null);
+                return;
+            }
+            final Description description = prefix(new StringDescription(), frame);
+            for (final String part : text) {
+                description.appendText(part);
+            }
+            differences.add(description.toString());
+        }
+
+        /**
+         * @return true if the next difference is described.
+         */
+        private boolean isDescribing() {
+            return describing && differences.isDescribing();
+        }
+
+        /**
+         * Starts the description of a difference with its path.
+         *
+         * @param description to append to.
+         * @param frame       the pair that differs.
+         * @return the description.
+         */
+        private Description prefix(final Description description, final Frame frame) {
+            final String path = frame.path();
+            return path.isEmpty() ? description : description.appendText(path).appendText(" ");
+        }
+    }
+
+    /**
+     * Compares two primitive arrays of the same type.
+     *
+     * @param expected array.
+     * @param actual   array of the same type.
+     * @return true if they are equal.
+     */
+    private static boolean primitiveEquals(final Object expected, final Object actual) {
+        if (expected instanceof int[]) {
+            return Arrays.equals((int[]) expected, (int[]) actual);
+        }
+        if (expected instanceof long[]) {
+            return Arrays.equals((long[]) expected, (long[]) actual);
+        }
+        if (expected instanceof double[]) {
+            return Arrays.equals((double[]) expected, (double[]) actual);
+        }
+        if (expected instanceof byte[]) {
+            return Arrays.equals((byte[]) expected, (byte[]) actual);
+        }
+        if (expected instanceof char[]) {
+            return Arrays.equals((char[]) expected, (char[]) actual);
+        }
+        if (expected instanceof boolean[]) {
+            return Arrays.equals((boolean[]) expected, (boolean[]) actual);
+        }
+        if (expected instanceof float[]) {
+            return Arrays.equals((float[]) expected, (float[]) actual);
+        }
+        return Arrays.equals((short[]) expected, (short[]) actual);
+    }
+}
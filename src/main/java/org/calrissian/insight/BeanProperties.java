@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The readable bean properties of a class.  The class is introspected once and the getters are kept on the class
+ * itself through a ClassValue, so nothing here keeps a class or its ClassLoader from being unloaded.  The
+ * PropertyReader of a getter is created the first time the property is read.
+ */
+final class BeanProperties {
+
+    /**
+     * The registry of properties per class.
+     */
+    private static final ClassValue<BeanProperties> REGISTRY = new ClassValue<BeanProperties>() {
+        @Override
+        protected BeanProperties computeValue(final Class<?> type) {
+            return new BeanProperties(type);
+        }
+    };
+
+    /**
+     * The getters of the class keyed by the property name.
+     */
+    private final Map<String, Method> readMethods;
+
+    /**
+     * The names of the readable properties in alphabetical order, without the class.
+     */
+    private final String[] propertyNames;
+
+    /**
+     * The readers of the properties that have been read so far.
+     */
+    private final ConcurrentMap<String, PropertyReader> readers = new ConcurrentHashMap<String, PropertyReader>();
+
+    /**
+     * Constructor
+     *
+     * @param type to introspect.
+     * @throws java.lang.IllegalArgumentException if the class could not be introspected.
+     */
+    private BeanProperties(final Class<?> type) {
+        final PropertyDescriptor[] descriptors;
+        try {
+            // no stop class, so getClass can be read as the class property like any other getter
+            descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+        } catch (final IntrospectionException e) {
+            throw new IllegalArgumentException("Could not get property descriptors for " + type, e);
+        }
+        readMethods = new HashMap<String, Method>(descriptors.length * 2);
+        for (final PropertyDescriptor descriptor : descriptors) {
+            if (descriptor.getReadMethod() != null) {
+                readMethods.put(descriptor.getName(), descriptor.getReadMethod());
+            }
+        }
+        // the class is not walked as a property of the bean, only read when a path names it
+        final Method getClass = readMethods.remove("class");
+        propertyNames = readMethods.keySet().toArray(new String[readMethods.size()]);
+        Arrays.sort(propertyNames);
+        if (getClass != null) {
+            readMethods.put("class", getClass);
+        }
+    }
+
+    /**
+     * Gets the properties of the class.
+     *
+     * @param type of the bean.
+     * @return the properties of the class.
+     */
+    static BeanProperties of(final Class<?> type) {
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * @return the names of the readable properties other than the class in alphabetical order.  The array must not
+     * be modified.
+     */
+    String[] getPropertyNames() {
+        return propertyNames;
+    }
+
+    /**
+     * Gets the getter of a property.
+     *
+     * @param propertyName the name of the property.
+     * @return the getter or null if the class has no readable property with that name.
+     */
+    Method getReadMethod(final String propertyName) {
+        return readMethods.get(propertyName);
+    }
+
+    /**
+     * Gets the reader of a property.
+     *
+     * @param propertyName the name of the property.
+     * @return the reader or null if the class has no readable property with that name.
+     */
+    PropertyReader getReader(final String propertyName) {
+        final PropertyReader reader = readers.get(propertyName);
+        if (reader != null) {
+            return reader;
+        }
+        final Method readMethod = readMethods.get(propertyName);
+        if (readMethod == null) {
+            return null;
+        }
+        final PropertyReader created = PropertyReaders.create(readMethod);
+        final PropertyReader existing = readers.putIfAbsent(propertyName, created);
+        return (existing == null) ? created : existing;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Bean accessor for when the user has brackets [].  The key indexes into a List, array or any other Iterable, or is
+ * looked up in a Map.  A Map whose keys are not Strings, like Integers, Longs, enums or UUIDs, is looked up with the
+ * key converted to the type of its keys, which is found from a key of the Map and cached until a Map with keys of
+ * another type is seen.  The type can also be given in the path like a cast, for example
+ * <code>counts[(Long)42]</code>; see {@link KeyType} for the types that can be named.
+ */
+class BracketAccessor implements BeanAccessor {
+
+    /**
+     * The key to the Collection/Array/Map
+     */
+    private final String key;
+
+    /**
+     * The name of the beanProperty
+     */
+    private final String beanPropertyName;
+
+    /**
+     * The key parsed as an index into a List or Array, or null if the key is not a number.  Parsed once so reading an
+     * element neither parses the key nor boxes the index.
+     */
+    private final Integer index;
+
+    /**
+     * The key converted to the type named in the path, or null if the path does not name one.
+     */
+    private final Object hinted;
+
+    /**
+     * The key converted to the type of the keys of the last Map it was looked up in, or null.  It is a racy cache but
+     * each Coerced is immutable, so any value seen is valid.
+     */
+    private Coerced coerced;
+
+    /**
+     * Constructor
+     *
+     * @param key              into the Collection/Array/Map
+     * @param beanPropertyName the name of the property in relation to the object.
+     * @throws java.lang.IllegalArgumentException if the key names a type it cannot be converted to.
+     */
+    BracketAccessor(final String key, final String beanPropertyName) {
+        this.key = key;
+        this.beanPropertyName = beanPropertyName;
+        String text = key;
+        Object converted = null;
+        final int close = key.indexOf(')');
+        if (key.startsWith("(") && close != -1) {
+            final KeyType type = KeyType.named(key.substring(1, close));
+            if (type == null) {
+                throw new IllegalArgumentException("Property (" + beanPropertyName + ") names an unknown key type (" +
+                        key.substring(1, close) + ").");
+            }
+            text = key.substring(close + 1);
+            converted = type.convert(text);
+            if (converted == null) {
+                throw new IllegalArgumentException("Property (" + beanPropertyName + ") has a key (" + text + ") " +
+                        "that is not a " + type.name + ".");
+            }
+        }
+        hinted = converted;
+        Integer parsed;
+        try {
+            parsed = Integer.valueOf(text);
+        } catch (final NumberFormatException e) {
+            parsed = null;
+        }
+        index = parsed;
+    }
+
+
+    @Override
+    public Object get(Object object) {
+
+        if (object == null) {
+            throw new FailureRecord("Cannot access into Map, List, or Array of " + beanPropertyName + " because " +
+                    "the bean is null.");
+        }
+
+        if (object instanceof List) {
+            final List<?> list = (List<?>) object;
+            return list.get(getIndex());
+        }
+        if (object instanceof Object[]) {
+            final Object[] array = (Object[]) object;
+            return array[getIndex()];
+        }
+        // read primitive elements directly, only the element read is boxed
+        if (object instanceof int[]) {
+            return ((int[]) object)[getIndex()];
+        }
+        if (object instanceof long[]) {
+            return ((long[]) object)[getIndex()];
+        }
+        if (object instanceof double[]) {
+            return ((double[]) object)[getIndex()];
+        }
+        if (object.getClass().isArray()) {
+            return Array.get(object, getIndex());
+        }
+
+        // check if the object is a map
+        if (object instanceof Map) {
+            return lookup((Map<?, ?>) object);
+        }
+        if (object instanceof Iterable) {
+            return element((Iterable<?>) object, getIndex());
+        }
+        throw new FailureRecord(beanPropertyName + " is not a Map, List or Array but a " + object.getClass()
+                .getCanonicalName());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BracketAccessor)) {
+            return false;
+        }
+        final BracketAccessor that = (BracketAccessor) o;
+        return key.equals(that.key) && beanPropertyName.equals(that.beanPropertyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * key.hashCode() + beanPropertyName.hashCode();
+    }
+
+    /**
+     * Looks the key up in a Map.  The key converted for the last Map is tried first, then the key as a String.  If
+     * neither is found a key of this Map is sampled, because Maps of one class can have keys of any type, and the key
+     * is converted to its type and cached for the next lookup.  A missing or null value therefore samples a key on
+     * every lookup.
+     *
+     * @param map to look the key up in.
+     * @return the value or null if the key is not in the Map.
+     */
+    private Object lookup(final Map<?, ?> map) {
+        if (hinted != null) {
+            return lookup(map, hinted);
+        }
+        final Coerced current = coerced;
+        if (current != null) {
+            final Object value = lookup(map, current.key);
+            if (value != null) {
+                return value;
+            }
+        }
+        final Object value = lookup(map, key);
+        if (value != null || map.isEmpty()) {
+            return value;
+        }
+        // a sorted map has its first key at hand, any other map needs an iterator
+        final Object sample = (map instanceof SortedMap) ? ((SortedMap<?, ?>) map).firstKey() :
+                map.keySet().iterator().next();
+        if (sample == null || sample instanceof String) {
+            return null;
+        }
+        final Class<?> type = (sample instanceof Enum) ? ((Enum<?>) sample).getDeclaringClass() : sample.getClass();
+        if (current != null && current.type == type) {
+            // already looked up with the key of this type
+            return null;
+        }
+        final Object converted = KeyType.convert(key, type);
+        if (converted == null) {
+            return null;
+        }
+        coerced = new Coerced(type, converted);
+        return lookup(map, converted);
+    }
+
+    /**
+     * Looks a key up in a Map whose keys may not be comparable to it, as in a TreeMap of Integers.
+     *
+     * @param map       to look the key up in.
+     * @param candidate the key.
+     * @return the value or null if the key is not in the Map.
+     */
+    private static Object lookup(final Map<?, ?> map, final Object candidate) {
+        try {
+            return map.get(candidate);
+        } catch (final ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets an element of an Iterable that is not a List.  The size of a Collection is checked before walking it.
+     *
+     * @param iterable to get the element from.
+     * @param position of the element.
+     * @return the element.
+     * @throws java.lang.IndexOutOfBoundsException if the Iterable does not have the element.
+     */
+    private static Object element(final Iterable<?> iterable, final int position) {
+        if (position < 0 || (iterable instanceof Collection && position >= ((Collection<?>) iterable).size())) {
+            throw new IndexOutOfBoundsException("Index: " + position);
+        }
+        final Iterator<?> iterator = iterable.iterator();
+        for (int i = 0; i < position && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        if (!iterator.hasNext()) {
+            throw new IndexOutOfBoundsException("Index: " + position);
+        }
+        return iterator.next();
+    }
+
+    /**
+     * Gets the index into the List.
+     *
+     * @return the index into the list
+     */
+    private int getIndex() {
+        if (index == null) {
+            try {
+                return Integer.valueOf(key);
+            } catch (final NumberFormatException e) {
+                final AssertionError a = new FailureRecord(key + " cannot index into bean (" +
+                        beanPropertyName + ").  The index must be a number when accessing Lists or Arrays.");
+                a.initCause(e);
+                throw a;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The key converted to the type of the keys of a Map.
+     */
+    private static final class Coerced {
+
+        /**
+         * The type of the keys of the Map.
+         */
+        private final Class<?> type;
+
+        /**
+         * The key converted to the type.
+         */
+        private final Object key;
+
+        /**
+         * Constructor
+         *
+         * @param type of the keys of the Map.
+         * @param key  converted to the type.
+         */
+        private Coerced(final Class<?> type, final Object key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+}
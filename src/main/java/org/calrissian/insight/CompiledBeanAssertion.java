@@ -0,0 +1,590 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The assertions of an AssertBeanBuilder compiled for running against many beans.  Property matchers are flattened
+ * into their property and the matcher of the property value.  The property paths are merged into a trie so paths with
+ * a common prefix, like <code>order.customer.name</code> and <code>order.customer.id</code>, fetch each intermediate
+ * bean once per run.  Paths with wildcards share the trie up to their first wildcard.  Unless the run is timed or
+ * stops at a failure, the trie is walked depth first with the value of each node on the stack; otherwise the matchers
+ * run in the order they were added and the values are kept in an array per thread.  The failures are reported
+ * exactly as the AssertBeanBuilder reports them.  A run in which every assertion passes allocates nothing, as long as
+ * the matchers and property getters do not, and paths do not walk a wildcard.  Instances only cache the property
+ * readers of the classes they have seen, so they can be used by many threads at once.
+ *
+ * @param <T> type of bean being asserted
+ */
+public final class CompiledBeanAssertion<T> {
+
+    /**
+     * Marks a node of the trie that has not been fetched yet in a run.
+     */
+    private static final Object UNRESOLVED = new Object();
+
+    /**
+     * The name of the AssertBeanBuilder this was compiled from, or null.
+     */
+    private final String name;
+
+    /**
+     * The matchers as they were added to the AssertBeanBuilder.  Used to describe the failures.
+     */
+    private final Matcher<?>[] matchers;
+
+    /**
+     * The path to the property each matcher is applied to, or null when the matcher is applied to the bean itself.
+     */
+    private final PropertyPath[] paths;
+
+    /**
+     * The wildcard matchers, null for every other matcher.
+     */
+    private final AssertBeanBuilder.WildcardMatcher[] wildcardMatchers;
+
+    /**
+     * The trie node holding the property each matcher is applied to, or -1 for the bean itself.  For wildcard
+     * matchers this is the node holding the collection walked by the first wildcard.
+     */
+    private final int[] matcherNodes;
+
+    /**
+     * The accessor that fetches each node of the trie from its parent.
+     */
+    private final BeanAccessor[] nodeAccessors;
+
+    /**
+     * The accessor of each node of the trie that reads a bean property, null for the other nodes.
+     */
+    private final PropertyBeanAccessor[] nodeProperties;
+
+    /**
+     * The reader resolved for the last class each property node read from.  Most paths only ever see one class so
+     * this skips the registry lookup.  It is held by this instance rather than by the shared accessors, so a class is
+     * only kept from unloading while the compiled assertion is.  It is a racy cache but each Resolved is immutable,
+     * so any value seen is valid.
+     */
+    private final Resolved[] nodeReaders;
+
+    /**
+     * The parent of each node of the trie, or -1 when the parent is the bean itself.  Parents always come before their
+     * children.
+     */
+    private final int[] nodeParents;
+
+    /**
+     * The children of each node of the trie.
+     */
+    private final int[][] nodeChildren;
+
+    /**
+     * The nodes whose parent is the bean itself.
+     */
+    private final int[] rootChildren;
+
+    /**
+     * The matchers applied to the value of each node of the trie, in the order they were added.
+     */
+    private final int[][] nodeMatchers;
+
+    /**
+     * The matchers applied to the bean itself, in the order they were added.
+     */
+    private final int[] rootMatchers;
+
+    /**
+     * The matcher applied to the value reached by the path.
+     */
+    private final Matcher<?>[] valueMatchers;
+
+    /**
+     * What to do with the failures of a run.
+     */
+    private final FailurePolicy failurePolicy;
+
+    /**
+     * Hears how long each matcher took.
+     */
+    private final AssertionListener listener;
+
+    /**
+     * The values of the trie nodes for the run on each thread.  The array is reused from run to run so a run that
+     * passes allocates nothing, and is cleared after each run so it does not hold on to the beans.
+     */
+    private final ThreadLocal<Object[]> scratch = new ThreadLocal<Object[]>() {
+        @Override
+        protected Object[] initialValue() {
+            return unresolved();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param name          of the AssertBeanBuilder or null if it does not have one.
+     * @param matchers      the matchers of the AssertBeanBuilder in the order they were added.
+     * @param failurePolicy what to do with the failures of a run.
+     * @param listener      hears how long each matcher took.
+     */
+    CompiledBeanAssertion(final String name, final List<Matcher<?>> matchers, final FailurePolicy failurePolicy,
+                          final AssertionListener listener) {
+        this.name = name;
+        this.failurePolicy = failurePolicy;
+        this.listener = listener;
+        this.matchers = matchers.toArray(new Matcher<?>[matchers.size()]);
+        paths = new PropertyPath[this.matchers.length];
+        valueMatchers = new Matcher<?>[this.matchers.length];
+        matcherNodes = new int[this.matchers.length];
+        wildcardMatchers = new AssertBeanBuilder.WildcardMatcher[this.matchers.length];
+
+        // merge the paths into the trie.  Each node is keyed by its parent and the accessor.
+        final Map<List<Object>, Integer> nodes = new HashMap<List<Object>, Integer>();
+        final List<BeanAccessor> accessors = new ArrayList<BeanAccessor>();
+        final List<Integer> parents = new ArrayList<Integer>();
+        for (int i = 0; i < this.matchers.length; i++) {
+            final Matcher<?> matcher = this.matchers[i];
+            final PropertyPath path;
+            final int hops;
+            if (matcher instanceof AssertBeanBuilder.PropertyMatcher) {
+                final AssertBeanBuilder.PropertyMatcher propertyMatcher = (AssertBeanBuilder.PropertyMatcher) matcher;
+                path = propertyMatcher.getPath();
+                hops = path.length();
+                valueMatchers[i] = propertyMatcher.getSubMatcher();
+            } else if (matcher instanceof AssertBeanBuilder.WildcardMatcher) {
+                wildcardMatchers[i] = (AssertBeanBuilder.WildcardMatcher) matcher;
+                path = wildcardMatchers[i].getPath();
+                hops = path.getWildcardIndex() == -1 ? path.length() : path.getWildcardIndex();
+                valueMatchers[i] = matcher;
+            } else {
+                valueMatchers[i] = matcher;
+                matcherNodes[i] = -1;
+                continue;
+            }
+            paths[i] = path;
+            int node = -1;
+            for (int hop = 0; hop < hops; hop++) {
+                final BeanAccessor accessor = path.getAccessor(hop);
+                final List<Object> key = Arrays.<Object>asList(node, accessor);
+                final Integer existing = nodes.get(key);
+                if (existing == null) {
+                    nodes.put(key, accessors.size());
+                    parents.add(node);
+                    node = accessors.size();
+                    accessors.add(accessor);
+                } else {
+                    node = existing;
+                }
+            }
+            matcherNodes[i] = node;
+        }
+        nodeAccessors = accessors.toArray(new BeanAccessor[accessors.size()]);
+        nodeProperties = new PropertyBeanAccessor[nodeAccessors.length];
+        nodeReaders = new Resolved[nodeAccessors.length];
+        for (int node = 0; node < nodeAccessors.length; node++) {
+            if (nodeAccessors[node] instanceof PropertyBeanAccessor) {
+                nodeProperties[node] = (PropertyBeanAccessor) nodeAccessors[node];
+            }
+        }
+        nodeParents = new int[parents.size()];
+        for (int i = 0; i < nodeParents.length; i++) {
+            nodeParents[i] = parents.get(i);
+        }
+        final List<List<Integer>> children = new ArrayList<List<Integer>>();
+        final List<List<Integer>> attached = new ArrayList<List<Integer>>();
+        for (int node = 0; node <= nodeParents.length; node++) {
+            children.add(new ArrayList<Integer>());
+            attached.add(new ArrayList<Integer>());
+        }
+        // slot 0 is the bean itself, node n is slot n + 1
+        for (int node = 0; node < nodeParents.length; node++) {
+            children.get(nodeParents[node] + 1).add(node);
+        }
+        for (int i = 0; i < this.matchers.length; i++) {
+            attached.get(matcherNodes[i] + 1).add(i);
+        }
+        rootChildren = toArray(children.get(0));
+        rootMatchers = toArray(attached.get(0));
+        nodeChildren = new int[nodeParents.length][];
+        nodeMatchers = new int[nodeParents.length][];
+        for (int node = 0; node < nodeParents.length; node++) {
+            nodeChildren[node] = toArray(children.get(node + 1));
+            nodeMatchers[node] = toArray(attached.get(node + 1));
+        }
+    }
+
+    /**
+     * @param list of ints.
+     * @return the ints as an array.
+     */
+    private static int[] toArray(final List<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Runs the assertions against the bean.
+     *
+     * @param bean to run the assertions against.
+     * @throws java.lang.AssertionError if any of the assertions failed.
+     */
+    public void runAssert(final T bean) {
+        final FailureRecorder failures = check(bean);
+        if (failures != null) {
+            failures.throwFailures(name);
+        }
+    }
+
+    /**
+     * Runs the assertions against the bean without throwing the failures.
+     *
+     * @param bean to run the assertions against.
+     * @return the failures, or null if every assertion passed.
+     */
+    FailureRecorder check(final Object bean) {
+        if (bean != null && listener == AssertionListener.NONE && !failurePolicy.isStop()) {
+            // every matcher runs and nothing is timed, so the order they run in cannot be seen
+            return record(walk(rootChildren, bean, evaluateRoot(bean)));
+        }
+        // a matcher may run this assertion again on the same thread, which gets its own array
+        Object[] values = scratch.get();
+        final boolean borrowed = values != null;
+        if (borrowed) {
+            scratch.set(null);
+        } else {
+            values = unresolved();
+        }
+        try {
+            return check(bean, values);
+        } finally {
+            if (borrowed) {
+                Arrays.fill(values, UNRESOLVED);
+                scratch.set(values);
+            }
+        }
+    }
+
+    /**
+     * Runs the matchers applied to the bean itself.
+     *
+     * @param bean to run the matchers against.
+     * @return the failures by the index of the matcher, or null if every matcher passed.
+     */
+    private AssertionError[] evaluateRoot(final Object bean) {
+        AssertionError[] failures = null;
+        for (final int index : rootMatchers) {
+            final AssertionError failure = evaluate(index, bean, null);
+            if (failure != null) {
+                if (failures == null) {
+                    failures = new AssertionError[matchers.length];
+                }
+                failures[index] = failure;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Walks the trie depth first, fetching each node once from the value of its parent, which is kept on the stack
+     * rather than in an array of the values of the run.
+     *
+     * @param nodes    to fetch from the parent.
+     * @param parent   the value of the parent of the nodes or a FetchFailure if it could not be fetched.
+     * @param failures the failures so far by the index of the matcher, or null if there are none.
+     * @return the failures by the index of the matcher, or null if every matcher passed.
+     */
+    private AssertionError[] walk(final int[] nodes, final Object parent, AssertionError[] failures) {
+        for (final int node : nodes) {
+            Object value;
+            if (parent instanceof FetchFailure) {
+                value = parent;
+            } else {
+                try {
+                    value = fetch(node, parent);
+                } catch (final AssertionError e) {
+                    value = new FetchFailure(e);
+                }
+            }
+            for (final int index : nodeMatchers[node]) {
+                final AssertionError failure = evaluateValue(index, value);
+                if (failure != null) {
+                    if (failures == null) {
+                        failures = new AssertionError[matchers.length];
+                    }
+                    failures[index] = failure;
+                }
+            }
+            failures = walk(nodeChildren[node], value, failures);
+        }
+        return failures;
+    }
+
+    /**
+     * Records the failures of a walk in the order the matchers were added.
+     *
+     * @param failures by the index of the matcher, or null if every matcher passed.
+     * @return the failures, or null if every matcher passed.
+     */
+    private FailureRecorder record(final AssertionError[] failures) {
+        if (failures == null) {
+            return null;
+        }
+        final FailureRecorder recorder = new FailureRecorder(failurePolicy);
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                recorder.record(failures[i], matchers[i]);
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Runs the assertions against the bean in the order they were added.
+     *
+     * @param bean   to run the assertions against.
+     * @param values the values of the trie nodes, all unresolved.
+     * @return the failures, or null if every assertion passed.
+     */
+    private FailureRecorder check(final Object bean, final Object[] values) {
+        final boolean timed = listener != AssertionListener.NONE;
+        FailureRecorder failures = null;
+        for (int i = 0; i < matchers.length; i++) {
+            final long start = timed ? System.nanoTime() : 0;
+            final AssertionError failure = evaluate(i, bean, values);
+            if (timed) {
+                // a matcher that first reaches a shared prefix is timed fetching it
+                listener.matched(name, matchers[i], System.nanoTime() - start, failure == null);
+            }
+            if (failure != null) {
+                if (failures == null) {
+                    failures = new FailureRecorder(failurePolicy);
+                }
+                if (!failures.record(failure, matchers[i])) {
+                    break;
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return a new array of trie node values that have not been fetched.
+     */
+    private Object[] unresolved() {
+        final Object[] values = new Object[nodeAccessors.length];
+        Arrays.fill(values, UNRESOLVED);
+        return values;
+    }
+
+    /**
+     * Evaluates a single matcher.
+     *
+     * @param index  of the matcher.
+     * @param bean   to run the matcher against.
+     * @param values the values of the trie nodes fetched so far in this run.
+     * @return the failure or null if the matcher passed.
+     */
+    private AssertionError evaluate(final int index, final Object bean, final Object[] values) {
+        final PropertyPath path = paths[index];
+        if (path == null) {
+            return valueMatchers[index].matches(bean) ? null : mismatch(index, bean);
+        }
+        if (bean == null) {
+            // a property matcher never matches a null bean
+            return mismatch(index, null);
+        }
+        return evaluateValue(index, (matcherNodes[index] == -1) ? bean : resolve(matcherNodes[index], bean, values));
+    }
+
+    /**
+     * Evaluates a property or wildcard matcher against the value its path reached.
+     *
+     * @param index of the matcher.
+     * @param value reached by the path of the matcher, or a FetchFailure if it could not be fetched.
+     * @return the failure or null if the matcher passed.
+     */
+    private AssertionError evaluateValue(final int index, final Object value) {
+        final PropertyPath path = paths[index];
+        if (value instanceof FetchFailure) {
+            return ((FetchFailure) value).error;
+        }
+        if (wildcardMatchers[index] != null) {
+            return evaluateWildcard(index, value);
+        }
+        if (valueMatchers[index].matches(value)) {
+            return null;
+        }
+        final Description description = expected(index);
+        description.appendText(path.getPath()).appendText(" ");
+        valueMatchers[index].describeMismatch(value, description);
+        return new FailureRecord(description.toString());
+    }
+
+    /**
+     * Evaluates a wildcard matcher.
+     *
+     * @param index  of the matcher.
+     * @param prefix the value of the path up to the first wildcard.
+     * @return the failure or null if the matcher passed.
+     */
+    private AssertionError evaluateWildcard(final int index, final Object prefix) {
+        final AssertBeanBuilder.WildcardMatcher matcher = wildcardMatchers[index];
+        try {
+            if (matcher.matchesPrefix(prefix, Description.NONE)) {
+                return null;
+            }
+            final Description description = expected(index);
+            matcher.matchesPrefix(prefix, description);
+            return new FailureRecord(description.toString());
+        } catch (final AssertionError e) {
+            return e;
+        }
+    }
+
+    /**
+     * Gets the value of a trie node, fetching it and its parents if this run has not fetched them yet.
+     *
+     * @param node   of the trie.
+     * @param bean   the root of the trie.
+     * @param values the values of the trie nodes fetched so far in this run.
+     * @return the value of the node or a FetchFailure if it or any of its parents could not be fetched.
+     */
+    private Object resolve(final int node, final Object bean, final Object[] values) {
+        final Object value = values[node];
+        if (value != UNRESOLVED) {
+            return value;
+        }
+        final int parent = nodeParents[node];
+        final Object parentValue = (parent == -1) ? bean : resolve(parent, bean, values);
+        Object fetched;
+        if (parentValue instanceof FetchFailure) {
+            fetched = parentValue;
+        } else {
+            try {
+                fetched = fetch(node, parentValue);
+            } catch (final AssertionError e) {
+                fetched = new FetchFailure(e);
+            }
+        }
+        values[node] = fetched;
+        return fetched;
+    }
+
+    /**
+     * Fetches the value of a trie node from the value of its parent.
+     *
+     * @param node   of the trie.
+     * @param parent the value of the parent.
+     * @return the value of the node.
+     * @throws java.lang.AssertionError if the value could not be fetched.
+     */
+    private Object fetch(final int node, final Object parent) {
+        final PropertyBeanAccessor property = nodeProperties[node];
+        if (property == null) {
+            return nodeAccessors[node].get(parent);
+        }
+        final Class<?> type = parent.getClass();
+        Resolved resolved = nodeReaders[node];
+        if (resolved == null || resolved.type != type) {
+            resolved = new Resolved(type, property.reader(type));
+            nodeReaders[node] = resolved;
+        }
+        return property.read(resolved.reader, parent);
+    }
+
+    /**
+     * Creates the failure of a matcher that was applied to the bean itself.
+     *
+     * @param index of the matcher.
+     * @param bean  the matcher was applied to.
+     * @return the failure.
+     */
+    private AssertionError mismatch(final int index, final Object bean) {
+        final Description description = expected(index);
+        matchers[index].describeMismatch(bean, description);
+        return new FailureRecord(description.toString());
+    }
+
+    /**
+     * Starts the description of a failure the same way org.hamcrest.MatcherAssert does.
+     *
+     * @param index of the matcher that failed.
+     * @return the description to append the mismatch to.
+     */
+    private Description expected(final int index) {
+        return new StringDescription().appendText("\nExpected: ").appendDescriptionOf(matchers[index])
+                .appendText("\n     but: ");
+    }
+
+    /**
+     * Records that a trie node could not be fetched so every matcher below it reports the same failure.
+     */
+    private static final class FetchFailure {
+
+        /**
+         * Why the node could not be fetched.
+         */
+        private final AssertionError error;
+
+        /**
+         * Constructor
+         *
+         * @param error why the node could not be fetched.
+         */
+        private FetchFailure(final AssertionError error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * The reader of a property for a class.
+     */
+    private static final class Resolved {
+
+        /**
+         * The class the reader was resolved for.
+         */
+        private final Class<?> type;
+
+        /**
+         * The reader or null if the class does not have the property.
+         */
+        private final PropertyReader reader;
+
+        /**
+         * Constructor
+         *
+         * @param type   the class the reader was resolved for.
+         * @param reader the reader or null if the class does not have the property.
+         */
+        private Resolved(final Class<?> type, final PropertyReader reader) {
+            this.type = type;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * An AssertBuilderCollector that AssertBuilders can be added to from many threads at once, for example from the worker
+ * threads of a concurrency test.  The AssertBuilders are kept in a lock-free queue so adding never blocks.  Running the
+ * assertions works on a snapshot of the queue, and {@link #runAndReset()} takes the AssertBuilders off the queue as it
+ * goes so an AssertBuilder added during the run is either run now or kept for the next run, never lost.
+ */
+public class ConcurrentAssertBuilderCollector extends AssertBuilderCollector {
+
+    /**
+     * The queue of assertions
+     */
+    private final ConcurrentLinkedQueue<AssertBuilder> assertions = new ConcurrentLinkedQueue<AssertBuilder>();
+
+    /**
+     * Constructor for a collector that runs the assertions one after another on the calling thread.
+     */
+    public ConcurrentAssertBuilderCollector() {
+        super();
+    }
+
+    /**
+     * Constructor for a collector that runs the assertions in parallel on the executor.
+     *
+     * @param executor to run the assertions on.
+     * @throws java.lang.NullPointerException if the executor is null.
+     */
+    public ConcurrentAssertBuilderCollector(final Executor executor) {
+        super(executor);
+    }
+
+    @Override
+    public void add(final AssertBuilder assertBuilder) {
+        if (assertBuilder == null) {
+            throw new NullPointerException("Cannot add a null assertBuilder");
+        }
+        assertions.add(assertBuilder);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        assertions.clear();
+    }
+
+    /**
+     * Seals every AbstractMatcherAssertBuilder in the queue now.  The collector itself is never sealed, because
+     * AssertBuilders may be added to it from other threads at any time, so {@link #isSealed()} stays false and
+     * AssertBuilders added later are not sealed.
+     */
+    @Override
+    public void seal() {
+        for (final AssertBuilder assertBuilder : assertions) {
+            if (assertBuilder instanceof AbstractMatcherAssertBuilder) {
+                ((AbstractMatcherAssertBuilder<?>) assertBuilder).seal();
+            }
+        }
+    }
+
+    @Override
+    protected List<AssertBuilder> getAssertions() {
+        return new ArrayList<AssertBuilder>(assertions);
+    }
+
+    @Override
+    public void runAndReset() {
+        final List<AssertBuilder> drained = new ArrayList<AssertBuilder>();
+        for (AssertBuilder assertBuilder = assertions.poll(); assertBuilder != null;
+             assertBuilder = assertions.poll()) {
+            drained.add(assertBuilder);
+        }
+        try {
+            runAll(drained);
+        } finally {
+            clearSources();
+        }
+    }
+}
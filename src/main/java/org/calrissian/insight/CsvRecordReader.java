@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads the records of a CSV file as described by RFC 4180.  The first record is the header that names the columns.
+ * Fields may be quoted, in which case they can contain separators, line breaks and quotes written as two quotes.
+ * Blank lines are skipped.  Each record is a Map from column name to field text which shares the header with every
+ * other record.
+ */
+final class CsvRecordReader extends RecordReader {
+
+    /**
+     * Separates the fields of a record.
+     */
+    private final char separator;
+
+    /**
+     * The position of each column by name, or null until the header is read.
+     */
+    private Map<String, Integer> columns;
+
+    /**
+     * The column names in the order of the header.
+     */
+    private String[] header;
+
+    /**
+     * The fields of the record being read.
+     */
+    private final List<String> fields = new ArrayList<String>();
+
+    /**
+     * The field being read.
+     */
+    private final StringBuilder field = new StringBuilder();
+
+    /**
+     * The line the record being read starts on.
+     */
+    private long recordLine;
+
+    /**
+     * Constructor
+     *
+     * @param path      of the file.
+     * @param charset   the file is encoded in.
+     * @param separator separates the fields of a record.
+     * @throws java.io.IOException if the file could not be opened.
+     */
+    CsvRecordReader(final Path path, final Charset charset, final char separator) throws IOException {
+        super(path, charset);
+        this.separator = separator;
+    }
+
+    @Override
+    Map<String, Object> readRecord() throws IOException {
+        if (columns == null) {
+            if (!readFields()) {
+                return null;
+            }
+            header = fields.toArray(new String[fields.size()]);
+            columns = new HashMap<String, Integer>(header.length * 2);
+            for (int i = 0; i < header.length; i++) {
+                if (columns.put(header[i], i) != null) {
+                    throw malformed(recordLine, "names the column " + header[i] + " more than once.");
+                }
+            }
+        }
+        if (!readFields()) {
+            return null;
+        }
+        if (fields.size() != header.length) {
+            throw malformed(recordLine, "has " + fields.size() + " fields but the header has " + header.length + ".");
+        }
+        return new Record(columns, header, fields.toArray(new String[fields.size()]));
+    }
+
+    /**
+     * Reads the fields of the next record that is not a blank line.
+     *
+     * @return false if there are no more records.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private boolean readFields() throws IOException {
+        fields.clear();
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == -1) {
+            return false;
+        }
+        recordLine = line();
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw malformed(recordLine, "has a quoted field that is never closed.");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    field.append((char) c);
+                }
+                if (c != separator && c != '\n' && c != '\r' && c != -1) {
+                    throw malformed(recordLine, "has text after the closing quote of a field.");
+                }
+            } else {
+                while (c != separator && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+            if (c != separator) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                return true;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * A record of a CSV file.  The fields are held in an array indexed through the column positions of the header.
+     */
+    private static final class Record extends AbstractMap<String, Object> {
+
+        /**
+         * The position of each column by name.
+         */
+        private final Map<String, Integer> columns;
+
+        /**
+         * The column names in the order of the header.
+         */
+        private final String[] header;
+
+        /**
+         * The fields in the order of the header.
+         */
+        private final String[] values;
+
+        /**
+         * Constructor
+         *
+         * @param columns the position of each column by name.
+         * @param header  the column names in the order of the header.
+         * @param values  the fields in the order of the header.
+         */
+        private Record(final Map<String, Integer> columns, final String[] header, final String[] values) {
+            this.columns = columns;
+            this.header = header;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            final Integer column = columns.get(key);
+            return column == null ? null : values[column];
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return columns.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= values.length) {
+                                throw new NoSuchElementException();
+                            }
+                            final Entry<String, Object> entry = new SimpleImmutableEntry<String, Object>(
+                                    header[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Records cannot be changed.");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
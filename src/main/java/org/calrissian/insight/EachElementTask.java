@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies an EachPropertyMatcher to a range of the elements of its first wildcard on a ForkJoinPool.  Ranges larger
+ * than the leaf size are split in half.  The failures of the left half always come before the failures of the right
+ * half so they are reported in index order however the halves were scheduled.
+ */
+final class EachElementTask extends RecursiveTask<ElementFailures> {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The matcher being applied.
+     */
+    private final AssertBeanBuilder.EachPropertyMatcher matcher;
+
+    /**
+     * The collection walked by the first wildcard.
+     */
+    private final Object prefix;
+
+    /**
+     * The position of the first element of the range.
+     */
+    private final int from;
+
+    /**
+     * The position after the last element of the range.
+     */
+    private final int to;
+
+    /**
+     * The largest range walked without splitting.
+     */
+    private final int leafSize;
+
+    /**
+     * Set once any element failed when the failures are not described, so the other ranges can stop.  Null when the
+     * failures are described.
+     */
+    private final AtomicBoolean failed;
+
+    /**
+     * Constructor
+     *
+     * @param matcher  being applied.
+     * @param prefix   the collection walked by the first wildcard.
+     * @param from     the position of the first element of the range.
+     * @param to       the position after the last element of the range.
+     * @param leafSize the largest range walked without splitting.
+     * @param failed   set once any element failed to stop the other ranges, or null to walk every element.
+     */
+    EachElementTask(final AssertBeanBuilder.EachPropertyMatcher matcher, final Object prefix, final int from,
+                    final int to, final int leafSize, final AtomicBoolean failed) {
+        this.matcher = matcher;
+        this.prefix = prefix;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+        this.failed = failed;
+    }
+
+    @Override
+    protected ElementFailures compute() {
+        if (failed != null && failed.get()) {
+            // another range already failed
+            return new ElementFailures(0);
+        }
+        if (to - from <= leafSize) {
+            return matcher.collect(matcher.getPath().walk(prefix, from, to), failed == null, failed);
+        }
+        final int middle = (from + to) >>> 1;
+        final EachElementTask left = new EachElementTask(matcher, prefix, from, middle, leafSize, failed);
+        final EachElementTask right = new EachElementTask(matcher, prefix, middle, to, leafSize, failed);
+        right.fork();
+        final ElementFailures failures = left.compute();
+        failures.addAll(right.join());
+        return failures;
+    }
+}
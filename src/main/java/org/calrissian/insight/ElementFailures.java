@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Description;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The elements of a wildcard that did not match, in the order they were walked.  Every failure is counted but only
+ * the first few are described so a collection where every element fails does not build a huge message.
+ */
+final class ElementFailures {
+
+    /**
+     * Separates the described failures.  Lines up with the text after "but: " in the failure message.
+     */
+    private static final String SEPARATOR = ",\n          ";
+
+    /**
+     * The most failures described.
+     */
+    private final int maximumDescribed;
+
+    /**
+     * The descriptions of the first failures, or null if none were described yet.
+     */
+    private List<String> described;
+
+    /**
+     * The number of failures.
+     */
+    private int count;
+
+    /**
+     * Constructor
+     *
+     * @param maximumDescribed the most failures described.
+     */
+    ElementFailures(final int maximumDescribed) {
+        this.maximumDescribed = maximumDescribed;
+    }
+
+    /**
+     * @return true if another failure would be described.
+     */
+    boolean isDescribing() {
+        return count < maximumDescribed;
+    }
+
+    /**
+     * Adds a failure.
+     *
+     * @param description of the failure or null if it is not described.
+     */
+    void add(final String description) {
+        if (description != null && isDescribing()) {
+            if (described == null) {
+                described = new ArrayList<String>();
+            }
+            described.add(description);
+        }
+        count++;
+    }
+
+    /**
+     * Adds the failures of the elements walked after the ones already added.
+     *
+     * @param later the failures of the later elements.
+     */
+    void addAll(final ElementFailures later) {
+        if (later.described != null) {
+            for (final String description : later.described) {
+                if (described != null && described.size() >= maximumDescribed) {
+                    break;
+                }
+                if (described == null) {
+                    described = new ArrayList<String>();
+                }
+                described.add(description);
+            }
+        }
+        count += later.count;
+    }
+
+    /**
+     * @return the number of failures.
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Describes the failures.
+     *
+     * @param description to append the failures to.
+     */
+    void describeTo(final Description description) {
+        if (described == null) {
+            return;
+        }
+        for (int i = 0; i < described.size(); i++) {
+            if (i != 0) {
+                description.appendText(SEPARATOR);
+            }
+            description.appendText(described.get(i));
+        }
+        if (count > described.size()) {
+            description.appendText(SEPARATOR).appendText("and ").appendText(String.valueOf(count - described.size()))
+                    .appendText(" more");
+        }
+    }
+}
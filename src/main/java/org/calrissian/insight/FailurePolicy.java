@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+/**
+ * What an AssertBuilder does with the failures of a run.  By default every assertion is run and every failure is
+ * reported.  When a run is badly broken that can mean a very large number of failures, so a policy can stop the run
+ * after a number of failures, or keep running but only count the failures past that number.  Instances are
+ * immutable.
+ */
+public final class FailurePolicy {
+
+    /**
+     * Runs every assertion and keeps every failure.
+     */
+    private static final FailurePolicy COLLECT_ALL = new FailurePolicy(Integer.MAX_VALUE, false);
+
+    /**
+     * Stops the run at the first failure.
+     */
+    private static final FailurePolicy FAIL_FAST = new FailurePolicy(1, true);
+
+    /**
+     * The most failures kept.
+     */
+    private final int maximumFailures;
+
+    /**
+     * True to stop the run once the maximum is reached, false to keep running and count the failures past it.
+     */
+    private final boolean stop;
+
+    /**
+     * Constructor
+     *
+     * @param maximumFailures the most failures kept.
+     * @param stop            true to stop the run once the maximum is reached, false to count the failures past it.
+     */
+    private FailurePolicy(final int maximumFailures, final boolean stop) {
+        if (maximumFailures < 1) {
+            throw new IllegalArgumentException("The maximum failures must be at least 1.");
+        }
+        this.maximumFailures = maximumFailures;
+        this.stop = stop;
+    }
+
+    /**
+     * Creates the default policy, which runs every assertion and reports every failure.
+     *
+     * @return the policy.
+     */
+    public static FailurePolicy collectAll() {
+        return COLLECT_ALL;
+    }
+
+    /**
+     * Creates a policy that stops the run at the first failure and reports only that failure.
+     *
+     * @return the policy.
+     */
+    public static FailurePolicy failFast() {
+        return FAIL_FAST;
+    }
+
+    /**
+     * Creates a policy that stops the run once a number of assertions have failed.
+     *
+     * @param maximumFailures the number of failures that stops the run.
+     * @return the policy.
+     * @throws java.lang.IllegalArgumentException if the maximumFailures is less than 1.
+     */
+    public static FailurePolicy stopAfter(final int maximumFailures) {
+        return new FailurePolicy(maximumFailures, true);
+    }
+
+    /**
+     * Creates a policy that runs every assertion but only keeps the first failures.  The failures past them are
+     * counted for each matcher, or for each named AssertBuilder of a collector, and reported as a summary.
+     *
+     * @param maximumFailures the number of failures kept.
+     * @return the policy.
+     * @throws java.lang.IllegalArgumentException if the maximumFailures is less than 1.
+     */
+    public static FailurePolicy countAfter(final int maximumFailures) {
+        return new FailurePolicy(maximumFailures, false);
+    }
+
+    /**
+     * @return the most failures kept.
+     */
+    int getMaximumFailures() {
+        return maximumFailures;
+    }
+
+    /**
+     * @return true to stop the run once the maximum is reached, false to count the failures past it.
+     */
+    boolean isStop() {
+        return stop;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+/**
+ * An AssertionError that does not capture a stack trace.  Failures are recorded with these while a run is in progress
+ * because the stack of a failing matcher only ever points into the AssertBuilder.  Capturing it for every failure is
+ * most of the cost of a run with many failures.  The AssertionError thrown to the caller always has a stack trace.
+ */
+final class FailureRecord extends AssertionError {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor
+     *
+     * @param message of the failure.
+     */
+    FailureRecord(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param message of the failure.
+     * @param cause   of the failure.
+     */
+    FailureRecord(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Does not capture the stack trace.
+     *
+     * @return this
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the failures of one run following a FailurePolicy.  Failures past the maximum of the policy are either
+ * refused, which stops the run, or only counted per source.  Instances are used by one run on one thread.
+ */
+final class FailureRecorder {
+
+    /**
+     * The policy being followed.
+     */
+    private final FailurePolicy policy;
+
+    /**
+     * The failures kept.
+     */
+    private final List<AssertionError> failures = new ArrayList<AssertionError>();
+
+    /**
+     * The number of failures past the maximum for each source, or null if there are none.
+     */
+    private Map<Object, int[]> counts;
+
+    /**
+     * Constructor
+     *
+     * @param policy to follow.
+     */
+    FailureRecorder(final FailurePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Records a failure.
+     *
+     * @param failure to record.
+     * @param source  of the failure that failures past the maximum are counted by.  Matchers are described by their
+     *                description, anything else by its String value.
+     * @return false if the run must stop.
+     */
+    boolean record(final AssertionError failure, final Object source) {
+        if (failures.size() < policy.getMaximumFailures()) {
+            failures.add(failure);
+        } else {
+            if (counts == null) {
+                counts = new LinkedHashMap<Object, int[]>();
+            }
+            final int[] count = counts.get(source);
+            if (count == null) {
+                counts.put(source, new int[]{1});
+            } else {
+                count[0]++;
+            }
+        }
+        return !(policy.isStop() && failures.size() >= policy.getMaximumFailures());
+    }
+
+    /**
+     * Throws the failures recorded, followed by a summary of the ones that were only counted.
+     *
+     * @param name of the AssertBuilder or null if it does not have one.
+     * @throws java.lang.AssertionError if any failures were recorded.
+     */
+    void throwFailures(final String name) {
+        summarize();
+        AbstractMatcherAssertBuilder.throwFailures(name, failures);
+    }
+
+    /**
+     * Combines the failures recorded, followed by a summary of the ones that were only counted, into one failure
+     * without throwing it, so it can be recorded in turn, for example as the failure of a row of a table.
+     *
+     * @param name of what failed.
+     * @return the failure, or null if no failures were recorded.
+     */
+    AssertionError toFailure(final String name) {
+        summarize();
+        if (failures.isEmpty()) {
+            return null;
+        }
+        if (failures.size() == 1) {
+            final AssertionError failure = failures.get(0);
+            return new FailureRecord(name + " failed because: " + failure.getMessage(),
+                    failure instanceof FailureRecord ? failure.getCause() : failure);
+        }
+        return new MultipleAssertionError(name, failures);
+    }
+
+    /**
+     * Adds the summary of the failures that were only counted to the failures kept.
+     */
+    private void summarize() {
+        if (counts != null) {
+            int total = 0;
+            final StringBuilder summary = new StringBuilder();
+            for (final Map.Entry<Object, int[]> entry : counts.entrySet()) {
+                total += entry.getValue()[0];
+                summary.append("\n").append(entry.getValue()[0]).append(" more of ").append(describe(entry.getKey()));
+            }
+            failures.add(new FailureRecord(total + " more failures were counted but not kept:" + summary));
+            counts = null;
+        }
+    }
+
+    /**
+     * Describes the source of failures.
+     *
+     * @param source of failures.
+     * @return the description.
+     */
+    private static String describe(final Object source) {
+        if (source instanceof Matcher) {
+            return StringDescription.toString((Matcher<?>) source);
+        }
+        return (source == null) ? "unnamed assertions" : source.toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helpers for the futures of the AsyncAssertBuilders.
+ */
+final class Futures {
+
+    /**
+     * Utility class
+     */
+    private Futures() {
+    }
+
+    /**
+     * Creates a future that has already failed.
+     *
+     * @param error the future failed with.
+     * @return a new future.
+     */
+    static CompletableFuture<Void> failed(final Throwable error) {
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Starts an AssertBuilder.  AsyncAssertBuilders are started with {@link AsyncAssertBuilder#runAssertAsync()} and
+     * any other AssertBuilder is run on the calling thread.
+     *
+     * @param assertBuilder to start.
+     * @return the future of the assertion.
+     */
+    static CompletableFuture<Void> start(final AssertBuilder assertBuilder) {
+        try {
+            if (assertBuilder instanceof AsyncAssertBuilder) {
+                return ((AsyncAssertBuilder) assertBuilder).runAssertAsync();
+            }
+            assertBuilder.runAssert();
+            return CompletableFuture.completedFuture(null);
+        } catch (final Throwable e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Removes the wrappers the futures put around the real failure.
+     *
+     * @param error a future failed with.
+     * @return the real failure.
+     */
+    static Throwable unwrap(final Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException) &&
+                current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Waits for a future of an AsyncAssertBuilder and rethrows its failure as is.
+     *
+     * @param future to wait for.
+     * @throws java.lang.AssertionError if the assertions failed.
+     */
+    static void await(final CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = unwrap(e);
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the records of a JSON lines file, where every line is a JSON object.  Blank lines are skipped.  Objects are
+ * read as Maps that keep the order of their members, arrays as Lists, whole numbers as Long or BigInteger, other
+ * numbers as Double, and true, false and null as Boolean.TRUE, Boolean.FALSE and null.
+ */
+final class JsonRecordReader extends RecordReader {
+
+    /**
+     * The string being read.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * The line the record being read is on.
+     */
+    private long recordLine;
+
+    /**
+     * Constructor
+     *
+     * @param path    of the file.
+     * @param charset the file is encoded in.
+     * @throws java.io.IOException if the file could not be opened.
+     */
+    JsonRecordReader(final Path path, final Charset charset) throws IOException {
+        super(path, charset);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Map<String, Object> readRecord() throws IOException {
+        int c = skipSpace();
+        while (c == '\n') {
+            read();
+            c = skipSpace();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line();
+        if (c != '{') {
+            throw malformed(recordLine, "is not a JSON object.");
+        }
+        final Object record = readValue();
+        c = skipSpace();
+        if (c != '\n' && c != -1) {
+            throw malformed(recordLine, "has text after the JSON object.");
+        }
+        return (Map<String, Object>) record;
+    }
+
+    /**
+     * Reads a JSON value.
+     *
+     * @return the value.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private Object readValue() throws IOException {
+        final int c = skipSpace();
+        switch (c) {
+            case '{':
+                read();
+                return readObject();
+            case '[':
+                read();
+                return readArray();
+            case '"':
+                read();
+                return readString();
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw malformed(recordLine, "has " + describe(c) + " where a JSON value was expected.");
+        }
+    }
+
+    /**
+     * Reads the members of an object after its opening brace.
+     *
+     * @return the object.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private Map<String, Object> readObject() throws IOException {
+        final Map<String, Object> object = new LinkedHashMap<String, Object>();
+        if (skipSpace() == '}') {
+            read();
+            return object;
+        }
+        while (true) {
+            if (skipSpace() != '"') {
+                throw malformed(recordLine, "has " + describe(peek()) + " where a member name was expected.");
+            }
+            read();
+            final String name = readString();
+            expect(':');
+            object.put(name, readValue());
+            final int c = skipSpace();
+            read();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw malformed(recordLine, "has " + describe(c) + " where , or } was expected.");
+            }
+        }
+    }
+
+    /**
+     * Reads the elements of an array after its opening bracket.
+     *
+     * @return the array.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private List<Object> readArray() throws IOException {
+        final List<Object> array = new ArrayList<Object>();
+        if (skipSpace() == ']') {
+            read();
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            final int c = skipSpace();
+            read();
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw malformed(recordLine, "has " + describe(c) + " where , or ] was expected.");
+            }
+        }
+    }
+
+    /**
+     * Reads a string after its opening quote.
+     *
+     * @return the string.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == -1 || c == '\n') {
+                throw malformed(recordLine, "has a string that is never closed.");
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        c = 0;
+                        for (int i = 0; i < 4; i++) {
+                            final int digit = Character.digit(read(), 16);
+                            if (digit == -1) {
+                                throw malformed(recordLine, "has a \\u escape that is not 4 hex digits.");
+                            }
+                            c = (c << 4) | digit;
+                        }
+                        break;
+                    default:
+                        throw malformed(recordLine, "has an unknown escape \\" + describe(c) + ".");
+                }
+            }
+            text.append((char) c);
+        }
+    }
+
+    /**
+     * Reads a number.
+     *
+     * @return a Long or BigInteger for whole numbers, otherwise a Double.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private Object readNumber() throws IOException {
+        text.setLength(0);
+        boolean whole = true;
+        for (int c = peek(); c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9');
+             c = peek()) {
+            whole &= c != '.' && c != 'e' && c != 'E';
+            text.append((char) read());
+        }
+        final String number = text.toString();
+        try {
+            if (!whole) {
+                return Double.valueOf(number);
+            }
+            if (number.length() < 19) {
+                return Long.valueOf(number);
+            }
+            final BigInteger big = new BigInteger(number);
+            return big.bitLength() < 64 ? (Object) big.longValue() : big;
+        } catch (final NumberFormatException e) {
+            throw malformed(recordLine, "has an invalid number " + number + ".");
+        }
+    }
+
+    /**
+     * Reads one of the literals true, false or null.
+     *
+     * @param literal to read.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private void readLiteral(final String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw malformed(recordLine, "has an invalid value where " + literal + " was expected.");
+            }
+        }
+    }
+
+    /**
+     * Reads a character that must come next, skipping the spaces before it.
+     *
+     * @param expected the character.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private void expect(final char expected) throws IOException {
+        final int c = skipSpace();
+        if (c != expected) {
+            throw malformed(recordLine, "has " + describe(c) + " where " + expected + " was expected.");
+        }
+        read();
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns.  Line feeds end a record so they are not skipped.
+     *
+     * @return the next character, which has not been read, or -1 at the end of the file.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    private int skipSpace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\r') {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Describes a character for a failure.
+     *
+     * @param c the character or -1 at the end of the file.
+     * @return the description.
+     */
+    private static String describe(final int c) {
+        if (c == -1) {
+            return "the end of the file";
+        }
+        if (c == '\n') {
+            return "the end of the line";
+        }
+        return String.valueOf((char) c);
+    }
+}
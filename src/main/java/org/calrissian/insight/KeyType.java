@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Converts the text of a bracket key to the type of the keys of a Map.  The types that can be named in a path are
+ * String, Integer, Long, Short, Byte, Double, Float, Boolean, Character, BigInteger, BigDecimal and UUID, along with
+ * int, long, short, byte, double, float, boolean and char.  Keys are also converted to enums found as the keys of a
+ * Map, by the name of the constant.
+ */
+abstract class KeyType {
+
+    /**
+     * The types that can be named in a path, by name.
+     */
+    private static final Map<String, KeyType> NAMED = new HashMap<String, KeyType>();
+
+    /**
+     * The types that can be named in a path, by class.
+     */
+    private static final Map<Class<?>, KeyType> TYPES = new HashMap<Class<?>, KeyType>();
+
+    static {
+        register(new KeyType(String.class, "String") {
+            @Override
+            Object parse(final String text) {
+                return text;
+            }
+        });
+        register(new KeyType(Integer.class, "Integer", "int") {
+            @Override
+            Object parse(final String text) {
+                return Integer.valueOf(text);
+            }
+        });
+        register(new KeyType(Long.class, "Long", "long") {
+            @Override
+            Object parse(final String text) {
+                return Long.valueOf(text);
+            }
+        });
+        register(new KeyType(Short.class, "Short", "short") {
+            @Override
+            Object parse(final String text) {
+                return Short.valueOf(text);
+            }
+        });
+        register(new KeyType(Byte.class, "Byte", "byte") {
+            @Override
+            Object parse(final String text) {
+                return Byte.valueOf(text);
+            }
+        });
+        register(new KeyType(Double.class, "Double", "double") {
+            @Override
+            Object parse(final String text) {
+                return Double.valueOf(text);
+            }
+        });
+        register(new KeyType(Float.class, "Float", "float") {
+            @Override
+            Object parse(final String text) {
+                return Float.valueOf(text);
+            }
+        });
+        register(new KeyType(Boolean.class, "Boolean", "boolean") {
+            @Override
+            Object parse(final String text) {
+                if ("true".equals(text)) {
+                    return Boolean.TRUE;
+                }
+                return "false".equals(text) ? Boolean.FALSE : null;
+            }
+        });
+        register(new KeyType(Character.class, "Character", "char") {
+            @Override
+            Object parse(final String text) {
+                return text.length() == 1 ? text.charAt(0) : null;
+            }
+        });
+        register(new KeyType(BigInteger.class, "BigInteger") {
+            @Override
+            Object parse(final String text) {
+                return new BigInteger(text);
+            }
+        });
+        register(new KeyType(BigDecimal.class, "BigDecimal") {
+            @Override
+            Object parse(final String text) {
+                return new BigDecimal(text);
+            }
+        });
+        register(new KeyType(UUID.class, "UUID") {
+            @Override
+            Object parse(final String text) {
+                final UUID uuid = UUID.fromString(text);
+                // fromString accepts short groups, only the canonical form is a match
+                return uuid.toString().equalsIgnoreCase(text) ? uuid : null;
+            }
+        });
+    }
+
+    /**
+     * The name of the type in messages.
+     */
+    final String name;
+
+    /**
+     * The class the text is converted to.
+     */
+    private final Class<?> type;
+
+    /**
+     * The names the type can be given in a path.
+     */
+    private final String[] names;
+
+    /**
+     * Constructor
+     *
+     * @param type  the class the text is converted to.
+     * @param names the names the type can be given in a path, the first being its name in messages.
+     */
+    private KeyType(final Class<?> type, final String... names) {
+        this.type = type;
+        this.names = names;
+        name = names[0];
+    }
+
+    /**
+     * Parses the text.
+     *
+     * @param text to parse.
+     * @return the key or null if the text is not a key of this type.
+     * @throws java.lang.IllegalArgumentException if the text is not a key of this type.
+     */
+    abstract Object parse(final String text);
+
+    /**
+     * Converts the text to a key of this type.
+     *
+     * @param text to convert.
+     * @return the key or null if the text is not a key of this type.
+     */
+    Object convert(final String text) {
+        try {
+            return parse(text);
+        } catch (final IllegalArgumentException e) {
+            // includes NumberFormatException
+            return null;
+        }
+    }
+
+    /**
+     * Gets a type by the name it is given in a path.
+     *
+     * @param name of the type, like Long or long.
+     * @return the type or null if it cannot be named.
+     */
+    static KeyType named(final String name) {
+        return NAMED.get(name);
+    }
+
+    /**
+     * Converts the text to a key of the class of the keys of a Map.
+     *
+     * @param text to convert.
+     * @param type of the keys of the Map.
+     * @return the key or null if the text cannot be converted to the type.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(final String text, final Class<?> type) {
+        final KeyType keyType = TYPES.get(type);
+        if (keyType != null) {
+            return keyType.convert(text);
+        }
+        if (type.isEnum()) {
+            try {
+                return Enum.valueOf((Class) type, text);
+            } catch (final IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registers a type by its names and class.
+     *
+     * @param keyType to register.
+     */
+    private static void register(final KeyType keyType) {
+        TYPES.put(keyType.type, keyType);
+        for (final String typeName : keyType.names) {
+            NAMED.put(typeName, keyType);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.TypeSafeMatcher;
+
+/**
+ * A matcher of long values that can be applied to the elements of a long[] without boxing them.  Wildcard assertions
+ * over a long[], like <code>that("samples[*]", matcher)</code>, call {@link #matchesLong(long)} for every element and
+ * only box the elements that do not match to describe them.
+ */
+public abstract class LongMatcher extends TypeSafeMatcher<Long> {
+
+    /**
+     * Checks the value.
+     *
+     * @param value to check.
+     * @return true if the value matches.
+     */
+    public abstract boolean matchesLong(final long value);
+
+    @Override
+    protected final boolean matchesSafely(final Long item) {
+        return matchesLong(item);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A Callable that calls another Callable once and then returns its result until the result expires or is
+ * invalidated.  Use it to share an expensive source, like a REST response or a database query, between AssertBuilders.
+ * When it is called from many threads at once the source is still only called once and every thread waits for that
+ * call.  A failure of the source is remembered like a result so every AssertBuilder reports the same failure, except
+ * by a MemoizingCallable with a ttl, where it is only shared by the calls already waiting for it and the next call
+ * calls the source again, so a PollingAssertBuilder does not see the same failure for the whole ttl.
+ * <p>
+ * Create one with {@link AssertBuilderCollector#memoize(java.util.concurrent.Callable)} to call the source once per
+ * run of the collector, or with {@link #withTtl(java.util.concurrent.Callable, long, java.util.concurrent.TimeUnit)}
+ * to keep the result for a while, for example across the attempts of a PollingAssertBuilder.
+ * </p>
+ *
+ * @param <T> type of object returned
+ */
+public final class MemoizingCallable<T> implements Callable<T> {
+
+    /**
+     * A time to live that never expires.
+     */
+    private static final long FOREVER = -1;
+
+    /**
+     * Reads the current time in nanoseconds.
+     */
+    private static final LongSupplier NANO_TIME = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * The source being memoized.
+     */
+    private final Callable<T> callable;
+
+    /**
+     * How long a result is kept in nanoseconds, or FOREVER.
+     */
+    private final long ttl;
+
+    /**
+     * Reads the current time in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The current call of the source, or null if it has to be called again.
+     */
+    private final AtomicReference<Result> result = new AtomicReference<Result>();
+
+    /**
+     * Constructor
+     *
+     * @param callable the source to memoize.
+     * @param ttl      how long a result is kept in nanoseconds, or FOREVER.
+     * @param clock    reads the current time in nanoseconds.
+     */
+    MemoizingCallable(final Callable<T> callable, final long ttl, final LongSupplier clock) {
+        if (callable == null) {
+            throw new NullPointerException("Callable must not be null.");
+        }
+        this.callable = callable;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a MemoizingCallable that keeps the result until it is invalidated.
+     *
+     * @param callable the source to memoize.
+     * @param <T>      type of object returned
+     * @return a new MemoizingCallable.
+     * @throws java.lang.NullPointerException if the callable is null.
+     */
+    public static <T> MemoizingCallable<T> of(final Callable<T> callable) {
+        return new MemoizingCallable<T>(callable, FOREVER, NANO_TIME);
+    }
+
+    /**
+     * Creates a MemoizingCallable that keeps the result for a time after the source returned it.  A failure of the
+     * source is not kept, the next call calls the source again.
+     *
+     * @param callable the source to memoize.
+     * @param ttl      how long to keep the result.
+     * @param unit     of the ttl.
+     * @param <T>      type of object returned
+     * @return a new MemoizingCallable.
+     * @throws java.lang.NullPointerException     if the callable or unit is null.
+     * @throws java.lang.IllegalArgumentException if the ttl is negative.
+     */
+    public static <T> MemoizingCallable<T> withTtl(final Callable<T> callable, final long ttl, final TimeUnit unit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("The ttl cannot be negative.");
+        }
+        return new MemoizingCallable<T>(callable, unit.toNanos(ttl), NANO_TIME);
+    }
+
+    /**
+     * Returns the result of the source, calling it if there is no result yet or it has expired.
+     *
+     * @return the result of the source.
+     * @throws java.lang.Exception the exception the source threw.
+     */
+    @Override
+    public T call() throws Exception {
+        while (true) {
+            final Result current = result.get();
+            if (current != null && !current.isExpired()) {
+                return current.result();
+            }
+            final Result next = new Result(callable);
+            if (result.compareAndSet(current, next)) {
+                next.run();
+                return next.result();
+            }
+        }
+    }
+
+    /**
+     * Forgets the result so the next call calls the source again.  Threads already waiting for a call of the source
+     * still get its result.
+     */
+    public void invalidate() {
+        result.set(null);
+    }
+
+    /**
+     * A call of the source.
+     */
+    private final class Result extends FutureTask<T> {
+
+        /**
+         * When the source returned in nanoseconds.  Only valid once finished is set.
+         */
+        private volatile long completed;
+
+        /**
+         * True once the source returned.
+         */
+        private volatile boolean finished;
+
+        /**
+         * True if the source threw.  Only valid once finished is set.
+         */
+        private volatile boolean failed;
+
+        /**
+         * Constructor
+         *
+         * @param callable the source to call.
+         */
+        private Result(final Callable<T> callable) {
+            super(callable);
+        }
+
+        @Override
+        protected void setException(final Throwable t) {
+            // set before super.setException calls done, so it is visible once finished is
+            failed = true;
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            completed = clock.getAsLong();
+            finished = true;
+        }
+
+        /**
+         * @return true if there is a ttl and the source either threw or returned longer than the ttl ago.
+         */
+        private boolean isExpired() {
+            return ttl != FOREVER && finished && (failed || clock.getAsLong() - completed >= ttl);
+        }
+
+        /**
+         * Waits for the source to return.
+         *
+         * @return the result of the source.
+         * @throws java.lang.Exception the exception the source threw.
+         */
+        private T result() throws Exception {
+            try {
+                return get();
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -15,15 +15,46 @@
  */
 package org.calrissian.insight;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * An AssertionError that holds multiple errors.
+ * An AssertionError that holds multiple errors.  The message is rendered the first time it is asked for and cached.
+ * Only the first errors are rendered, up to a number of errors and a number of characters, followed by a summary of
+ * how many were left out.  The limits default to the <code>insight.multipleAssertionError.maximumErrors</code> and
+ * <code>insight.multipleAssertionError.maximumLength</code> system properties.
  */
 public class MultipleAssertionError extends AssertionError {
 
+    /**
+     * The most errors rendered in the message unless the system property says otherwise.
+     */
+    public static final int DEFAULT_MAXIMUM_ERRORS = 100;
+
+    /**
+     * The most characters of errors rendered in the message unless the system property says otherwise.
+     */
+    public static final int DEFAULT_MAXIMUM_LENGTH = 64 * 1024;
+
+    /**
+     * The most errors rendered in the message.
+     */
+    private static final int MAXIMUM_ERRORS = Integer.getInteger("insight.multipleAssertionError.maximumErrors",
+            DEFAULT_MAXIMUM_ERRORS);
+
+    /**
+     * The most characters of errors rendered in the message.
+     */
+    private static final int MAXIMUM_LENGTH = Integer.getInteger("insight.multipleAssertionError.maximumLength",
+            DEFAULT_MAXIMUM_LENGTH);
+
+    /**
+     * The indent of each error.
+     */
+    private static final String INDENT = "  ";
+
     /**
      * The assertion errors
      */
@@ -34,6 +65,21 @@ public class MultipleAssertionError extends AssertionError {
      */
     private final String name;
 
+    /**
+     * The most errors rendered in the message.
+     */
+    private final int maximumErrors;
+
+    /**
+     * The most characters rendered in the message, not counting the summary of the errors left out.
+     */
+    private final int maximumLength;
+
+    /**
+     * The rendered message, or null until it is asked for.
+     */
+    private transient volatile String message;
+
     /**
      * Constructor
      *
@@ -54,12 +100,30 @@ public class MultipleAssertionError extends AssertionError {
      * @throws java.lang.IllegalArgumentException if the errors is empty.
      */
     public MultipleAssertionError(final String name, final List<AssertionError> errors) {
+        this(name, errors, MAXIMUM_ERRORS, MAXIMUM_LENGTH);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name          to describe the errors.  If null then this is the same as not having a name.
+     * @param errors
+     * @param maximumErrors the most errors rendered in the message.
+     * @param maximumLength the most characters rendered in the message before the summary of the errors left out.
+     * @throws java.lang.NullPointerException     if the errors is null or there is a null in the errors list.
+     * @throws java.lang.IllegalArgumentException if the errors is empty or a maximum is less than 1.
+     */
+    public MultipleAssertionError(final String name, final List<AssertionError> errors, final int maximumErrors,
+                                  final int maximumLength) {
         if (errors == null) {
             throw new NullPointerException("Errors must not be null");
         }
         if (errors.isEmpty()) {
             throw new IllegalArgumentException("Cannot have a empty errors list.");
         }
+        if (maximumErrors < 1 || maximumLength < 1) {
+            throw new IllegalArgumentException("The maximum errors and length must be at least 1.");
+        }
         for (final AssertionError error : errors) {
             if (error == null) {
                 throw new NullPointerException("An AssertionError in the errors list is null.");
@@ -67,6 +131,8 @@ public class MultipleAssertionError extends AssertionError {
         }
         this.errors = Collections.unmodifiableList(new ArrayList(errors));
         this.name = name;
+        this.maximumErrors = maximumErrors;
+        this.maximumLength = maximumLength;
     }
 
     public List getErrors() {
@@ -75,20 +141,139 @@ public class MultipleAssertionError extends AssertionError {
 
     @Override
     public String getMessage() {
-        final StringBuilder builder = new StringBuilder(1024);
+        String current = message;
+        if (current == null) {
+            final StringBuilder builder = new StringBuilder(Math.min(maximumLength, 256 * errors.size()) + 64);
+            try {
+                appendTo(builder);
+            } catch (final IOException e) {
+                // a StringBuilder does not throw
+                throw new IllegalStateException(e);
+            }
+            current = builder.toString();
+            message = current;
+        }
+        return current;
+    }
+
+    /**
+     * Renders the message to the appendable without building it in memory first.  The message is the same as
+     * {@link #getMessage()}.
+     *
+     * @param appendable to render the message to.
+     * @throws java.io.IOException if the appendable throws it.
+     */
+    public void appendTo(final Appendable appendable) throws IOException {
+        final String lineSeparator = System.getProperty("line.separator");
+        final LimitedAppendable limited = new LimitedAppendable(appendable, maximumLength);
         if (name == null) {
-            builder.append("Multiple assertion errors:");
+            limited.append("Multiple assertion errors:");
         } else {
-            builder.append(name).append(" had multiple failures:");
+            limited.append(name).append(" had multiple failures:");
         }
-        final String lineSeparator = System.getProperty("line.separator");
-        builder.append(lineSeparator);
+        int rendered = 0;
         for (final AssertionError error : errors) {
-            // indent
-            builder.append("  " + error.getMessage().replace(lineSeparator, lineSeparator + "  "))
-                    .append(lineSeparator);
+            if (rendered == maximumErrors || limited.isFull()) {
+                break;
+            }
+            limited.append(lineSeparator).append(INDENT);
+            appendIndented(limited, String.valueOf(error.getMessage()), lineSeparator);
+            if (limited.isFull()) {
+                // the error was cut off
+                break;
+            }
+            rendered++;
+        }
+        if (rendered < errors.size()) {
+            appendable.append(lineSeparator).append("...and ").append(String.valueOf(errors.size() - rendered))
+                    .append(" more");
+        }
+    }
+
+    /**
+     * Appends an error message indenting each of its lines.
+     *
+     * @param appendable    to append to.
+     * @param errorMessage  to append.
+     * @param lineSeparator that separates the lines.
+     * @throws java.io.IOException if the appendable throws it.
+     */
+    private static void appendIndented(final Appendable appendable, final String errorMessage,
+                                       final String lineSeparator) throws IOException {
+        int start = 0;
+        for (int end = errorMessage.indexOf(lineSeparator); end != -1;
+             end = errorMessage.indexOf(lineSeparator, start)) {
+            end += lineSeparator.length();
+            appendable.append(errorMessage, start, end).append(INDENT);
+            start = end;
+        }
+        appendable.append(errorMessage, start, errorMessage.length());
+    }
+
+    /**
+     * Appends to another Appendable until a number of characters have been appended, then drops the rest.
+     */
+    private static final class LimitedAppendable implements Appendable {
+
+        /**
+         * Where the characters are appended.
+         */
+        private final Appendable appendable;
+
+        /**
+         * The number of characters that can still be appended.
+         */
+        private int remaining;
+
+        /**
+         * True once characters were dropped.
+         */
+        private boolean full;
+
+        /**
+         * Constructor
+         *
+         * @param appendable where the characters are appended.
+         * @param limit      the number of characters that can be appended.
+         */
+        private LimitedAppendable(final Appendable appendable, final int limit) {
+            this.appendable = appendable;
+            remaining = limit;
+        }
+
+        /**
+         * @return true once characters were dropped.
+         */
+        private boolean isFull() {
+            return full;
+        }
+
+        @Override
+        public LimitedAppendable append(final CharSequence csq) throws IOException {
+            final CharSequence sequence = (csq == null) ? "null" : csq;
+            return append(sequence, 0, sequence.length());
+        }
+
+        @Override
+        public LimitedAppendable append(final CharSequence csq, final int start, final int end) throws IOException {
+            final CharSequence sequence = (csq == null) ? "null" : csq;
+            if (full) {
+                return this;
+            }
+            if (end - start > remaining) {
+                appendable.append(sequence, start, start + remaining);
+                remaining = 0;
+                full = true;
+            } else {
+                appendable.append(sequence, start, end);
+                remaining -= end - start;
+            }
+            return this;
+        }
+
+        @Override
+        public LimitedAppendable append(final char c) throws IOException {
+            return append(String.valueOf(c), 0, 1);
         }
-        builder.deleteCharAt(builder.length() - 1);
-        return builder.toString();
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Re-runs an AssertBuilder until all its assertions pass or the PollingPolicy times out, for backends that are only
+ * eventually consistent.  When it times out only the failures of the last attempt are reported.
+ * <p>
+ * No thread sleeps between attempts.  The next attempt is scheduled on a ScheduledExecutorService, by default one that
+ * is shared by every PollingAssertBuilder, so hundreds of pending checks only need a handful of threads.  An
+ * AsyncAssertBuilder is started on that thread and waits for its object without blocking it; any other AssertBuilder
+ * runs on it, so slow Callables should be given their own scheduler.
+ * </p>
+ */
+public class PollingAssertBuilder implements AsyncAssertBuilder {
+
+    /**
+     * The AssertBuilder to re-run.
+     */
+    private final AssertBuilder assertBuilder;
+
+    /**
+     * How long and how often to re-run.
+     */
+    private final PollingPolicy policy;
+
+    /**
+     * Schedules the attempts.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor that uses the shared scheduler.
+     *
+     * @param assertBuilder to re-run.
+     * @param policy        how long and how often to re-run.
+     * @throws java.lang.NullPointerException if any argument is null.
+     */
+    public PollingAssertBuilder(final AssertBuilder assertBuilder, final PollingPolicy policy) {
+        this(assertBuilder, policy, SharedScheduler.INSTANCE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param assertBuilder to re-run.
+     * @param policy        how long and how often to re-run.
+     * @param scheduler     to schedule the attempts on.
+     * @throws java.lang.NullPointerException if any argument is null.
+     */
+    public PollingAssertBuilder(final AssertBuilder assertBuilder, final PollingPolicy policy,
+                                final ScheduledExecutorService scheduler) {
+        if (assertBuilder == null) {
+            throw new NullPointerException("AssertBuilder must not be null.");
+        }
+        if (policy == null) {
+            throw new NullPointerException("PollingPolicy must not be null.");
+        }
+        if (scheduler == null) {
+            throw new NullPointerException("Scheduler must not be null.");
+        }
+        this.assertBuilder = assertBuilder;
+        this.policy = policy;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Polls until the assertions pass or the policy times out, waiting on the calling thread.
+     *
+     * @throws java.lang.AssertionError with the failures of the last attempt if the assertions never passed.
+     */
+    @Override
+    public void runAssert() {
+        Futures.await(runAssertAsync());
+    }
+
+    /**
+     * Starts polling.  The first attempt runs on the calling thread.
+     *
+     * @return a future that completes when the assertions pass, or exceptionally with the failures of the last
+     * attempt when the policy times out.  An exception other than an AssertionError stops the polling at once.
+     */
+    @Override
+    public CompletableFuture<Void> runAssertAsync() {
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        attempt(result, System.nanoTime() + policy.getTimeoutNanos(), 0);
+        return result;
+    }
+
+    /**
+     * Runs an attempt and schedules the next one if it failed and there is time left.
+     *
+     * @param result   the future of the polling.
+     * @param deadline the System#nanoTime when the polling times out.
+     * @param attempt  the number of this attempt, starting at 0.
+     */
+    private void attempt(final CompletableFuture<Void> result, final long deadline, final int attempt) {
+        Futures.start(assertBuilder).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void ignored, final Throwable error) {
+                if (error == null) {
+                    result.complete(null);
+                    return;
+                }
+                final Throwable cause = Futures.unwrap(error);
+                final long remaining = deadline - System.nanoTime();
+                if (!(cause instanceof AssertionError) || remaining <= 0 || result.isDone()) {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+                try {
+                    scheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            attempt(result, deadline, attempt + 1);
+                        }
+                    }, Math.min(policy.delayNanos(attempt), remaining), TimeUnit.NANOSECONDS);
+                } catch (final RejectedExecutionException e) {
+                    result.completeExceptionally(cause);
+                }
+            }
+        });
+    }
+
+    /**
+     * Holds the scheduler shared by the PollingAssertBuilders so it is only created when first needed.
+     */
+    private static final class SharedScheduler {
+
+        /**
+         * The shared scheduler.  Its threads are daemons so it never keeps the JVM alive.
+         */
+        private static final ScheduledExecutorService INSTANCE;
+
+        static {
+            final AtomicInteger count = new AtomicInteger();
+            final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                    Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "insight-poller-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            INSTANCE = scheduler;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long and how often a PollingAssertBuilder re-runs its assertions.  The delay between attempts starts at the
+ * initial delay and is multiplied after every attempt up to the maximum delay.  Each delay is randomly moved by up to
+ * the jitter fraction so pollers started together do not keep hitting the backend at the same time.  Instances are
+ * immutable; the <code>with</code> methods return a copy.
+ */
+public final class PollingPolicy {
+
+    /**
+     * The default delay before the second attempt.
+     */
+    private static final long DEFAULT_INITIAL_DELAY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The default longest delay between attempts.
+     */
+    private static final long DEFAULT_MAXIMUM_DELAY = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * How long to keep polling in nanoseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The delay before the second attempt in nanoseconds.
+     */
+    private final long initialDelay;
+
+    /**
+     * The longest delay between attempts in nanoseconds.
+     */
+    private final long maximumDelay;
+
+    /**
+     * What the delay is multiplied by after every attempt.
+     */
+    private final double multiplier;
+
+    /**
+     * The fraction of the delay it can be randomly moved by.
+     */
+    private final double jitter;
+
+    /**
+     * Constructor
+     *
+     * @param timeout      how long to keep polling in nanoseconds.
+     * @param initialDelay the delay before the second attempt in nanoseconds.
+     * @param maximumDelay the longest delay between attempts in nanoseconds.
+     * @param multiplier   what the delay is multiplied by after every attempt.
+     * @param jitter       the fraction of the delay it can be randomly moved by.
+     */
+    private PollingPolicy(final long timeout, final long initialDelay, final long maximumDelay,
+                          final double multiplier, final double jitter) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative.");
+        }
+        if (initialDelay < 0 || maximumDelay < initialDelay) {
+            throw new IllegalArgumentException("Delays cannot be negative and the initial delay cannot be more than " +
+                    "the maximum delay.");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("Multiplier must be at least 1.");
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1.");
+        }
+        this.timeout = timeout;
+        this.initialDelay = initialDelay;
+        this.maximumDelay = maximumDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Creates a policy that polls until the timeout with the default backoff: starting at 10ms, doubling up to 1s,
+     * with 20% jitter.
+     *
+     * @param timeout how long to keep polling.
+     * @param unit    of the timeout.
+     * @return a new policy.
+     * @throws java.lang.IllegalArgumentException if the timeout is negative.
+     */
+    public static PollingPolicy within(final long timeout, final TimeUnit unit) {
+        return new PollingPolicy(unit.toNanos(timeout), DEFAULT_INITIAL_DELAY, DEFAULT_MAXIMUM_DELAY, 2, 0.2);
+    }
+
+    /**
+     * Copies this policy with a new range of delays.
+     *
+     * @param initialDelay the delay before the second attempt.
+     * @param maximumDelay the longest delay between attempts.
+     * @param unit         of the delays.
+     * @return a new policy.
+     * @throws java.lang.IllegalArgumentException if a delay is negative or the initial delay is more than the maximum.
+     */
+    public PollingPolicy withBackoff(final long initialDelay, final long maximumDelay, final TimeUnit unit) {
+        return new PollingPolicy(timeout, unit.toNanos(initialDelay), unit.toNanos(maximumDelay), multiplier, jitter);
+    }
+
+    /**
+     * Copies this policy with a new multiplier.
+     *
+     * @param multiplier what the delay is multiplied by after every attempt.  1 keeps the delay fixed.
+     * @return a new policy.
+     * @throws java.lang.IllegalArgumentException if the multiplier is less than 1.
+     */
+    public PollingPolicy withMultiplier(final double multiplier) {
+        return new PollingPolicy(timeout, initialDelay, maximumDelay, multiplier, jitter);
+    }
+
+    /**
+     * Copies this policy with a new jitter.
+     *
+     * @param jitter the fraction of the delay it can be randomly moved by.  0 turns the jitter off.
+     * @return a new policy.
+     * @throws java.lang.IllegalArgumentException if the jitter is not between 0 and 1.
+     */
+    public PollingPolicy withJitter(final double jitter) {
+        return new PollingPolicy(timeout, initialDelay, maximumDelay, multiplier, jitter);
+    }
+
+    /**
+     * @return how long to keep polling in nanoseconds.
+     */
+    long getTimeoutNanos() {
+        return timeout;
+    }
+
+    /**
+     * Gets the delay after an attempt.
+     *
+     * @param attempt the number of the attempt that just failed, starting at 0.
+     * @return the delay in nanoseconds.
+     */
+    long delayNanos(final int attempt) {
+        final double delay = Math.min(maximumDelay, initialDelay * Math.pow(multiplier, attempt));
+        if (jitter == 0) {
+            return (long) delay;
+        }
+        final double offset = delay * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(0, (long) (delay + offset));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Description;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * Factory of IntMatchers, LongMatchers and DoubleMatchers.  They work like any other matcher but are applied to the
+ * elements of primitive arrays without boxing them.
+ */
+public final class PrimitiveMatchers {
+
+    /**
+     * Utility class
+     */
+    private PrimitiveMatchers() {
+    }
+
+    /**
+     * Creates a matcher of ints between two bounds.
+     *
+     * @param minimum the smallest value that matches.
+     * @param maximum the largest value that matches.
+     * @return a new IntMatcher.
+     */
+    public static IntMatcher intBetween(final int minimum, final int maximum) {
+        return new IntMatcher() {
+            @Override
+            public boolean matchesInt(final int value) {
+                return value >= minimum && value <= maximum;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                describeBetween(description, minimum, maximum);
+            }
+        };
+    }
+
+    /**
+     * Creates a matcher of ints that match a predicate.
+     *
+     * @param predicate   the values must match.
+     * @param description of the predicate.
+     * @return a new IntMatcher.
+     */
+    public static IntMatcher intThat(final IntPredicate predicate, final String description) {
+        return new IntMatcher() {
+            @Override
+            public boolean matchesInt(final int value) {
+                return predicate.test(value);
+            }
+
+            @Override
+            public void describeTo(final Description builder) {
+                builder.appendText(description);
+            }
+        };
+    }
+
+    /**
+     * Creates a matcher of longs between two bounds.
+     *
+     * @param minimum the smallest value that matches.
+     * @param maximum the largest value that matches.
+     * @return a new LongMatcher.
+     */
+    public static LongMatcher longBetween(final long minimum, final long maximum) {
+        return new LongMatcher() {
+            @Override
+            public boolean matchesLong(final long value) {
+                return value >= minimum && value <= maximum;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                describeBetween(description, minimum, maximum);
+            }
+        };
+    }
+
+    /**
+     * Creates a matcher of longs that match a predicate.
+     *
+     * @param predicate   the values must match.
+     * @param description of the predicate.
+     * @return a new LongMatcher.
+     */
+    public static LongMatcher longThat(final LongPredicate predicate, final String description) {
+        return new LongMatcher() {
+            @Override
+            public boolean matchesLong(final long value) {
+                return predicate.test(value);
+            }
+
+            @Override
+            public void describeTo(final Description builder) {
+                builder.appendText(description);
+            }
+        };
+    }
+
+    /**
+     * Creates a matcher of doubles between two bounds.  NaN is never between the bounds.
+     *
+     * @param minimum the smallest value that matches.
+     * @param maximum the largest value that matches.
+     * @return a new DoubleMatcher.
+     */
+    public static DoubleMatcher doubleBetween(final double minimum, final double maximum) {
+        return new DoubleMatcher() {
+            @Override
+            public boolean matchesDouble(final double value) {
+                return value >= minimum && value <= maximum;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                describeBetween(description, minimum, maximum);
+            }
+        };
+    }
+
+    /**
+     * Creates a matcher of doubles that match a predicate.
+     *
+     * @param predicate   the values must match.
+     * @param description of the predicate.
+     * @return a new DoubleMatcher.
+     */
+    public static DoubleMatcher doubleThat(final DoublePredicate predicate, final String description) {
+        return new DoubleMatcher() {
+            @Override
+            public boolean matchesDouble(final double value) {
+                return predicate.test(value);
+            }
+
+            @Override
+            public void describeTo(final Description builder) {
+                builder.appendText(description);
+            }
+        };
+    }
+
+    /**
+     * Describes a range.
+     *
+     * @param description to append to.
+     * @param minimum     of the range.
+     * @param maximum     of the range.
+     */
+    private static void describeBetween(final Description description, final Object minimum, final Object maximum) {
+        description.appendText("a value between ").appendValue(minimum).appendText(" and ").appendValue(maximum);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+/**
+ * Accesses the Property of the bean.
+ */
+class PropertyBeanAccessor implements BeanAccessor {
+
+    /**
+     * The name of the property to get
+     */
+    private final String propertyName;
+
+    /**
+     * The full name of this bean.
+     */
+    private final String beanPropertyName;
+
+    /**
+     * Constructor
+     *
+     * @param propertyName     on the bean being access.
+     * @param beanPropertyName the name of the property in relation to the object.
+     */
+    PropertyBeanAccessor(final String propertyName, final String beanPropertyName) {
+        this.propertyName = propertyName;
+        this.beanPropertyName = beanPropertyName;
+    }
+
+
+    @Override
+    public Object get(Object object) {
+        // looked up on the class every time, so the accessor never holds on to a class or its ClassLoader
+        return read(reader(object.getClass()), object);
+    }
+
+    /**
+     * Gets the reader of the property for a class.
+     *
+     * @param type of the bean.
+     * @return the reader or null if the class does not have the property.
+     */
+    PropertyReader reader(final Class<?> type) {
+        return BeanProperties.of(type).getReader(propertyName);
+    }
+
+    /**
+     * Reads the property with the reader resolved for the class of the bean.
+     *
+     * @param reader the reader of the class of the bean, or null if the class does not have the property.
+     * @param object the bean.
+     * @return the value of the property.
+     * @throws java.lang.AssertionError if the class does not have the property or the getter failed.
+     */
+    Object read(final PropertyReader reader, final Object object) {
+        if (reader == null) {
+            final String beanName = (beanPropertyName.length() == propertyName.length()) ?
+                    "root bean." : "bean " + beanPropertyName.substring(0,
+                    beanPropertyName.length() - propertyName.length());
+            throw new FailureRecord("Property (" + propertyName + ") does not exist on " + beanName);
+        }
+        try {
+            return reader.read(object);
+        } catch (final Exception | LinkageError e) {
+            throw failure(e);
+        } catch (final Error e) {
+            // an OutOfMemoryError, StackOverflowError or ThreadDeath is not a failure of the bean
+            throw e;
+        } catch (final Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Creates the failure recorded when the getter of the property threw.
+     *
+     * @param cause what the getter threw.
+     * @return the failure to throw.
+     */
+    private AssertionError failure(final Throwable cause) {
+        final AssertionError a = new FailureRecord("Error accessing bean (" + beanPropertyName + ") reason: " + cause);
+        a.initCause(cause);
+        return a;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PropertyBeanAccessor)) {
+            return false;
+        }
+        final PropertyBeanAccessor that = (PropertyBeanAccessor) o;
+        return propertyName.equals(that.propertyName) && beanPropertyName.equals(that.beanPropertyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * propertyName.hashCode() + beanPropertyName.hashCode();
+    }
+}
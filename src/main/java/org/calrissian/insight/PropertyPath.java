@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * A compiled bean property path.  The path string is parsed once into the chain of BeanAccessors that walk from the
+ * root bean to the property.  A path with wildcards, like <code>orders[*].lines[*].qty</code>, reaches many
+ * properties which are walked one at a time with a Cursor.  Instances are immutable and can be shared between threads
+ * and matchers.
+ */
+final class PropertyPath {
+
+    /**
+     * The text of a wildcard in a path.
+     */
+    private static final String WILDCARD = "*";
+
+    /**
+     * Matches a wildcard and its brackets in a path.
+     */
+    private static final String WILDCARD_PATTERN = "\\[\\*\\]";
+
+    /**
+     * The property path this was compiled from.
+     */
+    private final String path;
+
+    /**
+     * The accessors to go through to get the final bean.
+     */
+    private final BeanAccessor[] accessors;
+
+    /**
+     * The positions of the WildcardAccessors in the accessors.
+     */
+    private final int[] wildcards;
+
+    /**
+     * The text of the path around each wildcard, used to name the element a Cursor is on.
+     */
+    private final String[] segments;
+
+    /**
+     * True when the path ends in a wildcard.
+     */
+    private final boolean trailing;
+
+    /**
+     * Constructor
+     *
+     * @param path      the property path this was compiled from.
+     * @param accessors the accessors to go through to get the final bean.
+     */
+    private PropertyPath(final String path, final List<BeanAccessor> accessors) {
+        this.path = path;
+        this.accessors = accessors.toArray(new BeanAccessor[accessors.size()]);
+        int count = 0;
+        for (final BeanAccessor accessor : this.accessors) {
+            if (accessor instanceof WildcardAccessor) {
+                count++;
+            }
+        }
+        wildcards = new int[count];
+        count = 0;
+        for (int i = 0; i < this.accessors.length; i++) {
+            if (this.accessors[i] instanceof WildcardAccessor) {
+                wildcards[count++] = i;
+            }
+        }
+        segments = path.split(WILDCARD_PATTERN, -1);
+        trailing = count != 0 && wildcards[count - 1] == this.accessors.length - 1;
+    }
+
+    /**
+     * Parses the propertyString to valid BeanAccessors.
+     *
+     * @param propertyString that needs to be parsed
+     * @return the compiled path
+     * @throws java.lang.IllegalArgumentException if the propertyString is not a valid property path.
+     */
+    static PropertyPath parse(final String propertyString) {
+        if (propertyString.trim().isEmpty()) {
+            throw new IllegalArgumentException("Property must have at least one bean property.");
+        }
+
+        // go through each property
+        final List<BeanAccessor> myAccessors = new ArrayList<BeanAccessor>();
+        final StringBuilder propertyBeanName = new StringBuilder(propertyString.length());
+        for (final StringTokenizer tokenizer = new StringTokenizer(propertyString,
+                "."); tokenizer.hasMoreElements(); ) {
+            final String property = tokenizer.nextToken();
+            if (propertyBeanName.length() != 0) {
+                propertyBeanName.append('.');
+            }
+            propertyBeanName.append(property);
+
+            if (property.isEmpty()) {
+                throw new IllegalArgumentException("Property (" + propertyString + ") is missing a property name " +
+                        "or has two . next to each other.");
+            }
+            final StringBuilder propertyName = new StringBuilder(property.length());
+            boolean inBracket = false;
+            boolean done = false;
+            final StringBuilder bracketText = new StringBuilder(property.length());
+            for (final char character : property.toCharArray()) {
+                if (inBracket) {
+                    if (']' == character) {
+                        done = true;
+                        continue;
+                    } else {
+                        bracketText.append(character);
+                        continue;
+                    }
+                } else if ('[' == character) {
+                    inBracket = true;
+                    continue;
+                } else if (!Character.isJavaIdentifierPart(character)) {
+                    throw new IllegalArgumentException("Property (" + propertyString + ") contains an invalid " +
+                            "character (" + character + ").");
+                }
+                propertyName.append(character);
+            }
+            // do we have a bracket
+            if (inBracket) {
+                if (!done) {
+                    throw new IllegalArgumentException("Property (" + propertyString + ") must end in a bracket " +
+                            "(]).");
+                }
+                if (propertyName.length() != 0) {
+                    // the property is named without the bracket that follows it
+                    final String beanName = propertyBeanName.substring(0, propertyBeanName.length() -
+                            property.length()) + propertyName;
+                    myAccessors.add(new PropertyBeanAccessor(propertyName.toString(), beanName));
+                }
+                if (WILDCARD.equals(bracketText.toString())) {
+                    myAccessors.add(new WildcardAccessor(propertyBeanName.toString()));
+                } else {
+                    myAccessors.add(new BracketAccessor(bracketText.toString(), propertyBeanName.toString()));
+                }
+            } else {
+                myAccessors.add(new PropertyBeanAccessor(propertyName.toString(), propertyBeanName.toString()));
+            }
+        }
+        return new PropertyPath(propertyString, myAccessors);
+    }
+
+    /**
+     * Walks the accessors from the root bean to the property.
+     *
+     * @param root the bean to start from.
+     * @return the value of the property.
+     * @throws java.lang.AssertionError if any accessor along the path fails.
+     */
+    Object get(final Object root) {
+        // go through the accessors till we get the object
+        // we want.
+        Object currentObject = root;
+        for (final BeanAccessor accessor : accessors) {
+            currentObject = accessor.get(currentObject);
+        }
+        return currentObject;
+    }
+
+    /**
+     * Walks the accessors from the root bean to the first wildcard.
+     *
+     * @param root the bean to start from.
+     * @return the collection the first wildcard walks, or the value of the property if the path has no wildcards.
+     * @throws java.lang.AssertionError if any accessor along the way fails.
+     */
+    Object getPrefix(final Object root) {
+        final int end = getWildcardIndex() == -1 ? accessors.length : getWildcardIndex();
+        Object currentObject = root;
+        for (int i = 0; i < end; i++) {
+            currentObject = accessors[i].get(currentObject);
+        }
+        return currentObject;
+    }
+
+    /**
+     * Starts walking the properties reached by the path.
+     *
+     * @param prefix the value returned by {@link #getPrefix(Object)}.
+     * @return a cursor over the properties.
+     * @throws java.lang.AssertionError if the first wildcard cannot walk the prefix.
+     */
+    Cursor walk(final Object prefix) {
+        return new Cursor(prefix);
+    }
+
+    /**
+     * Starts walking the properties reached from a range of the elements of the first wildcard.
+     *
+     * @param prefix the value returned by {@link #getPrefix(Object)}.
+     * @param from   the position of the first element of the first wildcard to walk.
+     * @param to     the position after the last element of the first wildcard to walk.
+     * @return a cursor over the properties.
+     * @throws java.lang.AssertionError if the first wildcard cannot walk the prefix.
+     * @throws java.lang.IllegalStateException if the first wildcard does not walk an indexed collection.
+     */
+    Cursor walk(final Object prefix, final int from, final int to) {
+        final Cursor cursor = new Cursor(prefix);
+        if (!(cursor.levels.length != 0 && cursor.levels[0] instanceof WildcardAccessor.IndexedElements)) {
+            throw new IllegalStateException(path + " does not start by walking a List or Array.");
+        }
+        ((WildcardAccessor.IndexedElements) cursor.levels[0]).restrict(from, to);
+        return cursor;
+    }
+
+    /**
+     * @return the position of the first wildcard in the accessors or -1 if the path has none.
+     */
+    int getWildcardIndex() {
+        return wildcards.length == 0 ? -1 : wildcards[0];
+    }
+
+    /**
+     * @return the number of accessors from the root bean to the property.
+     */
+    int length() {
+        return accessors.length;
+    }
+
+    /**
+     * Gets one of the accessors of the path.
+     *
+     * @param index of the accessor, 0 being the one applied to the root bean.
+     * @return the accessor.
+     */
+    BeanAccessor getAccessor(final int index) {
+        return accessors[index];
+    }
+
+    /**
+     * @return the property path this was compiled from.
+     */
+    String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * Walks the properties reached by a path one at a time.  Only the elements currently being walked are held, so
+     * collections of any size can be walked without copying them.  A path without wildcards reaches one property.
+     * Instances are not thread safe.
+     */
+    final class Cursor {
+
+        /**
+         * The elements being walked by each open wildcard.
+         */
+        private final WildcardAccessor.Elements[] levels;
+
+        /**
+         * The number of open wildcards.
+         */
+        private int depth;
+
+        /**
+         * The value of the prefix, which is the property of a path without wildcards.
+         */
+        private final Object prefix;
+
+        /**
+         * True once the property of a path without wildcards has been walked.
+         */
+        private boolean walked;
+
+        /**
+         * The current property.
+         */
+        private Object value;
+
+        /**
+         * Why the current property could not be fetched, or null.
+         */
+        private AssertionError error;
+
+        /**
+         * Constructor
+         *
+         * @param prefix the value returned by {@link #getPrefix(Object)}.
+         */
+        private Cursor(final Object prefix) {
+            this.prefix = prefix;
+            levels = new WildcardAccessor.Elements[wildcards.length];
+            if (levels.length != 0) {
+                levels[0] = ((WildcardAccessor) accessors[wildcards[0]]).elements(prefix);
+                depth = 1;
+            }
+        }
+
+        /**
+         * @return the number of elements of the first wildcard if they can be walked in ranges, otherwise -1.
+         */
+        int size() {
+            if (levels.length != 0 && levels[0] instanceof WildcardAccessor.IndexedElements) {
+                return ((WildcardAccessor.IndexedElements) levels[0]).size();
+            }
+            return -1;
+        }
+
+        /**
+         * Moves to the next property.
+         *
+         * @return false if there are no more properties.
+         */
+        boolean advance() {
+            error = null;
+            value = null;
+            if (levels.length == 0) {
+                if (walked) {
+                    return false;
+                }
+                walked = true;
+                value = prefix;
+                return true;
+            }
+            while (depth > 0) {
+                final WildcardAccessor.Elements elements = levels[depth - 1];
+                if (!elements.advance()) {
+                    levels[--depth] = null;
+                    continue;
+                }
+                Object current = elements.value();
+                final int end = depth < wildcards.length ? wildcards[depth] : accessors.length;
+                try {
+                    for (int i = wildcards[depth - 1] + 1; i < end; i++) {
+                        current = accessors[i].get(current);
+                    }
+                    if (depth < wildcards.length) {
+                        levels[depth] = ((WildcardAccessor) accessors[end]).elements(current);
+                        depth++;
+                        continue;
+                    }
+                    value = current;
+                } catch (final AssertionError e) {
+                    error = e;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Moves to the next property that does not match the matcher or could not be fetched.  When the path ends in
+         * a wildcard over a primitive array the elements are skipped without boxing them if the matcher allows it.
+         *
+         * @param matcher the properties are matched with.
+         * @return false if there are no more properties.
+         */
+        boolean advanceToMismatch(final Matcher<?> matcher) {
+            while (true) {
+                if (trailing && depth == levels.length) {
+                    levels[depth - 1].skip(matcher);
+                }
+                if (!advance()) {
+                    return false;
+                }
+                if (error != null || !matcher.matches(value)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return the current property.
+         */
+        Object value() {
+            return value;
+        }
+
+        /**
+         * @return why the current property could not be fetched, or null if it was.
+         */
+        AssertionError error() {
+            return error;
+        }
+
+        /**
+         * Names the current property by replacing the open wildcards of the path with the keys of their elements,
+         * for example <code>orders[2].lines[0].qty</code>.
+         *
+         * @return the name of the current property.
+         */
+        String describe() {
+            final StringBuilder builder = new StringBuilder(path.length() + 8 * wildcards.length);
+            builder.append(segments[0]);
+            for (int i = 0; i < wildcards.length; i++) {
+                if (i < depth) {
+                    builder.append('[').append(levels[i].key()).append(']');
+                } else {
+                    builder.append('[').append(WILDCARD).append(']');
+                }
+                builder.append(segments[i + 1]);
+            }
+            return builder.toString();
+        }
+    }
+}
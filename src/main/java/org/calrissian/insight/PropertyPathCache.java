@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of compiled bean property paths keyed by the path string.  The AssertBeanBuilder uses
+ * the shared instance so each distinct path is parsed once per JVM no matter how many builders use it.  The size of
+ * the shared cache can be changed with the <code>insight.propertyPathCache.maximumSize</code> system property.  Once
+ * the cache is full each new path evicts the path that was cached first, however often that path is used.  The
+ * paths are cheap to rebuild so there is no need to track which one was used last.
+ */
+public final class PropertyPathCache {
+
+    /**
+     * The maximum number of paths held by the shared cache when the system property is not set.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /**
+     * The cache shared by all the AssertBeanBuilders.
+     */
+    private static final PropertyPathCache SHARED = new PropertyPathCache(
+            Integer.getInteger("insight.propertyPathCache.maximumSize", DEFAULT_MAXIMUM_SIZE));
+
+    /**
+     * The compiled paths keyed by the path string.
+     */
+    private final ConcurrentMap<String, PropertyPath> paths;
+
+    /**
+     * The path strings in the order they were cached, the next one to evict first.
+     */
+    private final Queue<String> order = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * The number of paths held or about to be put.  A slot is reserved here before a path is put, so the paths never
+     * outnumber the maximum size however many threads miss at once.
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * The maximum number of paths to hold.
+     */
+    private final int maximumSize;
+
+    /**
+     * Number of lookups that found a compiled path.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups that had to parse the path.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize the maximum number of paths to hold.
+     * @throws java.lang.IllegalArgumentException if the maximumSize is less than 1.
+     */
+    PropertyPathCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1.");
+        }
+        this.maximumSize = maximumSize;
+        paths = new ConcurrentHashMap<String, PropertyPath>(Math.min(maximumSize, 256));
+    }
+
+    /**
+     * @return the cache shared by all the AssertBeanBuilders.
+     */
+    public static PropertyPathCache getSharedCache() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the compiled path for the property string, parsing it if it has not been seen before.  Paths that fail to
+     * parse are not cached.
+     *
+     * @param property the property path to compile.
+     * @return the compiled path.
+     * @throws java.lang.IllegalArgumentException if the property is not a valid property path.
+     */
+    PropertyPath get(final String property) {
+        final PropertyPath cached = paths.get(property);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        final PropertyPath path = PropertyPath.parse(property);
+        reserve();
+        final PropertyPath existing = paths.putIfAbsent(property, path);
+        if (existing != null) {
+            // another thread cached the path first
+            reserved.decrementAndGet();
+            return existing;
+        }
+        order.add(property);
+        return path;
+    }
+
+    /**
+     * Reserves the slot of a new path, evicting the paths cached first until there is room.
+     */
+    private void reserve() {
+        while (true) {
+            final int current = reserved.get();
+            if (current < maximumSize) {
+                if (reserved.compareAndSet(current, current + 1)) {
+                    return;
+                }
+            } else {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evicts the path that was cached first.  Every slot may be reserved by a path that is being put and not yet in
+     * the order, in which case this yields to let it finish.
+     */
+    private void evict() {
+        final String oldest = order.poll();
+        if (oldest == null) {
+            Thread.yield();
+        } else if (paths.remove(oldest) != null) {
+            reserved.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of lookups that found an already compiled path.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to parse the path.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of compiled paths held.
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    /**
+     * @return the maximum number of compiled paths held.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Removes all the compiled paths and resets the hit and miss counts.
+     */
+    public void clear() {
+        // paths are removed one at a time to free their slots, paths cached meanwhile are kept
+        for (String property = order.poll(); property != null; property = order.poll()) {
+            if (paths.remove(property) != null) {
+                reserved.decrementAndGet();
+            }
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+/**
+ * Reads a single property from a bean.  Instances are created once per getter by PropertyReaders and shared.
+ */
+interface PropertyReader {
+
+    /**
+     * Reads the property.
+     *
+     * @param bean to read the property from.
+     * @return the value of the property.
+     * @throws Throwable whatever the getter threw, unwrapped, or the access failure if the getter could not be called.
+     */
+    Object read(final Object bean) throws Throwable;
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates the PropertyReaders for bean getters.  The fastest backend that can be used for a getter is picked:
+ * <p>
+ * Generated: a PropertyReader spun by the LambdaMetafactory that calls the getter directly.  Used when the getter is
+ * public, on a public class and visible from this ClassLoader.
+ * MethodHandle: a PropertyReader that calls through a MethodHandle for getters that cannot be linked directly, such as
+ * getters on anonymous or package-private classes.
+ * Reflection: the fallback when neither of the others could be created.
+ * </p>
+ */
+final class PropertyReaders {
+
+    /**
+     * The type of PropertyReader#read
+     */
+    private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * The type of the factory the LambdaMetafactory links to.
+     */
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(PropertyReader.class);
+
+    /**
+     * Utility class
+     */
+    private PropertyReaders() {
+    }
+
+    /**
+     * Creates the fastest PropertyReader available for the getter.
+     *
+     * @param getter to call when reading the property.
+     * @return a new PropertyReader.
+     */
+    static PropertyReader create(final Method getter) {
+        if (isLinkable(getter)) {
+            try {
+                return generated(getter);
+            } catch (final Throwable e) {
+                // fall back to a method handle
+            }
+        }
+        try {
+            return methodHandle(getter);
+        } catch (final Exception e) {
+            // fall back to reflection
+        }
+        return reflective(getter);
+    }
+
+    /**
+     * Creates a PropertyReader generated by the LambdaMetafactory that invokes the getter directly.
+     *
+     * @param getter to call when reading the property.
+     * @return a new PropertyReader.
+     * @throws Throwable if the getter cannot be linked.
+     */
+    static PropertyReader generated(final Method getter) throws Throwable {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final CallSite site = LambdaMetafactory.metafactory(lookup, "read", FACTORY_TYPE, READ_TYPE,
+                lookup.unreflect(getter), MethodType.methodType(Object.class, getter.getDeclaringClass()));
+        return (PropertyReader) site.getTarget().invoke();
+    }
+
+    /**
+     * Creates a PropertyReader that invokes the getter through a MethodHandle.  Access checks are suppressed on a copy
+     * of the getter so getters of non-public classes can be read.
+     *
+     * @param getter to call when reading the property.
+     * @return a new PropertyReader.
+     * @throws java.lang.Exception if the getter cannot be made accessible.
+     */
+    static PropertyReader methodHandle(final Method getter) throws Exception {
+        final Method accessible = getter.getDeclaringClass().getDeclaredMethod(getter.getName(),
+                getter.getParameterTypes());
+        accessible.setAccessible(true);
+        final MethodHandle handle = MethodHandles.lookup().unreflect(accessible).asType(READ_TYPE);
+        return new PropertyReader() {
+            @Override
+            public Object read(final Object bean) throws Throwable {
+                return (Object) handle.invokeExact(bean);
+            }
+        };
+    }
+
+    /**
+     * Creates a PropertyReader that invokes the getter with reflection.
+     *
+     * @param getter to call when reading the property.
+     * @return a new PropertyReader.
+     */
+    static PropertyReader reflective(final Method getter) {
+        return new PropertyReader() {
+            @Override
+            public Object read(final Object bean) throws Throwable {
+                try {
+                    return getter.invoke(bean);
+                } catch (final InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks if code generated in this package can call the getter directly.
+     *
+     * @param getter to check.
+     * @return true if the getter and all its enclosing classes are public and visible from this ClassLoader.
+     */
+    private static boolean isLinkable(final Method getter) {
+        if (!Modifier.isPublic(getter.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type = getter.getDeclaringClass(); type != null; type = type.getEnclosingClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            final Class<?> declaringClass = getter.getDeclaringClass();
+            return Class.forName(declaringClass.getName(), false, PropertyReaders.class.getClassLoader()) ==
+                    declaringClass;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
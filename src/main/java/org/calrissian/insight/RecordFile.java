@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The records of a CSV or JSON lines file as the rows of a TableAssertBuilder.  Each call streams the file from the
+ * start, one record at a time, through a fixed size buffer, so files of many gigabytes are asserted with the same
+ * memory as small ones.  Every record is a Map addressed with brackets, for example
+ * <code>that("[quantity]", equalTo("3"))</code>.
+ * <p>
+ * A CSV file starts with a header that names the columns and every field is a String.  Every line of a JSON lines
+ * file is an object whose members keep their JSON types: Strings, Long or BigInteger for whole numbers, Double for
+ * other numbers, Boolean, null, Lists for arrays and Maps for objects.  A malformed record, or bytes that cannot be
+ * read or decoded with the charset, fail the assertion with the line they are on.  Instances are immutable; the
+ * <code>with</code> methods return a copy.
+ * </p>
+ * <pre>
+ * collector.createTableAssertBuilder("orders", RecordFile.csv(path)).that("[status]", equalTo("SHIPPED"));
+ * </pre>
+ */
+public final class RecordFile implements Callable<Stream<Map<String, Object>>> {
+
+    /**
+     * The file to read.
+     */
+    private final Path path;
+
+    /**
+     * True for a CSV file, false for a JSON lines file.
+     */
+    private final boolean csv;
+
+    /**
+     * The file is encoded in.
+     */
+    private final Charset charset;
+
+    /**
+     * Separates the fields of a CSV record.
+     */
+    private final char separator;
+
+    /**
+     * Constructor
+     *
+     * @param path      the file to read.
+     * @param csv       true for a CSV file, false for a JSON lines file.
+     * @param charset   the file is encoded in.
+     * @param separator separates the fields of a CSV record.
+     */
+    private RecordFile(final Path path, final boolean csv, final Charset charset, final char separator) {
+        if (path == null || charset == null) {
+            throw new NullPointerException("Path and charset must not be null.");
+        }
+        if (separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("Separator cannot be a quote or a line break.");
+        }
+        this.path = path;
+        this.csv = csv;
+        this.charset = charset;
+        this.separator = separator;
+    }
+
+    /**
+     * Reads a UTF-8 CSV file whose fields are separated by commas.
+     *
+     * @param path of the file.
+     * @return the records of the file.
+     * @throws java.lang.NullPointerException if the path is null.
+     */
+    public static RecordFile csv(final Path path) {
+        return new RecordFile(path, true, StandardCharsets.UTF_8, ',');
+    }
+
+    /**
+     * Reads a UTF-8 JSON lines file.
+     *
+     * @param path of the file.
+     * @return the records of the file.
+     * @throws java.lang.NullPointerException if the path is null.
+     */
+    public static RecordFile jsonLines(final Path path) {
+        return new RecordFile(path, false, StandardCharsets.UTF_8, ',');
+    }
+
+    /**
+     * Copies this with a new field separator, which only applies to CSV files.
+     *
+     * @param separator separates the fields of a record, like ; or a tab.
+     * @return a new RecordFile.
+     * @throws java.lang.IllegalArgumentException if the separator is a quote or a line break.
+     */
+    public RecordFile withSeparator(final char separator) {
+        return new RecordFile(path, csv, charset, separator);
+    }
+
+    /**
+     * Copies this with a new encoding.
+     *
+     * @param charset the file is encoded in.
+     * @return a new RecordFile.
+     * @throws java.lang.NullPointerException if the charset is null.
+     */
+    public RecordFile withCharset(final Charset charset) {
+        return new RecordFile(path, csv, charset, separator);
+    }
+
+    /**
+     * Opens the file.  The file stays open until the Stream is closed, which the TableAssertBuilder does once it has
+     * walked the records.
+     *
+     * @return the records of the file.
+     * @throws java.io.IOException if the file could not be opened.
+     */
+    @Override
+    public Stream<Map<String, Object>> call() throws IOException {
+        final RecordReader reader = csv ? new CsvRecordReader(path, charset, separator) :
+                new JsonRecordReader(path, charset);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED |
+                Spliterator.NONNULL), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return (csv ? "CSV file " : "JSON lines file ") + path;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the records of a file one at a time.  The file is read through a FileChannel into a fixed size direct buffer
+ * and decoded into a fixed size character buffer, so the memory used does not grow with the size of the file.  Only
+ * the record being returned is held.  Instances are not thread safe.
+ */
+abstract class RecordReader implements Iterator<Map<String, Object>>, Closeable {
+
+    /**
+     * The size of the byte and character buffers.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The file being read.
+     */
+    private final Path path;
+
+    /**
+     * The channel the file is read from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Decodes the bytes of the file.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * The bytes read from the channel that have not been decoded yet.
+     */
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * The decoded characters that have not been read yet.
+     */
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * True once the channel has no more bytes.
+     */
+    private boolean endOfInput;
+
+    /**
+     * True once every byte has been decoded.
+     */
+    private boolean finished;
+
+    /**
+     * The line of the file being read, starting at 1.
+     */
+    private long line = 1;
+
+    /**
+     * The record hasNext read ahead, or null.
+     */
+    private Map<String, Object> next;
+
+    /**
+     * Constructor
+     *
+     * @param path    of the file.
+     * @param charset the file is encoded in.
+     * @throws java.io.IOException if the file could not be opened.
+     */
+    RecordReader(final Path path, final Charset charset) throws IOException {
+        this.path = path;
+        decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        chars.flip();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record or null if there are no more.
+     * @throws java.io.IOException if the file could not be read.
+     * @throws java.lang.AssertionError if the record is malformed.
+     */
+    abstract Map<String, Object> readRecord() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRecord();
+            } catch (final IOException e) {
+                // a read or decoding error, like a MalformedInputException, fails the assertion like a malformed record
+                final AssertionError failure = malformed(line, "could not be read: " + e);
+                failure.initCause(e);
+                throw failure;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Map<String, Object> record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Records cannot be removed.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the character or -1 at the end of the file.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    final int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        final char c = chars.get();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Looks at the next character without reading it.
+     *
+     * @return the character or -1 at the end of the file.
+     * @throws java.io.IOException if the file could not be read.
+     */
+    final int peek() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get(chars.position());
+    }
+
+    /**
+     * @return the line of the file being read, starting at 1.
+     */
+    final long line() {
+        return line;
+    }
+
+    /**
+     * Creates the failure for a malformed record.
+     *
+     * @param recordLine the line the record starts on.
+     * @param why        the record is malformed.
+     * @return the failure.
+     */
+    final AssertionError malformed(final long recordLine, final String why) {
+        return new FailureRecord("Line " + recordLine + " of " + path + " " + why);
+    }
+
+    /**
+     * Decodes more characters once every decoded character has been read.
+     *
+     * @return false at the end of the file.
+     * @throws java.io.IOException if the file could not be read or decoded.
+     */
+    private boolean fill() throws IOException {
+        if (finished) {
+            return false;
+        }
+        chars.clear();
+        while (chars.position() == 0 && !finished) {
+            if (!endOfInput && channel.read(bytes) == -1) {
+                endOfInput = true;
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (result.isError()) {
+                if (chars.position() == 0) {
+                    result.throwException();
+                }
+                // the characters before the error are read first, so the error is reported on its own line
+                break;
+            }
+            if (endOfInput && result.isUnderflow()) {
+                result = decoder.flush(chars);
+                finished = result.isUnderflow();
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
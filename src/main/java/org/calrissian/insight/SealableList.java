@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An append only list backed by a single array, used for the matchers of an AssertBuilder and the AssertBuilders of a
+ * collector.  Entries are added while the assertions are being built and walked by index every time they are run.
+ * Once sealed the array is trimmed to the number of entries and nothing more can be added.  Instances are not thread
+ * safe; sealing does not publish the entries to other threads.
+ *
+ * @param <E> type of the entries
+ */
+final class SealableList<E> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * The array of a list that has never had an entry.
+     */
+    private static final Object[] EMPTY = new Object[0];
+
+    /**
+     * The capacity of the array once the first entry is added.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The entries, followed by unused slots until the list is sealed.
+     */
+    private Object[] entries = EMPTY;
+
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * True once the list is sealed.
+     */
+    private boolean sealed;
+
+    /**
+     * Appends an entry.
+     *
+     * @param entry to append.
+     * @return true.
+     * @throws java.lang.IllegalStateException if the list is sealed.
+     */
+    @Override
+    public boolean add(final E entry) {
+        if (sealed) {
+            throw new IllegalStateException("Nothing can be added once sealed.");
+        }
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        entries[size++] = entry;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not less than the size " + size + ".");
+        }
+        return (E) entries[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     *
+     * @throws java.lang.IllegalStateException if the list is sealed.
+     */
+    @Override
+    public void clear() {
+        if (sealed) {
+            throw new IllegalStateException("Nothing can be removed once sealed.");
+        }
+        Arrays.fill(entries, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Trims the array to the entries and stops any more from being added.  Sealing a sealed list does nothing.
+     */
+    void seal() {
+        if (!sealed) {
+            if (entries.length != size) {
+                entries = size == 0 ? EMPTY : Arrays.copyOf(entries, size);
+            }
+            sealed = true;
+        }
+    }
+
+    /**
+     * @return true once the list is sealed.
+     */
+    boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Removes every entry and unseals the list, so it is the same as a new list.
+     */
+    void reset() {
+        entries = EMPTY;
+        size = 0;
+        sealed = false;
+        modCount++;
+    }
+}
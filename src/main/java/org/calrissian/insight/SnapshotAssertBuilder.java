@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+/**
+ * An AssertBuilder that compares the bean reached by a Callable to a stored snapshot, also called a golden file.  The
+ * bean is written in a canonical text form with one line per property, like <code>customer.address.zip =
+ * "90210"</code>, to a file next to the snapshot named after it with <code>.actual</code> added.  The two files are
+ * compared through memory-mapped windows without reading either onto the heap, and only the regions of lines that
+ * differ are reported, so snapshots of hundreds of megabytes can be compared.  The actual file is deleted when it
+ * matches and kept when it does not, so it can be inspected or copied over the snapshot.
+ * <p>
+ * When the snapshot does not exist yet it is written from the bean and the assertion fails, so a missing snapshot is
+ * never silently accepted.  When the <code>insight.snapshot.update</code> system property is true every snapshot is
+ * overwritten from its bean and the assertions pass.
+ * </p>
+ *
+ * @param <T> type of bean being asserted
+ */
+public class SnapshotAssertBuilder<T> extends AbstractMatcherAssertBuilder<T> {
+
+    /**
+     * The system property that overwrites the snapshots instead of comparing them when it is true.
+     */
+    public static final String UPDATE_PROPERTY = "insight.snapshot.update";
+
+    /**
+     * The file the snapshot is stored in.
+     */
+    private final Path snapshot;
+
+    /**
+     * Constructor
+     *
+     * @param name     that identifies the Assertions
+     * @param callable that gets the bean
+     * @param snapshot the file the snapshot is stored in
+     * @throws java.lang.NullPointerException if any argument is null.
+     */
+    public SnapshotAssertBuilder(final String name, final Callable<T> callable, final Path snapshot) {
+        super(name, callable);
+        this.snapshot = checkSnapshot(snapshot);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param callable that gets the bean
+     * @param snapshot the file the snapshot is stored in
+     * @throws java.lang.NullPointerException if any argument is null.
+     */
+    public SnapshotAssertBuilder(final Callable<T> callable, final Path snapshot) {
+        super(callable);
+        this.snapshot = checkSnapshot(snapshot);
+    }
+
+    /**
+     * @return the file the snapshot is stored in.
+     */
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the file the bean is written to before it is compared to the snapshot.
+     */
+    public Path getActual() {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".actual");
+    }
+
+    /**
+     * Writes the bean and compares it to the snapshot.
+     *
+     * @throws java.lang.AssertionError if the bean does not match the snapshot, or there was no snapshot.
+     */
+    @Override
+    public void runAssert() {
+        final Object bean = retrieveObject();
+        final Path actual = getActual();
+        final String failure;
+        try {
+            if (snapshot.getParent() != null) {
+                Files.createDirectories(snapshot.getParent());
+            }
+            try (Writer out = Files.newBufferedWriter(actual, StandardCharsets.UTF_8)) {
+                SnapshotWriter.write(bean, out);
+            } catch (final AssertionError e) {
+                // a property of the bean could not be read, the partly written bean is not kept
+                Files.deleteIfExists(actual);
+                throwFailures(getName(), Collections.singletonList(e));
+                return;
+            }
+            if (Boolean.getBoolean(UPDATE_PROPERTY)) {
+                Files.move(actual, snapshot, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            if (!Files.exists(snapshot)) {
+                Files.move(actual, snapshot);
+                failure = "Snapshot (" + snapshot + ") did not exist.  It was written from the bean, check it and " +
+                        "run again.";
+            } else {
+                final String differences = SnapshotDiff.compare(snapshot, actual);
+                if (differences == null) {
+                    Files.delete(actual);
+                    return;
+                }
+                failure = "Snapshot (" + snapshot + ") does not match the bean written to " + actual + ":\n" +
+                        differences;
+            }
+        } catch (final IOException e) {
+            final AssertionError a = new AssertionError("Could not compare the bean to the snapshot (" + snapshot +
+                    ").");
+            a.initCause(e);
+            throw a;
+        }
+        throwFailures(getName(), Collections.<AssertionError>singletonList(new FailureRecord(failure)));
+    }
+
+    /**
+     * Checks the file of the snapshot.
+     *
+     * @param snapshot the file the snapshot is stored in.
+     * @return the file.
+     * @throws java.lang.NullPointerException if the snapshot is null.
+     */
+    private static Path checkSnapshot(final Path snapshot) {
+        if (snapshot == null) {
+            throw new NullPointerException("Snapshot must not be null.");
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compares an actual snapshot file to the expected one line by line and describes the regions that differ, like a
+ * unified diff.  Both files are memory-mapped in windows and compared in place, so files of any size are compared
+ * without reading them onto the heap.  Files of the same size are first compared a window at a time, which is all
+ * that is done when they match.  After a differing line the next lines of both files are searched for the closest
+ * pair of equal lines to line them up again, so an inserted or removed line is one region rather than a difference
+ * on every line after it.
+ */
+final class SnapshotDiff {
+
+    /**
+     * The number of lines of each file searched to line them up again after a difference.
+     */
+    static final int LOOKAHEAD = 64;
+
+    /**
+     * The most regions described.
+     */
+    static final int MAXIMUM_REPORTED = 20;
+
+    /**
+     * The most lines of each file described per region.
+     */
+    static final int MAXIMUM_LINES = 5;
+
+    /**
+     * The most characters of a line described.
+     */
+    static final int MAXIMUM_LINE_LENGTH = 200;
+
+    /**
+     * The expected file.
+     */
+    private final MappedFile expected;
+
+    /**
+     * The actual file.
+     */
+    private final MappedFile actual;
+
+    /**
+     * Constructor
+     *
+     * @param expected file.
+     * @param actual   file.
+     */
+    private SnapshotDiff(final MappedFile expected, final MappedFile actual) {
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    /**
+     * Compares two files.
+     *
+     * @param expectedPath the expected file.
+     * @param actualPath   the actual file.
+     * @return the description of the regions that differ, or null if the files are the same.
+     * @throws java.io.IOException if a file could not be read.
+     */
+    static String compare(final Path expectedPath, final Path actualPath) throws IOException {
+        try (MappedFile expectedFile = new MappedFile(expectedPath); MappedFile actualFile = new MappedFile(
+                actualPath)) {
+            if (expectedFile.sameAs(actualFile)) {
+                return null;
+            }
+            return new SnapshotDiff(expectedFile, actualFile).describe();
+        }
+    }
+
+    /**
+     * Walks both files and describes the regions that differ.
+     *
+     * @return the description.
+     */
+    private String describe() {
+        final StringBuilder description = new StringBuilder();
+        final long[] expectedLines = new long[LOOKAHEAD];
+        final long[] actualLines = new long[LOOKAHEAD];
+        long expectedPosition = 0;
+        long actualPosition = 0;
+        long expectedLine = 1;
+        long actualLine = 1;
+        int regions = 0;
+        while (expectedPosition < expected.size || actualPosition < actual.size) {
+            if (expectedPosition < expected.size && actualPosition < actual.size &&
+                    linesEqual(expectedPosition, actualPosition)) {
+                expectedPosition = expected.next(expectedPosition);
+                actualPosition = actual.next(actualPosition);
+                expectedLine++;
+                actualLine++;
+                continue;
+            }
+            final int expectedCount = expected.starts(expectedPosition, expectedLines);
+            final int actualCount = actual.starts(actualPosition, actualLines);
+            // the closest pair of equal lines, or every line searched if there is none
+            int removed = expectedCount;
+            int added = actualCount;
+            search:
+            for (int distance = 1; distance <= expectedCount + actualCount - 2; distance++) {
+                for (int i = Math.max(0, distance - actualCount + 1); i <= Math.min(distance, expectedCount - 1);
+                     i++) {
+                    if (linesEqual(expectedLines[i], actualLines[distance - i])) {
+                        removed = i;
+                        added = distance - i;
+                        break search;
+                    }
+                }
+            }
+            if (regions < MAXIMUM_REPORTED) {
+                region(description, expectedLine, expectedLines, removed, actualLine, actualLines, added);
+            }
+            regions++;
+            expectedPosition = expected.skip(expectedPosition, expectedLines, expectedCount, removed);
+            actualPosition = actual.skip(actualPosition, actualLines, actualCount, added);
+            expectedLine += removed;
+            actualLine += added;
+        }
+        if (regions == 0) {
+            // only a missing newline at the end of a file is not a line of its own
+            return "the files differ only in the newline at the end\n";
+        }
+        if (regions > MAXIMUM_REPORTED) {
+            description.append("...and ").append(regions - MAXIMUM_REPORTED).append(" more differing regions\n");
+        }
+        return description.toString();
+    }
+
+    /**
+     * Describes a region that differs.
+     *
+     * @param description   to append to.
+     * @param expectedLine  the number of the first line of the region in the expected file.
+     * @param expectedLines the starts of the lines of the expected file from the region on.
+     * @param removed       the number of lines of the region in the expected file.
+     * @param actualLine    the number of the first line of the region in the actual file.
+     * @param actualLines   the starts of the lines of the actual file from the region on.
+     * @param added         the number of lines of the region in the actual file.
+     */
+    private void region(final StringBuilder description, final long expectedLine, final long[] expectedLines,
+                        final int removed, final long actualLine, final long[] actualLines, final int added) {
+        description.append("@@ -").append(expectedLine).append(',').append(removed).append(" +").append(actualLine)
+                .append(',').append(added).append(" @@\n");
+        lines(description, '-', expected, expectedLines, removed);
+        lines(description, '+', actual, actualLines, added);
+    }
+
+    /**
+     * Describes the lines of a region in one of the files.
+     *
+     * @param description to append to.
+     * @param marker      that starts each line.
+     * @param file        the lines are in.
+     * @param starts      the starts of the lines.
+     * @param count       the number of lines.
+     */
+    private static void lines(final StringBuilder description, final char marker, final MappedFile file,
+                              final long[] starts, final int count) {
+        for (int i = 0; i < count && i < MAXIMUM_LINES; i++) {
+            description.append(marker).append(' ').append(file.text(starts[i])).append('\n');
+        }
+        if (count > MAXIMUM_LINES) {
+            description.append(marker).append(" ...and ").append(count - MAXIMUM_LINES).append(" more lines\n");
+        }
+    }
+
+    /**
+     * Compares a line of the expected file to a line of the actual file.
+     *
+     * @param expectedStart the start of the expected line.
+     * @param actualStart   the start of the actual line.
+     * @return true if the lines are the same.
+     */
+    private boolean linesEqual(final long expectedStart, final long actualStart) {
+        final long expectedEnd = expected.end(expectedStart);
+        final long actualEnd = actual.end(actualStart);
+        if (expectedEnd - expectedStart != actualEnd - actualStart) {
+            return false;
+        }
+        for (long i = 0; i < expectedEnd - expectedStart; i++) {
+            if (expected.get(expectedStart + i) != actual.get(actualStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A file mapped into memory in windows, so files larger than a single ByteBuffer can hold can be read.
+     */
+    static final class MappedFile implements Closeable {
+
+        /**
+         * The size of a window is 2^WINDOW_BITS bytes.
+         */
+        private static final int WINDOW_BITS = 30;
+
+        /**
+         * The offset into a window of a position.
+         */
+        private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+        /**
+         * The channel the file was mapped from.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The size of the file.
+         */
+        private final long size;
+
+        /**
+         * The windows of the file.
+         */
+        private final MappedByteBuffer[] windows;
+
+        /**
+         * Constructor
+         *
+         * @param path of the file.
+         * @throws java.io.IOException if the file could not be mapped.
+         */
+        MappedFile(final Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                size = channel.size();
+                windows = new MappedByteBuffer[(int) ((size + WINDOW_MASK) >>> WINDOW_BITS)];
+                for (int i = 0; i < windows.length; i++) {
+                    final long start = (long) i << WINDOW_BITS;
+                    windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_MASK + 1,
+                            size - start));
+                }
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Compares the contents of this file to another a window at a time.
+         *
+         * @param other file.
+         * @return true if the files have the same contents.
+         */
+        boolean sameAs(final MappedFile other) {
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < windows.length; i++) {
+                final ByteBuffer window = windows[i].duplicate();
+                final ByteBuffer otherWindow = other.windows[i].duplicate();
+                window.clear();
+                otherWindow.clear();
+                if (!window.equals(otherWindow)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets a byte of the file.
+         *
+         * @param position of the byte.
+         * @return the byte.
+         */
+        byte get(final long position) {
+            return windows[(int) (position >>> WINDOW_BITS)].get((int) (position & WINDOW_MASK));
+        }
+
+        /**
+         * Finds the end of a line.
+         *
+         * @param start of the line.
+         * @return the position of the newline that ends the line, or the size of the file for the last line.
+         */
+        long end(final long start) {
+            long position = start;
+            while (position < size && get(position) != '\n') {
+                position++;
+            }
+            return position;
+        }
+
+        /**
+         * Finds the start of the next line.
+         *
+         * @param start of the line.
+         * @return the start of the next line, or the size of the file if there is none.
+         */
+        long next(final long start) {
+            return Math.min(size, end(start) + 1);
+        }
+
+        /**
+         * Moves past some of the lines found by {@link #starts(long, long[])}.
+         *
+         * @param start   of the first line.
+         * @param starts  of the lines found.
+         * @param count   of the lines found.
+         * @param skipped the number of lines to move past.
+         * @return the start of the line after the lines moved past, or the size of the file if there is none.
+         */
+        long skip(final long start, final long[] starts, final int count, final int skipped) {
+            if (skipped == 0) {
+                return start;
+            }
+            return skipped < count ? starts[skipped] : next(starts[count - 1]);
+        }
+
+        /**
+         * Finds the starts of the next lines.
+         *
+         * @param start  of the first line.
+         * @param starts to fill with the starts of the lines.
+         * @return the number of lines found, fewer than the starts can hold at the end of the file.
+         */
+        int starts(final long start, final long[] starts) {
+            long position = start;
+            int count = 0;
+            while (count < starts.length && position < size) {
+                starts[count++] = position;
+                position = next(position);
+            }
+            return count;
+        }
+
+        /**
+         * Gets the text of a line, shortened if it is long.
+         *
+         * @param start of the line.
+         * @return the text.
+         */
+        String text(final long start) {
+            final long end = Math.min(end(start), start + 4 * MAXIMUM_LINE_LENGTH);
+            final byte[] bytes = new byte[(int) (end - start)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = get(start + i);
+            }
+            final String text = new String(bytes, StandardCharsets.UTF_8);
+            return text.length() > MAXIMUM_LINE_LENGTH ? text.substring(0, MAXIMUM_LINE_LENGTH) + "..." : text;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Writes a bean graph in the canonical text form of snapshots: one line per value, naming the value by its path, like
+ * <code>customer.address.zip = "90210"</code>.  Bean properties are written in alphabetical order, array and
+ * Collection elements in order, Map entries sorted by the text of their keys and Set elements sorted by their text,
+ * or by the lines they are written as when they are beans, unless the Map or Set is sorted already.  An Iterable that
+ * is not a Collection, like a Path, is a value.  Strings and the other values are quoted and escaped, numbers,
+ * booleans and enums are not.  Empty collections are written as <code>[]</code> and empty Maps as <code>{}</code>.  A
+ * bean that contains itself is written as a reference to the path where it was first written.  The graph is walked
+ * with a stack rather than the call stack and each line is written as it is reached, so graphs of any size can be
+ * written.
+ */
+final class SnapshotWriter {
+
+    /**
+     * Orders values by their text.
+     */
+    private static final Comparator<Object> BY_TEXT = new Comparator<Object>() {
+        @Override
+        public int compare(final Object first, final Object second) {
+            return String.valueOf(first).compareTo(String.valueOf(second));
+        }
+    };
+
+    /**
+     * Orders Map entries by the text of their keys.
+     */
+    private static final Comparator<Map.Entry<?, ?>> BY_KEY = new Comparator<Map.Entry<?, ?>>() {
+        @Override
+        public int compare(final Map.Entry<?, ?> first, final Map.Entry<?, ?> second) {
+            return BY_TEXT.compare(first.getKey(), second.getKey());
+        }
+    };
+
+    /**
+     * Where the lines are written.
+     */
+    private final Writer out;
+
+    /**
+     * The values waiting to be written, the next one on top.
+     */
+    private final Deque<Frame> pending = new ArrayDeque<Frame>();
+
+    /**
+     * The children of the value being written, pushed onto the stack in reverse so they are written in order.
+     */
+    private final List<Frame> children = new ArrayList<Frame>();
+
+    /**
+     * The beans and collections being written, with their paths, to find the ones that contain themselves.
+     */
+    private final Map<Object, String> open = new IdentityHashMap<Object, String>();
+
+    /**
+     * Constructor
+     *
+     * @param out where the lines are written.
+     */
+    private SnapshotWriter(final Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a bean graph.
+     *
+     * @param bean the root of the graph.
+     * @param out  where the lines are written.
+     * @throws java.io.IOException if writing failed.
+     * @throws java.lang.AssertionError if a property could not be read.
+     */
+    static void write(final Object bean, final Writer out) throws IOException {
+        new SnapshotWriter(out).run(bean);
+    }
+
+    /**
+     * Writes the graph.
+     *
+     * @param bean the root of the graph.
+     * @throws java.io.IOException if writing failed.
+     */
+    private void run(final Object bean) throws IOException {
+        pending.push(new Frame("", bean, false));
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.pop();
+            if (frame.closing) {
+                open.remove(frame.value);
+                continue;
+            }
+            write(frame);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+            children.clear();
+        }
+    }
+
+    /**
+     * Writes a value, or adds the frames of its properties or elements to the children.
+     *
+     * @param frame of the value.
+     * @throws java.io.IOException if writing failed.
+     */
+    private void write(final Frame frame) throws IOException {
+        final Object value = frame.value;
+        if (value == null || isValue(value.getClass())) {
+            line(frame.path, text(value));
+            return;
+        }
+        final String first = open.get(value);
+        if (first != null) {
+            line(frame.path, "<cycle to " + (first.isEmpty() ? "root" : first) + ">");
+            return;
+        }
+        final int before = children.size();
+        if (value instanceof Map) {
+            addEntries(frame.path, (Map<?, ?>) value);
+        } else if (value instanceof Set && !(value instanceof SortedSet)) {
+            addElements(frame.path, sorted(frame.path, (Set<?>) value));
+        } else if (value instanceof Collection) {
+            addElements(frame.path, (Collection<?>) value);
+        } else if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                children.add(new Frame(frame.path + "[" + i + "]", Array.get(value, i), false));
+            }
+        } else {
+            final BeanProperties properties = BeanProperties.of(value.getClass());
+            for (final String propertyName : properties.getPropertyNames()) {
+                final String path = frame.path.isEmpty() ? propertyName : frame.path + "." + propertyName;
+                try {
+                    children.add(new Frame(path, properties.getReader(propertyName).read(value), false));
+                } catch (final Exception | LinkageError e) {
+                    throw failure(path, e);
+                } catch (final Error e) {
+                    // an OutOfMemoryError, StackOverflowError or ThreadDeath is not a failure of the bean
+                    throw e;
+                } catch (final Throwable e) {
+                    throw failure(path, e);
+                }
+            }
+        }
+        if (children.size() == before) {
+            line(frame.path, value instanceof Map ? "{}" : "[]");
+            return;
+        }
+        // the value is closed once its children are written
+        open.put(value, frame.path);
+        children.add(new Frame(frame.path, value, true));
+    }
+
+    /**
+     * Adds the frames of the entries of a Map, sorted by key unless the Map is sorted already.
+     *
+     * @param path of the Map.
+     * @param map  to add the entries of.
+     */
+    private void addEntries(final String path, final Map<?, ?> map) {
+        final List<Map.Entry<?, ?>> entries = new ArrayList<Map.Entry<?, ?>>(map.entrySet());
+        if (!(map instanceof SortedMap)) {
+            Collections.sort(entries, BY_KEY);
+        }
+        for (final Map.Entry<?, ?> entry : entries) {
+            children.add(new Frame(path + "[" + entry.getKey() + "]", entry.getValue(), false));
+        }
+    }
+
+    /**
+     * Adds the frames of elements.
+     *
+     * @param path     of the collection.
+     * @param elements to add.
+     */
+    private void addElements(final String path, final Iterable<?> elements) {
+        int index = 0;
+        for (final Iterator<?> iterator = elements.iterator(); iterator.hasNext(); index++) {
+            children.add(new Frame(path + "[" + index + "]", iterator.next(), false));
+        }
+    }
+
+    /**
+     * Sorts the elements of a Set so the order does not depend on hashing: by their text when they are all values,
+     * otherwise by the lines each element is written as.
+     *
+     * @param path of the Set.
+     * @param set  to sort.
+     * @return the sorted elements.
+     * @throws java.io.IOException if writing failed.
+     */
+    private Iterable<?> sorted(final String path, final Set<?> set) throws IOException {
+        final List<Object> elements = new ArrayList<Object>(set);
+        boolean values = true;
+        for (final Object element : elements) {
+            if (element != null && !isValue(element.getClass())) {
+                values = false;
+                break;
+            }
+        }
+        if (values) {
+            Collections.sort(elements, BY_TEXT);
+            return elements;
+        }
+        final Map<Object, String> written = new IdentityHashMap<Object, String>();
+        for (final Object element : elements) {
+            final StringWriter lines = new StringWriter();
+            final SnapshotWriter writer = new SnapshotWriter(lines);
+            // what is being written is open for the element too, so a cycle back to it ends like it would in place
+            writer.open.putAll(open);
+            writer.open.put(set, path);
+            writer.run(element);
+            written.put(element, lines.toString());
+        }
+        Collections.sort(elements, new Comparator<Object>() {
+            @Override
+            public int compare(final Object first, final Object second) {
+                return written.get(first).compareTo(written.get(second));
+            }
+        });
+        return elements;
+    }
+
+    /**
+     * Writes a line.
+     *
+     * @param path of the value.
+     * @param text of the value.
+     * @throws java.io.IOException if writing failed.
+     */
+    private void line(final String path, final String text) throws IOException {
+        if (!path.isEmpty()) {
+            out.write(path);
+            out.write(' ');
+        }
+        out.write("= ");
+        out.write(text);
+        out.write('\n');
+    }
+
+    /**
+     * Creates the failure thrown when a getter of a bean threw.
+     *
+     * @param path  of the property.
+     * @param cause what the getter threw.
+     * @return the failure to throw.
+     */
+    private static AssertionError failure(final String path, final Throwable cause) {
+        final AssertionError a = new FailureRecord("Error accessing bean (" + path + ") reason: " + cause);
+        a.initCause(cause);
+        return a;
+    }
+
+    /**
+     * Checks if values of a class are written as a single line rather than property by property.
+     *
+     * @param type of the value.
+     * @return true if the values are written as a single line.
+     */
+    private static boolean isValue(final Class<?> type) {
+        // walking an Iterable that is not a Collection may create new elements forever, as every element of a Path
+        // is a new Path
+        if (type.isEnum() || Number.class.isAssignableFrom(type) || CharSequence.class.isAssignableFrom(type) ||
+                Boolean.class == type || Character.class == type || Path.class.isAssignableFrom(type) ||
+                (Iterable.class.isAssignableFrom(type) && !Collection.class.isAssignableFrom(type))) {
+            return true;
+        }
+        if (type.isArray() || Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)) {
+            return false;
+        }
+        final String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") ||
+                BeanProperties.of(type).getPropertyNames().length == 0;
+    }
+
+    /**
+     * Gets the text of a value.
+     *
+     * @param value to write.
+     * @return the text.
+     */
+    private static String text(final Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        final String string = value.toString();
+        final StringBuilder builder = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            final char character = string.charAt(i);
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < ' ') {
+                        builder.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A value waiting to be written.
+     */
+    private static final class Frame {
+
+        /**
+         * The path of the value.
+         */
+        private final String path;
+
+        /**
+         * The value.
+         */
+        private final Object value;
+
+        /**
+         * True if this marks the end of the children of the value rather than the value itself.
+         */
+        private final boolean closing;
+
+        /**
+         * Constructor
+         *
+         * @param path    of the value.
+         * @param value   to write.
+         * @param closing true if this marks the end of the children of the value.
+         */
+        private Frame(final String path, final Object value, final boolean closing) {
+            this.path = path;
+            this.value = value;
+            this.closing = closing;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.BaseStream;
+
+/**
+ * An AssertBeanBuilder whose assertions are a template applied to every row of a table, like every record of an
+ * export or every message of a queue.  The assertions are added with the same <code>that</code> methods and compiled
+ * once per run; the compiled matchers and property accessors are then reused for every row.  The Callable returns
+ * the rows as an Iterator, Iterable or Stream, which is walked one row at a time and never buffered, so tables of any
+ * size can be asserted.  A Stream is closed once it has been walked.
+ * <p>
+ * Each row that fails is reported as one failure labelled by its row id, which is the position of the row unless
+ * {@link #setRowId(java.util.function.Function)} is called, for example <code>row 12 failed because: ...</code>.  The
+ * FailurePolicy limits the rows reported as well as the failures reported for each row.
+ * </p>
+ *
+ * @param <T> type of the rows
+ */
+public class TableAssertBuilder<T> extends AssertBeanBuilder<T> {
+
+    /**
+     * What the rows past the maximum of a counting FailurePolicy are counted as.
+     */
+    private static final String ROWS = "rows";
+
+    /**
+     * Gets the id of a row, or null to use its position.
+     */
+    private volatile Function<? super T, ?> rowId;
+
+    /**
+     * Constructor
+     *
+     * @param name that identifies the Assertions
+     * @param rows that gets the rows as an Iterator, Iterable or Stream each time the assertions are run
+     */
+    @SuppressWarnings("unchecked")
+    public TableAssertBuilder(final String name, final Callable<?> rows) {
+        super(name, (Callable<T>) rows);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param rows that gets the rows as an Iterator, Iterable or Stream each time the assertions are run
+     */
+    @SuppressWarnings("unchecked")
+    public TableAssertBuilder(final Callable<?> rows) {
+        super((Callable<T>) rows);
+    }
+
+    /**
+     * Sets how the failing rows are identified, for example by a key column.  Rows are identified by their position,
+     * starting at 0, until this is called.
+     *
+     * @param rowId gets the id of a row.
+     * @throws java.lang.NullPointerException if the rowId is null.
+     */
+    public void setRowId(final Function<? super T, ?> rowId) {
+        if (rowId == null) {
+            throw new NullPointerException("Row id must not be null.");
+        }
+        this.rowId = rowId;
+    }
+
+    /**
+     * Runs the compiled assertions against every row.
+     *
+     * @throws java.lang.AssertionError if any row failed, with one failure per row, or if a record could not be read.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void runAssert() {
+        final CompiledBeanAssertion<T> template = compile();
+        final Function<? super T, ?> id = rowId;
+        final Object rows = retrieveObject();
+        final FailureRecorder failures = new FailureRecorder(getFailurePolicy());
+        try {
+            final Iterator<?> iterator = iterator(rows);
+            for (long index = 0; iterator.hasNext(); index++) {
+                final T row = (T) iterator.next();
+                final FailureRecorder rowFailures = template.check(row);
+                if (rowFailures != null) {
+                    final AssertionError failure = rowFailures.toFailure("row " + (id == null ? index :
+                            id.apply(row)));
+                    if (!failures.record(failure, ROWS)) {
+                        break;
+                    }
+                }
+            }
+        } catch (final FailureRecord e) {
+            // a malformed record of a RecordFile, none of the rows after it can be read
+            failures.record(e, e.getMessage());
+        } finally {
+            if (rows instanceof BaseStream) {
+                ((BaseStream<?, ?>) rows).close();
+            }
+        }
+        failures.throwFailures(getName());
+    }
+
+    /**
+     * Starts walking the rows.
+     *
+     * @param rows returned by the Callable.
+     * @return an iterator over the rows.
+     * @throws java.lang.AssertionError if the rows are not an Iterator, Iterable or Stream.
+     */
+    private Iterator<?> iterator(final Object rows) {
+        if (rows instanceof Iterator) {
+            return (Iterator<?>) rows;
+        }
+        if (rows instanceof Iterable) {
+            return ((Iterable<?>) rows).iterator();
+        }
+        if (rows instanceof BaseStream) {
+            return ((BaseStream<?, ?>) rows).iterator();
+        }
+        final String type = rows == null ? "null" : "a " + rows.getClass().getCanonicalName();
+        throw new AssertionError("The rows" + (getName() == null ? "" : " of " + getName()) + " are not an " +
+                "Iterator, Iterable or Stream but " + type);
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Bean accessor for when the user has a wildcard in brackets [*].  A wildcard does not fetch a single element, it
+ * walks every element of the List, array, Map or Iterable one at a time so nothing is copied.  Map elements are the
+ * values of the Map.  Elements of int[], long[] and double[] can be matched by primitive matchers without boxing.
+ * Only the entries of a Map large enough to be matched in parallel are copied, see {@link #entries(java.util.Map)}.
+ */
+final class WildcardAccessor implements BeanAccessor {
+
+    /**
+     * The name of the beanProperty
+     */
+    private final String beanPropertyName;
+
+    /**
+     * Constructor
+     *
+     * @param beanPropertyName the name of the property in relation to the object.
+     */
+    WildcardAccessor(final String beanPropertyName) {
+        this.beanPropertyName = beanPropertyName;
+    }
+
+    /**
+     * A wildcard has no single element to get.  Use {@link #elements(Object)} instead.
+     *
+     * @throws java.lang.IllegalStateException always.
+     */
+    @Override
+    public Object get(final Object object) {
+        throw new IllegalStateException(beanPropertyName + " is a wildcard and has no single element.");
+    }
+
+    /**
+     * Starts walking the elements of the object.
+     *
+     * @param object the List, array, Map or Iterable to walk.
+     * @return the elements of the object.
+     * @throws java.lang.AssertionError if the object is null or cannot be walked.
+     */
+    Elements elements(final Object object) {
+        if (object == null) {
+            throw new FailureRecord("Cannot access into Map, List, or Array of " + beanPropertyName + " because " +
+                    "the bean is null.");
+        }
+        if (object instanceof List && object instanceof RandomAccess) {
+            final List<?> list = (List<?>) object;
+            return new IndexedElements() {
+                @Override
+                Object fetch(final int index) {
+                    return list.get(index);
+                }
+
+                @Override
+                int size() {
+                    return list.size();
+                }
+            };
+        }
+        if (object instanceof Entries) {
+            final Map.Entry<?, ?>[] entries = ((Entries) object).entries;
+            return new IndexedElements() {
+                @Override
+                Object fetch(final int index) {
+                    return entries[index].getValue();
+                }
+
+                @Override
+                int size() {
+                    return entries.length;
+                }
+
+                @Override
+                Object key() {
+                    return entries[position()].getKey();
+                }
+            };
+        }
+        if (object instanceof Object[]) {
+            final Object[] array = (Object[]) object;
+            return new IndexedElements() {
+                @Override
+                Object fetch(final int index) {
+                    return array[index];
+                }
+
+                @Override
+                int size() {
+                    return array.length;
+                }
+            };
+        }
+        if (object instanceof int[]) {
+            return new IntElements((int[]) object);
+        }
+        if (object instanceof long[]) {
+            return new LongElements((long[]) object);
+        }
+        if (object instanceof double[]) {
+            return new DoubleElements((double[]) object);
+        }
+        if (object.getClass().isArray()) {
+            return new IndexedElements() {
+                @Override
+                Object fetch(final int index) {
+                    return Array.get(object, index);
+                }
+
+                @Override
+                int size() {
+                    return Array.getLength(object);
+                }
+            };
+        }
+        if (object instanceof Map) {
+            return new IteratedElements(((Map<?, ?>) object).entrySet().iterator(), true);
+        }
+        if (object instanceof Iterable) {
+            return new IteratedElements(((Iterable<?>) object).iterator(), false);
+        }
+        throw new FailureRecord(beanPropertyName + " is not a Map, List or Array but a " + object.getClass()
+                .getCanonicalName());
+    }
+
+    /**
+     * Copies the entries of a Map so they can be fetched by position and walked in ranges in parallel.  Walking the
+     * copy returns the values of the Map keyed by their keys, like walking the Map does.
+     *
+     * @param map to copy the entries of.
+     * @return the copy, to be walked in place of the Map.
+     */
+    static Object entries(final Map<?, ?> map) {
+        return new Entries(map.entrySet().toArray(new Map.Entry<?, ?>[0]));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WildcardAccessor)) {
+            return false;
+        }
+        return beanPropertyName.equals(((WildcardAccessor) o).beanPropertyName);
+    }
+
+    @Override
+    public int hashCode() {
+        return beanPropertyName.hashCode();
+    }
+
+    /**
+     * The entries of a Map copied by {@link #entries(java.util.Map)}.
+     */
+    private static final class Entries {
+
+        /**
+         * The entries of the Map in the order it iterates them.
+         */
+        private final Map.Entry<?, ?>[] entries;
+
+        /**
+         * Constructor
+         *
+         * @param entries of the Map.
+         */
+        private Entries(final Map.Entry<?, ?>[] entries) {
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * A cursor over the elements of a collection.
+     */
+    abstract static class Elements {
+
+        /**
+         * Moves to the next element.
+         *
+         * @return false if there are no more elements.
+         */
+        abstract boolean advance();
+
+        /**
+         * @return the current element.
+         */
+        abstract Object value();
+
+        /**
+         * @return the key of the current element the way it would be written in a property path.
+         */
+        abstract Object key();
+
+        /**
+         * Moves past the next elements that match the matcher if they can be matched without fetching them, so the
+         * next call to {@link #advance()} moves to the first element that has to be fetched.  Does nothing unless
+         * overridden.
+         *
+         * @param matcher the elements are matched with.
+         */
+        void skip(final Matcher<?> matcher) {
+        }
+    }
+
+    /**
+     * Elements of a collection that can be fetched by position.
+     */
+    abstract static class IndexedElements extends Elements {
+
+        /**
+         * The position of the current element.
+         */
+        private int index = -1;
+
+        /**
+         * The position after the last element to walk, or -1 to walk to the end.
+         */
+        private int end = -1;
+
+        @Override
+        boolean advance() {
+            if (index + 1 >= limit()) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        /**
+         * @return the position after the last element to walk.
+         */
+        final int limit() {
+            return end == -1 ? size() : end;
+        }
+
+        /**
+         * @return the position of the current element.
+         */
+        final int position() {
+            return index;
+        }
+
+        /**
+         * Moves to an element without fetching the ones before it.
+         *
+         * @param position of the element.
+         */
+        final void moveTo(final int position) {
+            index = position;
+        }
+
+        /**
+         * Restricts the walk to a range of the elements so the range can be walked on its own.
+         *
+         * @param from the position of the first element to walk.
+         * @param to   the position after the last element to walk.
+         */
+        void restrict(final int from, final int to) {
+            index = from - 1;
+            end = to;
+        }
+
+        @Override
+        Object value() {
+            return fetch(index);
+        }
+
+        @Override
+        Object key() {
+            return index;
+        }
+
+        /**
+         * Fetches an element.
+         *
+         * @param index of the element.
+         * @return the element.
+         */
+        abstract Object fetch(final int index);
+
+        /**
+         * @return the number of elements.
+         */
+        abstract int size();
+    }
+
+    /**
+     * The elements of an int[].  IntMatchers are applied to them without boxing them.
+     */
+    private static final class IntElements extends IndexedElements {
+
+        /**
+         * The array being walked.
+         */
+        private final int[] array;
+
+        /**
+         * Constructor
+         *
+         * @param array being walked.
+         */
+        private IntElements(final int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object fetch(final int index) {
+            return array[index];
+        }
+
+        @Override
+        int size() {
+            return array.length;
+        }
+
+        @Override
+        void skip(final Matcher<?> matcher) {
+            if (matcher instanceof IntMatcher) {
+                final IntMatcher intMatcher = (IntMatcher) matcher;
+                final int limit = limit();
+                int index = position();
+                while (index + 1 < limit && intMatcher.matchesInt(array[index + 1])) {
+                    index++;
+                }
+                moveTo(index);
+            }
+        }
+    }
+
+    /**
+     * The elements of a long[].  LongMatchers are applied to them without boxing them.
+     */
+    private static final class LongElements extends IndexedElements {
+
+        /**
+         * The array being walked.
+         */
+        private final long[] array;
+
+        /**
+         * Constructor
+         *
+         * @param array being walked.
+         */
+        private LongElements(final long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object fetch(final int index) {
+            return array[index];
+        }
+
+        @Override
+        int size() {
+            return array.length;
+        }
+
+        @Override
+        void skip(final Matcher<?> matcher) {
+            if (matcher instanceof LongMatcher) {
+                final LongMatcher longMatcher = (LongMatcher) matcher;
+                final int limit = limit();
+                int index = position();
+                while (index + 1 < limit && longMatcher.matchesLong(array[index + 1])) {
+                    index++;
+                }
+                moveTo(index);
+            }
+        }
+    }
+
+    /**
+     * The elements of a double[].  DoubleMatchers are applied to them without boxing them.
+     */
+    private static final class DoubleElements extends IndexedElements {
+
+        /**
+         * The array being walked.
+         */
+        private final double[] array;
+
+        /**
+         * Constructor
+         *
+         * @param array being walked.
+         */
+        private DoubleElements(final double[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object fetch(final int index) {
+            return array[index];
+        }
+
+        @Override
+        int size() {
+            return array.length;
+        }
+
+        @Override
+        void skip(final Matcher<?> matcher) {
+            if (matcher instanceof DoubleMatcher) {
+                final DoubleMatcher doubleMatcher = (DoubleMatcher) matcher;
+                final int limit = limit();
+                int index = position();
+                while (index + 1 < limit && doubleMatcher.matchesDouble(array[index + 1])) {
+                    index++;
+                }
+                moveTo(index);
+            }
+        }
+    }
+
+    /**
+     * Elements walked with an Iterator.  Map entries are unwrapped to their values and keyed by their keys.
+     */
+    private static final class IteratedElements extends Elements {
+
+        /**
+         * The iterator over the collection.
+         */
+        private final Iterator<?> iterator;
+
+        /**
+         * True when the iterator returns Map entries.
+         */
+        private final boolean entries;
+
+        /**
+         * The position of the current element.
+         */
+        private int index = -1;
+
+        /**
+         * The current element.
+         */
+        private Object current;
+
+        /**
+         * Constructor
+         *
+         * @param iterator over the collection.
+         * @param entries  true when the iterator returns Map entries.
+         */
+        private IteratedElements(final Iterator<?> iterator, final boolean entries) {
+            this.iterator = iterator;
+            this.entries = entries;
+        }
+
+        @Override
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                current = null;
+                return false;
+            }
+            current = iterator.next();
+            index++;
+            return true;
+        }
+
+        @Override
+        Object value() {
+            return entries ? ((Map.Entry<?, ?>) current).getValue() : current;
+        }
+
+        @Override
+        Object key() {
+            return entries ? ((Map.Entry<?, ?>) current).getKey() : index;
+        }
+    }
+}
@@ -18,9 +18,15 @@ package org.calrissian.insight.junit;
 import org.calrissian.insight.AssertBeanBuilder;
 import org.calrissian.insight.AssertBuilder;
 import org.calrissian.insight.AssertBuilderCollector;
+import org.calrissian.insight.AssertionListener;
+import org.calrissian.insight.AsyncAssertBeanBuilder;
+import org.calrissian.insight.MemoizingCallable;
+import org.calrissian.insight.TableAssertBuilder;
 import org.junit.rules.Verifier;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 /**
  * This is an adapter to a Junit4 Rule.  This rule will keep track of all AssertBuilders and will run the
@@ -32,7 +38,29 @@ public class AssertBuilderAdapterRule extends Verifier {
     /**
      * The Collection of AssertBuilders
      */
-    private final AssertBuilderCollector assertBuilderCollector = new AssertBuilderCollector();
+    private final AssertBuilderCollector assertBuilderCollector;
+
+    /**
+     * Constructor
+     */
+    public AssertBuilderAdapterRule() {
+        this(new AssertBuilderCollector());
+    }
+
+    /**
+     * Constructor for a rule that keeps its AssertBuilders in the collector.  Use a
+     * {@link org.calrissian.insight.ConcurrentAssertBuilderCollector} when the test adds AssertBuilders from many
+     * threads.
+     *
+     * @param assertBuilderCollector to keep the AssertBuilders in.
+     * @throws java.lang.NullPointerException if the assertBuilderCollector is null.
+     */
+    public AssertBuilderAdapterRule(final AssertBuilderCollector assertBuilderCollector) {
+        if (assertBuilderCollector == null) {
+            throw new NullPointerException("AssertBuilderCollector must not be null.");
+        }
+        this.assertBuilderCollector = assertBuilderCollector;
+    }
 
     /**
      * Adds an AssertBuilder
@@ -43,6 +71,36 @@ public class AssertBuilderAdapterRule extends Verifier {
         assertBuilderCollector.add(assertBuilder);
     }
 
+    /**
+     * Seals the collector once all the AssertBuilders of the test have been added.  It is unsealed again after the
+     * assertions are verified.  A ConcurrentAssertBuilderCollector only seals the AssertBuilders added so far.
+     */
+    public void seal() {
+        assertBuilderCollector.seal();
+    }
+
+    /**
+     * Creates a source that the AssertBuilders of this rule can share.  The callable is called at most once when the
+     * assertions are verified.
+     *
+     * @param callable the expensive source to share.
+     * @param <T>      type of object returned
+     * @return a new MemoizingCallable
+     */
+    public <T> MemoizingCallable<T> memoize(final Callable<T> callable) {
+        return assertBuilderCollector.memoize(callable);
+    }
+
+    /**
+     * Sets the listener that hears how long the assertions of this rule took.  The AssertBuilders created by this rule
+     * from now on are given the listener too.
+     *
+     * @param listener to tell.
+     */
+    public void setListener(final AssertionListener listener) {
+        assertBuilderCollector.setListener(listener);
+    }
+
     @Override
     protected void verify() throws Throwable {
         // verify  and clear out the rules
@@ -99,4 +157,82 @@ public class AssertBuilderAdapterRule extends Verifier {
         return assertBuilderCollector.createAssertBeanBuilder(name, bean);
     }
 
+    /**
+     * Creates a TableAssertBuilder.  The TableAssertBuilder will be registered to this object and when this runAssert
+     * method is called its assertions will run against every row.
+     *
+     * @param rows that gets the rows as an Iterator, Iterable or Stream when it is time to run the assertions
+     * @param <T>  type of the rows
+     * @return a new TableAssertBuilder
+     */
+    public <T> TableAssertBuilder<T> createTableAssertBuilder(final Callable<?> rows) {
+        return assertBuilderCollector.createTableAssertBuilder(rows);
+    }
+
+    /**
+     * Creates a TableAssertBuilder.  The TableAssertBuilder will be registered to this object and when this runAssert
+     * method is called its assertions will run against every row.
+     *
+     * @param name of the table.  Used for identifying the table among other AssertBuilders.
+     * @param rows that gets the rows as an Iterator, Iterable or Stream when it is time to run the assertions
+     * @param <T>  type of the rows
+     * @return a new TableAssertBuilder
+     */
+    public <T> TableAssertBuilder<T> createTableAssertBuilder(final String name, final Callable<?> rows) {
+        return assertBuilderCollector.createTableAssertBuilder(name, rows);
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run after the test.
+     *
+     * @param source that produces the bean each time the assertions are run
+     * @param <T>    type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(
+            final Supplier<? extends CompletionStage<? extends T>> source) {
+        return assertBuilderCollector.createAsyncAssertBeanBuilder(source);
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run after the test.
+     *
+     * @param name   of the bean.  Used for identifying the bean among other AssertBuilders.
+     * @param source that produces the bean each time the assertions are run
+     * @param <T>    type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final String name,
+            final Supplier<? extends CompletionStage<? extends T>> source) {
+        return assertBuilderCollector.createAsyncAssertBeanBuilder(name, source);
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run after the test.
+     *
+     * @param stage that produces the bean
+     * @param <T>   type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final CompletionStage<? extends T> stage) {
+        return assertBuilderCollector.createAsyncAssertBeanBuilder(stage);
+    }
+
+    /**
+     * Creates an AsyncAssertBeanBuilder.  The AsyncAssertBeanBuilder will be registered to this object and its
+     * assertions will run after the test.
+     *
+     * @param name  of the bean.  Used for identifying the bean among other AssertBuilders.
+     * @param stage that produces the bean
+     * @param <T>   type of bean being asserted
+     * @return a new AsyncAssertBeanBuilder
+     */
+    public <T> AsyncAssertBeanBuilder<T> createAsyncAssertBeanBuilder(final String name,
+            final CompletionStage<? extends T> stage) {
+        return assertBuilderCollector.createAsyncAssertBeanBuilder(name, stage);
+    }
+
 }
@@ -24,10 +24,16 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -186,6 +192,93 @@ public class AssertBeanBuilderTest {
         runAssertionTest(Collections.singletonMap("1", "worked"), "[1]");
     }
 
+    @Test
+    public void testAccessMapWithCoercedKeys() throws Exception {
+        final Map<Object, String> integers = new HashMap<Object, String>();
+        integers.put(7, "worked");
+        final Map<Long, String> longs = new TreeMap<Long, String>(Collections.singletonMap(7L, "worked"));
+        final Map<UUID, String> uuids = Collections.singletonMap(UUID.fromString(
+                "1b4e28ba-2fa1-11d2-883f-0016d3cca427"), "worked");
+        final Map<TimeUnit, String> units = new EnumMap<TimeUnit, String>(TimeUnit.class);
+        units.put(TimeUnit.SECONDS, "worked");
+        runAssertionTest(new Object() {
+            public Map getIntegers() {
+                return integers;
+            }
+
+            public Map getLongs() {
+                return longs;
+            }
+
+            public Map getUuids() {
+                return uuids;
+            }
+
+            public Map getUnits() {
+                return units;
+            }
+        }, "integers[7]", "longs[7]", "uuids[1b4e28ba-2fa1-11d2-883f-0016d3cca427]", "units[SECONDS]");
+    }
+
+    @Test
+    public void testAccessMapWithKeyTypeHint() throws Exception {
+        final Map<Object, String> map = new HashMap<Object, String>();
+        map.put("7", "notWork");
+        map.put(7L, "worked");
+        runAssertionTest(map, "[(Long)7]", "[(long)7]");
+        try {
+            builder.that("[(Long)seven]", Matchers.is("worked"));
+            fail("seven is not a Long.");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Property ([(Long)seven]) has a key (seven) that is not a Long.", e.getMessage());
+        }
+        try {
+            builder.that("[(Color)RED]", Matchers.is("worked"));
+            fail("Color cannot be named.");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Property ([(Color)RED]) names an unknown key type (Color).", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAccessMapMissingCoercedKey() throws Exception {
+        final Map<Integer, String> map = new TreeMap<Integer, String>(Collections.singletonMap(7, "worked"));
+        when(callable.call()).thenReturn(map);
+        builder.that("[7]", Matchers.is("worked")).that("[8]", Matchers.nullValue())
+                .that("[eight]", Matchers.nullValue());
+        builder.runAssert();
+        builder.runAssert();
+    }
+
+    @Test
+    public void testAccessMapsOfOneClassWithKeysOfDifferentTypes() throws Exception {
+        final Map<Object, String> integers = new HashMap<Object, String>();
+        integers.put(42, "worked");
+        final Map<Object, String> longs = new HashMap<Object, String>();
+        longs.put(42L, "worked");
+        final Map<Object, String> strings = new HashMap<Object, String>();
+        strings.put("42", "worked");
+        final Map<Object, String> missing = new HashMap<Object, String>();
+        missing.put("other", "notWork");
+        // every builder shares the cached path, so each Map must be looked up by the type of its own keys
+        new AssertBeanBuilder<Map<Object, String>>(constant(missing)).that("[42]", Matchers.nullValue()).runAssert();
+        for (final Map<Object, String> map : Arrays.asList(integers, longs, integers, strings, longs)) {
+            new AssertBeanBuilder<Map<Object, String>>(constant(map)).that("[42]", Matchers.is("worked"))
+                    .runAssert();
+        }
+    }
+
+    @Test
+    public void testAccessIterable() throws Exception {
+        runAssertionTest(new LinkedHashSet<String>(Arrays.asList("notWork", "worked")), "[1]");
+        try {
+            runAssertionTest(new LinkedHashSet<String>(Arrays.asList("notWork", "worked")), "[2]");
+            fail("There are only two elements.");
+        } catch (final IndexOutOfBoundsException e) {
+            Assert.assertEquals("Index: 2", e.getMessage());
+        }
+    }
+
     @Test
     public void testAccessArray() throws Exception {
         runAssertionTest(new String[]{"worked"}, "[0]");
@@ -235,6 +328,21 @@ public class AssertBeanBuilderTest {
         );
     }
 
+    @Test
+    public void testAccessPropertyGetMethodVirtualMachineErrorPropagates() throws Exception {
+        final StackOverflowError overflow = new StackOverflowError();
+        try {
+            new AssertBeanBuilder<Object>(constant(new Object() {
+                public String getText() {
+                    throw overflow;
+                }
+            })).that("text", Matchers.is("worked")).runAssert();
+            fail("No error");
+        } catch (final StackOverflowError e) {
+            Assert.assertSame(overflow, e);
+        }
+    }
+
     @Test
     public void testAccessChildPropertyDoesNotExist() throws Exception {
         runAssertionErrorTest(
@@ -281,6 +389,418 @@ public class AssertBeanBuilderTest {
         );
     }
 
+    @Test
+    public void testCompile() {
+        final CompiledBeanAssertion<Object> compiled = new AssertBeanBuilder<Object>(callable)
+                .that("[0]", Matchers.is("worked"))
+                .that(Matchers.notNullValue())
+                .compile();
+        compiled.runAssert(Arrays.asList("worked"));
+        compiled.runAssert(Collections.singletonMap("0", "worked"));
+    }
+
+    @Test
+    public void testCompileFailuresMatchRunAssert() throws Exception {
+        final Object bean = new Object() {
+            public String getText() {
+                return "notWork";
+            }
+        };
+        when(callable.call()).thenReturn(bean);
+        builder.that("text", Matchers.is("worked")).that("other", Matchers.is("worked")).isNull();
+        final String expected = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.runAssert();
+            }
+        });
+        final String actual = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.compile().runAssert(bean);
+            }
+        });
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testCompileNullBean() {
+        final CompiledBeanAssertion compiled = new AssertBeanBuilder("named", callable)
+                .that("text", Matchers.is("worked")).compile();
+        Assert.assertEquals("named failed because: \nExpected: text is \"worked\"\n     but: was null",
+                assertionMessage(new Runnable() {
+                    @Override
+                    public void run() {
+                        compiled.runAssert(null);
+                    }
+                }));
+    }
+
+    @Test
+    public void testClassProperty() throws Exception {
+        when(callable.call()).thenReturn(UUID.randomUUID());
+        builder.that("class", Matchers.equalTo((Object) UUID.class))
+                .that("class.simpleName", Matchers.is("UUID"));
+        builder.runAssert();
+        builder.compile().runAssert(UUID.randomUUID());
+    }
+
+    @Test
+    public void testSharedPrefixFetchedOnce() throws Exception {
+        final int[] calls = new int[1];
+        final Object customer = new Object() {
+            public String getName() {
+                return "worked";
+            }
+
+            public Object getAddress() {
+                return Collections.singletonMap("zip", "worked");
+            }
+        };
+        when(callable.call()).thenReturn(new Object() {
+            public Object getCustomer() {
+                calls[0]++;
+                return customer;
+            }
+        });
+        builder.that("customer.name", Matchers.is("worked"))
+                .that("customer.address[zip]", Matchers.is("worked"))
+                .that("customer", Matchers.notNullValue());
+        builder.runAssert();
+        assertThat("The shared prefix was fetched more than once", calls[0], Matchers.is(1));
+        builder.runAssert();
+        assertThat("The shared prefix was not fetched again on the next run", calls[0], Matchers.is(2));
+    }
+
+    @Test
+    public void testSharedPrefixFailureReportedForEachProperty() throws Exception {
+        runAssertionErrorTest(new Object() {
+            public Object getThing() {
+                return new Object();
+            }
+        }, "Multiple assertion errors:\n  Property (text) does not exist on bean thing.\n  Property (text) does not " +
+                "exist on bean thing.", "thing.text", "thing.text.more");
+    }
+
+    @Test
+    public void testWildcardEveryElement() throws Exception {
+        runAssertionTest(new Object() {
+            public List<String> getText() {
+                return Arrays.asList("worked", "worked");
+            }
+        }, "text[*]");
+        final CompiledBeanAssertion<Object> compiled = new AssertBeanBuilder<Object>(callable)
+                .that("[*]", Matchers.is("worked")).compile();
+        compiled.runAssert(Arrays.asList("worked", "worked"));
+        compiled.runAssert(new String[]{"worked", "worked"});
+        compiled.runAssert(Collections.singletonMap("key", "worked"));
+        compiled.runAssert(Collections.singleton("worked"));
+        compiled.runAssert(Collections.emptyList());
+    }
+
+    @Test
+    public void testWildcardFailuresNamedByIndex() throws Exception {
+        runAssertionErrorTest(Arrays.asList(order("worked", "notWork"), order("notWork")),
+                "\nExpected: [*].lines[*] is \"worked\"\n     but: [0].lines[1] was \"notWork\",\n          " +
+                        "[1].lines[0] was \"notWork\"", "[*].lines[*]");
+    }
+
+    @Test
+    public void testWildcardMapFailureNamedByKey() throws Exception {
+        runAssertionErrorTest(Collections.singletonMap("key", "notWork"),
+                "\nExpected: [*] is \"worked\"\n     but: [key] was \"notWork\"", "[*]");
+    }
+
+    @Test
+    public void testWildcardElementCannotBeRead() throws Exception {
+        runAssertionErrorTest(Arrays.asList(order("worked"), new Object()),
+                "\nExpected: [*].lines[*] is \"worked\"\n     but: [1].lines[*] could not be read: Property (lines) " +
+                        "does not exist on bean [*].", "[*].lines[*]");
+    }
+
+    @Test
+    public void testWildcardReportsLimitedFailures() throws Exception {
+        final String[] values = new String[AssertBeanBuilder.WildcardMatcher.MAXIMUM_REPORTED + 5];
+        Arrays.fill(values, "notWork");
+        final String message = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                new AssertBeanBuilder<Object>(callable).that("[*]", Matchers.is("worked")).compile()
+                        .runAssert(values);
+            }
+        });
+        assertThat(message, Matchers.endsWith("[19] was \"notWork\",\n          and 5 more"));
+    }
+
+    @Test
+    public void testWildcardButNull() throws Exception {
+        runAssertionErrorTest(new Object() {
+            public List<String> getTest() {
+                return null;
+            }
+        }, "Cannot access into Map, List, or Array of test[*] because the bean is null.", "test[*]");
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        when(callable.call()).thenReturn(Arrays.asList(order("a", "b"), order("c")));
+        builder.thatProjection("[*].lines[*]", Matchers.contains("a", "b", "c"))
+                .thatProjection("[*].lines[*]", Matchers.hasItem("b"))
+                .thatProjection("[0].lines[0]", Matchers.contains("a"));
+        builder.runAssert();
+    }
+
+    @Test
+    public void testProjectionFailure() throws Exception {
+        when(callable.call()).thenReturn(Arrays.asList(order("a", "b"), order("c")));
+        builder.thatProjection("[*].lines[*]", Matchers.hasItem("d"));
+        Assert.assertEquals("\nExpected: [*].lines[*] a collection containing \"d\"\n     but: [*].lines[*] was \"a\", " +
+                "was \"b\", was \"c\"", assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.runAssert();
+            }
+        }));
+    }
+
+    @Test
+    public void testWildcardMatchersMatchOnTheirOwn() throws Exception {
+        final Object bean = Arrays.asList(order("worked", "notWork"));
+        builder.that("[*].lines[*]", Matchers.is("worked"))
+                .thatProjection("[*].lines[*]", Matchers.hasItem("d"));
+        final StringBuilder interpreted = new StringBuilder("Multiple assertion errors:");
+        for (final Object matcher : builder.getMatchers()) {
+            final String message = assertionMessage(new Runnable() {
+                @Override
+                public void run() {
+                    org.hamcrest.MatcherAssert.assertThat(bean, (org.hamcrest.Matcher) matcher);
+                }
+            });
+            interpreted.append("\n  ").append(message.replace("\n", "\n  "));
+        }
+        Assert.assertEquals(interpreted.toString(), assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.compile().runAssert(bean);
+            }
+        }));
+    }
+
+    @Test
+    public void testWildcardInParallel() throws Exception {
+        final Integer[] values = new Integer[50000];
+        Arrays.fill(values, 1);
+        final Object bean = new Object() {
+            public List<Integer> getValues() {
+                return Arrays.asList(values);
+            }
+        };
+        new AssertBeanBuilder<Object>(callable).that("values[*]", Matchers.is(1)).compile().runAssert(bean);
+
+        for (int i = values.length - 1; i >= 0; i -= 997) {
+            values[i] = 2;
+        }
+        final String sequential = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                parallel(0).compile().runAssert(bean);
+            }
+        });
+        final String parallel = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                parallel(100).compile().runAssert(bean);
+            }
+        });
+        Assert.assertEquals(sequential, parallel);
+        assertThat(parallel, Matchers.containsString("but: values[149] was <2>,\n          values[1146] was <2>"));
+        assertThat(parallel, Matchers.endsWith("and 31 more"));
+    }
+
+    @Test
+    public void testWildcardMapInParallel() throws Exception {
+        final Map<String, Integer> values = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 5000; i++) {
+            values.put("k" + i, i % 997 == 149 ? 2 : 1);
+        }
+        final Object bean = new Object() {
+            public Map<String, Integer> getValues() {
+                return values;
+            }
+        };
+        final String sequential = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                parallel(0).compile().runAssert(bean);
+            }
+        });
+        final String parallel = assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                parallel(100).compile().runAssert(bean);
+            }
+        });
+        Assert.assertEquals(sequential, parallel);
+        assertThat(parallel, Matchers.containsString("but: values[k149] was <2>,\n          values[k1146] was <2>"));
+    }
+
+    @Test
+    public void testAccessPrimitiveArrays() {
+        final CompiledBeanAssertion<Object> compiled = new AssertBeanBuilder<Object>(callable)
+                .that("[1]", Matchers.<Object>isOneOf(2, 2L, 2.0, (short) 2)).compile();
+        compiled.runAssert(new int[]{1, 2});
+        compiled.runAssert(new long[]{1, 2});
+        compiled.runAssert(new double[]{1, 2});
+        compiled.runAssert(new short[]{1, 2});
+    }
+
+    @Test
+    public void testWildcardPrimitiveArrays() {
+        new AssertBeanBuilder<Object>(callable).that("[*]", PrimitiveMatchers.intBetween(0, 10)).compile()
+                .runAssert(new int[]{0, 5, 10});
+        new AssertBeanBuilder<Object>(callable).that("[*]", PrimitiveMatchers.longBetween(0, 10)).compile()
+                .runAssert(new long[]{0, 5, 10});
+        new AssertBeanBuilder<Object>(callable).that("[*]", PrimitiveMatchers.doubleBetween(0, 1)).compile()
+                .runAssert(new double[]{0, 0.5, 1});
+        new AssertBeanBuilder<Object>(callable).that("[*]", Matchers.greaterThan(0)).compile()
+                .runAssert(new int[]{1, 2});
+        new AssertBeanBuilder<Object>(callable).that("[*]", Matchers.is('a')).compile()
+                .runAssert(new char[]{'a'});
+    }
+
+    @Test
+    public void testWildcardPrimitiveArrayFailures() {
+        final int[] samples = new int[100];
+        samples[3] = -1;
+        samples[97] = 11;
+        Assert.assertEquals("\nExpected: samples[*] a value between <0> and <10>\n     but: samples[3] was <-1>,\n" +
+                "          samples[97] was <11>", assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                new AssertBeanBuilder<Object>(callable).that("samples[*]", PrimitiveMatchers.intBetween(0, 10))
+                        .compile().runAssert(new Object() {
+                            public int[] getSamples() {
+                                return samples;
+                            }
+                        });
+            }
+        }));
+    }
+
+    /**
+     * Creates a builder that checks every value is 1.
+     *
+     * @param threshold the number of values above which they are matched in parallel.
+     * @return the builder.
+     */
+    private AssertBeanBuilder<Object> parallel(final int threshold) {
+        final AssertBeanBuilder<Object> parallel = new AssertBeanBuilder<Object>(callable);
+        parallel.addMatcher(new AssertBeanBuilder.EachPropertyMatcher(Matchers.is(1), "values[*]", threshold));
+        return parallel;
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        when(callable.call()).thenReturn("notWork");
+        builder.that(Matchers.is("worked")).that(Matchers.is("other"));
+        builder.setFailurePolicy(FailurePolicy.failFast());
+        Assert.assertEquals("\nExpected: is \"worked\"\n     but: was \"notWork\"", assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.runAssert();
+            }
+        }));
+    }
+
+    @Test
+    public void testCountAfter() throws Exception {
+        when(callable.call()).thenReturn("notWork");
+        builder.that(Matchers.is("worked")).that(Matchers.is("other")).that(Matchers.is("other"))
+                .that(Matchers.nullValue());
+        builder.setFailurePolicy(FailurePolicy.countAfter(2));
+        final String expected = "Multiple assertion errors:\n  \n  Expected: is \"worked\"\n       but: was " +
+                "\"notWork\"\n  \n  Expected: is \"other\"\n       but: was \"notWork\"\n  2 more failures were " +
+                "counted but not kept:\n  1 more of is \"other\"\n  1 more of null";
+        Assert.assertEquals(expected, assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                builder.runAssert();
+            }
+        }));
+        Assert.assertEquals(expected, assertionMessage(new Runnable() {
+            @Override
+            public void run() {
+                new AbstractMatcherAssertBuilder<Object>(callable) {
+                    {
+                        for (final Object matcher : builder.getMatchers()) {
+                            addMatcher((org.hamcrest.Matcher<?>) matcher);
+                        }
+                        setFailurePolicy(FailurePolicy.countAfter(2));
+                    }
+                }.runAssert();
+            }
+        }));
+    }
+
+    @Test
+    public void testOnlyThrownFailureHasStackTrace() throws Exception {
+        when(callable.call()).thenReturn("notWork");
+        builder.that(Matchers.is("worked")).that("text", Matchers.is("worked"));
+        try {
+            builder.runAssert();
+            fail("No assertion error");
+        } catch (final MultipleAssertionError e) {
+            assertThat(e.getStackTrace().length, Matchers.greaterThan(0));
+            for (final Object error : e.getErrors()) {
+                assertThat(((AssertionError) error).getStackTrace().length, Matchers.is(0));
+            }
+        }
+
+        builder = new AssertBeanBuilder(callable).that(Matchers.is("worked"));
+        try {
+            builder.runAssert();
+            fail("No assertion error");
+        } catch (final AssertionError e) {
+            assertThat(e.getStackTrace().length, Matchers.greaterThan(0));
+            Assert.assertNull(e.getCause());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStopAfterNothing() {
+        FailurePolicy.stopAfter(0);
+    }
+
+    /**
+     * Creates a bean with a List of lines.
+     *
+     * @param lines of the bean.
+     * @return the bean.
+     */
+    private static Object order(final String... lines) {
+        return new Object() {
+            public List<String> getLines() {
+                return Arrays.asList(lines);
+            }
+        };
+    }
+
+    /**
+     * Runs the runnable and gets the message of the AssertionError it threw.
+     *
+     * @param runnable that should throw an AssertionError.
+     * @return the message of the AssertionError.
+     */
+    private static String assertionMessage(final Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (final AssertionError e) {
+            return e.getMessage();
+        }
+        fail("No assertion error");
+        return null;
+    }
+
     /**
      * The test for a successful assertion test.  The beanString should access a bean that is a String "worked",
      * otherwise a failure will be thrown.
@@ -297,6 +817,20 @@ public class AssertBeanBuilderTest {
         builder.runAssert();
     }
 
+    /**
+     * @param value to return.
+     * @param <T>   type of the value.
+     * @return a callable that returns the value.
+     */
+    private static <T> Callable<T> constant(final T value) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return value;
+            }
+        };
+    }
+
     /**
      * The test for a failed assertion test.  The beanString should not access a bean that is a String "worked",
      * otherwise a failure will be thrown.
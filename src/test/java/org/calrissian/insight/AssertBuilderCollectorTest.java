@@ -15,8 +15,30 @@
  */
 package org.calrissian.insight;
 
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Test for the AssertBuilderCollector class.
  */
@@ -62,6 +84,256 @@ public class AssertBuilderCollectorTest {
         assertBuilder.runAssert();
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullExecutor() {
+        new AssertBuilderCollector(null);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // each builder waits for the other so this only finishes when they run at the same time
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final AssertBuilderCollector assertBuilder = new AssertBuilderCollector(executor);
+            assertBuilder.add(await(barrier, "first"));
+            assertBuilder.add(await(barrier, "second"));
+            assertBuilder.add(pass());
+            try {
+                assertBuilder.runAssert();
+                Assert.fail("No assertion error");
+            } catch (final MultipleAssertionError e) {
+                assertEquals("Failures were not in the order they were added",
+                        "Multiple assertion errors:\n  first\n  second", e.getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelRethrowsException() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final AssertBuilderCollector assertBuilder = new AssertBuilderCollector(executor);
+            assertBuilder.add(fail());
+            assertBuilder.add(new AssertBuilder() {
+                @Override
+                public void runAssert() {
+                    throw new IllegalStateException("broken");
+                }
+            });
+            assertBuilder.runAssert();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelRejectedCancelsSubmitted() {
+        final List<Runnable> submitted = new ArrayList<Runnable>();
+        // holds the first two tasks without running them and rejects the third
+        final AssertBuilderCollector assertBuilder = new AssertBuilderCollector(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                if (submitted.size() == 2) {
+                    throw new RejectedExecutionException("full");
+                }
+                submitted.add(command);
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            assertBuilder.add(pass());
+        }
+        try {
+            assertBuilder.runAssert();
+            Assert.fail("The third AssertBuilder should have been rejected");
+        } catch (final RejectedExecutionException e) {
+            assertEquals("full", e.getMessage());
+        }
+        assertEquals(2, submitted.size());
+        for (final Runnable task : submitted) {
+            assertTrue("A submitted task was not cancelled", ((Future<?>) task).isCancelled());
+        }
+    }
+
+    @Test
+    public void testFailFast() {
+        final AssertBuilderCollector assertBuilder = new AssertBuilderCollector();
+        assertBuilder.setFailurePolicy(FailurePolicy.failFast());
+        assertBuilder.add(pass());
+        assertBuilder.add(fail());
+        assertBuilder.add(new AssertBuilder() {
+            @Override
+            public void runAssert() {
+                throw new IllegalStateException("Ran after the first failure");
+            }
+        });
+        try {
+            assertBuilder.runAssert();
+        } catch (final AssertionError e) {
+            assertEquals("failed", e.getMessage());
+            return;
+        }
+        Assert.fail("No assertion error");
+    }
+
+    @Test
+    public void testStopAfterInParallel() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final AssertBuilderCollector assertBuilder = new AssertBuilderCollector(executor);
+            assertBuilder.setFailurePolicy(FailurePolicy.stopAfter(2));
+            for (int i = 0; i < 5; i++) {
+                assertBuilder.add(fail());
+            }
+            try {
+                assertBuilder.runAssert();
+                Assert.fail("No assertion error");
+            } catch (final MultipleAssertionError e) {
+                assertEquals(2, e.getErrors().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCountAfter() {
+        final AssertBuilderCollector assertBuilder = new AssertBuilderCollector();
+        assertBuilder.setFailurePolicy(FailurePolicy.countAfter(1));
+        assertBuilder.add(fail());
+        assertBuilder.add(fail());
+        assertBuilder.add(fail());
+        assertBuilder.createAssertBeanBuilder("bean", (Object) null).notNull();
+        try {
+            assertBuilder.runAssert();
+            Assert.fail("No assertion error");
+        } catch (final MultipleAssertionError e) {
+            assertEquals("Multiple assertion errors:\n  failed\n  3 more failures were counted but not kept:\n  " +
+                    "2 more of unnamed assertions\n  1 more of bean", e.getMessage());
+        }
+    }
+
+    /**
+     * AssertBuilder that waits at the barrier and then fails.
+     *
+     * @param barrier to wait at.
+     * @param message of the failure.
+     * @return an AssertBuilder that will fail.
+     */
+    private static AssertBuilder await(final CyclicBarrier barrier, final String message) {
+        return new AssertBuilder() {
+            @Override
+            public void runAssert() {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (final Exception e) {
+                    throw new IllegalStateException("Assertions did not run in parallel", e);
+                }
+                throw new AssertionError(message);
+            }
+        };
+    }
+
+    @Test
+    public void testSeal() {
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        final AssertBeanBuilder<Order> builder = collector.createAssertBeanBuilder(new Callable<Order>() {
+            @Override
+            public Order call() throws Exception {
+                return new Order("Lando", Arrays.asList("sku-0"));
+            }
+        });
+        builder.that("name", Matchers.equalTo("Lando"));
+        collector.add(pass());
+        collector.seal();
+        assertTrue(collector.isSealed());
+        assertTrue(builder.isSealed());
+        try {
+            collector.add(pass());
+            throw new AssertionError("The collector is sealed.");
+        } catch (final IllegalStateException e) {
+            assertEquals("AssertBuilders cannot be added once the collector is sealed.", e.getMessage());
+        }
+        try {
+            builder.that("lines[0]", Matchers.equalTo("sku-0"));
+            throw new AssertionError("The builder is sealed.");
+        } catch (final IllegalStateException e) {
+            assertEquals("Matchers cannot be added once the AssertBuilder is sealed.", e.getMessage());
+        }
+        collector.seal();
+        collector.runAssert();
+
+        collector.reset();
+        assertFalse(collector.isSealed());
+        collector.add(fail());
+        try {
+            collector.runAssert();
+            throw new AssertionError("The new AssertBuilder fails.");
+        } catch (final AssertionError e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSealConcurrent() {
+        final ConcurrentAssertBuilderCollector collector = new ConcurrentAssertBuilderCollector();
+        final AssertBeanBuilder<Order> builder = collector.createAssertBeanBuilder(new Callable<Order>() {
+            @Override
+            public Order call() throws Exception {
+                return new Order("Lando", Arrays.asList("sku-0"));
+            }
+        });
+        builder.that("name", Matchers.equalTo("Lando"));
+        collector.seal();
+        assertTrue(builder.isSealed());
+        assertFalse(collector.isSealed());
+        collector.add(pass());
+        collector.runAssert();
+    }
+
+    @Test
+    public void testPassingRunDoesNotAllocate() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        final Order order = new Order("Lando", Arrays.asList("sku-0", "sku-1", "sku-2"));
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        for (int i = 0; i < 10; i++) {
+            collector.createAssertBeanBuilder("order " + i, new Callable<Order>() {
+                @Override
+                public Order call() throws Exception {
+                    return order;
+                }
+            }).that("name", Matchers.equalTo("Lando")).that("lines[2]", Matchers.equalTo("sku-2"))
+                    .that(Matchers.notNullValue());
+        }
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put("color", "red");
+        collector.createAssertBeanBuilder("attributes", new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() throws Exception {
+                return attributes;
+            }
+        }).that("[color]", Matchers.equalTo("red"));
+        final long thread = Thread.currentThread().getId();
+        final int runs = 20000;
+        for (int i = 0; i < 1000; i++) {
+            collector.runAssert();
+        }
+        final long start = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            collector.runAssert();
+        }
+        final long allocated = allocations.getThreadAllocatedBytes(thread) - start;
+        // the JVM may allocate a little once while compiling, anything allocated per run is at least 16 bytes a run
+        assertTrue("Allocated " + allocated + " bytes in " + runs + " runs.", allocated < runs);
+    }
+
     /**
      * AssertBuilder that will always fail.
      *
@@ -76,6 +348,28 @@ public class AssertBuilderCollectorTest {
         };
     }
 
+    /**
+     * A bean to assert.
+     */
+    public static class Order {
+
+        private final String name;
+        private final List<String> lines;
+
+        public Order(final String name, final List<String> lines) {
+            this.name = name;
+            this.lines = lines;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+    }
+
     /**
      * AssertBuilder that will always pass.
      *
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the AssertionMetrics class and the AssertionListener hooks.
+ */
+public class AssertionMetricsTest {
+
+    @Test
+    public void testAssertBeanBuilder() {
+        final AssertionMetrics metrics = new AssertionMetrics();
+        final AssertBeanBuilder<Map<String, Integer>> builder = new AssertBeanBuilder<Map<String, Integer>>("map",
+                new Callable<Map<String, Integer>>() {
+                    @Override
+                    public Map<String, Integer> call() throws Exception {
+                        return Collections.singletonMap("a", 1);
+                    }
+                });
+        builder.that("[a]", Matchers.is(1)).that("[a]", Matchers.is(2));
+        builder.setListener(metrics);
+        try {
+            builder.runAssert();
+            fail("The second assertion should fail.");
+        } catch (final AssertionError e) {
+            // expected
+        }
+
+        final List<AssertionMetrics.Timer> retrievals = metrics.getRetrievals();
+        assertEquals(1, retrievals.size());
+        assertEquals("map", retrievals.get(0).getName());
+        assertEquals(1, retrievals.get(0).getCount());
+        assertEquals(0, retrievals.get(0).getFailures());
+
+        final List<AssertionMetrics.Timer> matchers = metrics.getMatchers();
+        assertEquals(2, matchers.size());
+        long failures = 0;
+        for (final AssertionMetrics.Timer timer : matchers) {
+            assertThat(timer.getName(), Matchers.startsWith("map: [a] "));
+            assertEquals(1, timer.getCount());
+            failures += timer.getFailures();
+        }
+        assertEquals(1, failures);
+        assertEquals(0, metrics.getAssertBuilders().size());
+    }
+
+    @Test
+    public void testCollector() {
+        final AssertionMetrics metrics = new AssertionMetrics();
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        collector.setListener(metrics);
+        collector.createAssertBeanBuilder("passes", Collections.singletonMap("a", 1)).that("[a]", Matchers.is(1));
+        collector.createAssertBeanBuilder("fails", Collections.singletonMap("a", 1)).that("[a]", Matchers.is(2));
+        collector.createAssertBeanBuilder((Object) null).isNull();
+        for (int i = 0; i < 2; i++) {
+            try {
+                collector.runAssert();
+                fail("The collector should fail.");
+            } catch (final AssertionError e) {
+                // expected
+            }
+        }
+
+        final List<AssertionMetrics.Timer> builders = metrics.getAssertBuilders();
+        assertEquals(3, builders.size());
+        for (final AssertionMetrics.Timer timer : builders) {
+            assertEquals(2, timer.getCount());
+            assertEquals("fails".equals(timer.getName()) ? 2 : 0, timer.getFailures());
+        }
+        assertThat(metrics.getRetrievals().size(), Matchers.is(3));
+        assertThat(metrics.getMatchers().size(), Matchers.is(3));
+        assertThat(metrics.toString(), Matchers.containsString("unnamed assertions: null: count 2, failed 0"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getAssertBuilders().size());
+    }
+
+    @Test
+    public void testMatchersAggregatedByDescription() {
+        final AssertionMetrics metrics = new AssertionMetrics();
+        for (int i = 0; i < 3; i++) {
+            // a new builder and matcher every time, as a test creates them
+            final AssertBeanBuilder<Map<String, Integer>> builder = new AssertBeanBuilder<Map<String, Integer>>(
+                    "map", new Callable<Map<String, Integer>>() {
+                @Override
+                public Map<String, Integer> call() throws Exception {
+                    return Collections.singletonMap("a", 1);
+                }
+            });
+            builder.that("[a]", Matchers.is(1));
+            builder.setListener(metrics);
+            builder.runAssert();
+        }
+        final List<AssertionMetrics.Timer> matchers = metrics.getMatchers();
+        assertEquals(1, matchers.size());
+        assertEquals("map: [a] is <1>", matchers.get(0).getName());
+        assertEquals(3, matchers.get(0).getCount());
+    }
+
+    @Test
+    public void testRepeatedMatcherDoesNotAllocate() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        final AssertionMetrics metrics = new AssertionMetrics();
+        final Matcher<Integer> matcher = Matchers.is(1);
+        final long thread = Thread.currentThread().getId();
+        final int calls = 20000;
+        for (int i = 0; i < 1000; i++) {
+            metrics.matched("map", matcher, i, true);
+        }
+        final long start = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < calls; i++) {
+            metrics.matched("map", matcher, i, true);
+        }
+        final long allocated = allocations.getThreadAllocatedBytes(thread) - start;
+        // rendering the description of the matcher would allocate far more than a byte a call
+        assertTrue("Allocated " + allocated + " bytes in " + calls + " calls.", allocated < calls);
+        assertEquals(calls + 1000, metrics.getMatchers().get(0).getCount());
+    }
+
+    @Test
+    public void testPercentiles() {
+        final AssertionMetrics metrics = new AssertionMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.retrieved("bean", i, true);
+        }
+        final AssertionMetrics.Timer timer = metrics.getRetrievals().get(0);
+        assertEquals(100, timer.getCount());
+        assertEquals(5050, timer.getTotalNanos());
+        assertEquals(100, timer.getMaxNanos());
+        assertEquals(1, timer.getPercentileNanos(0));
+        assertEquals(63, timer.getPercentileNanos(50));
+        assertEquals(100, timer.getPercentileNanos(99));
+    }
+
+    @Test
+    public void testReport() throws IOException {
+        final AssertionMetrics metrics = new AssertionMetrics();
+        metrics.finished("slow", 2000000, false);
+        metrics.finished("fast", 1000, true);
+        final StringBuilder out = new StringBuilder();
+        metrics.report(out, 1);
+        assertEquals("Slowest AssertBuilders:\n" +
+                "  slow: count 1, failed 1, total 2.000 ms, p50 2.000 ms, p99 2.000 ms, max 2.000 ms\n" +
+                "  ...and 1 more\n", out.toString());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullListener() {
+        new AssertBuilderCollector().setListener(null);
+    }
+}
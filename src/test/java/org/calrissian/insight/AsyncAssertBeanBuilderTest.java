@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the org.calrissian.insight.AsyncAssertBeanBuilder class
+ */
+public class AsyncAssertBeanBuilderTest {
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullSource() {
+        new AsyncAssertBeanBuilder<Object>((Supplier<CompletionStage<Object>>) null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullStage() {
+        new AsyncAssertBeanBuilder<Object>((CompletionStage<Object>) null);
+    }
+
+    @Test
+    public void testRunAssertAsyncWaitsForBean() {
+        final CompletableFuture<String> bean = new CompletableFuture<String>();
+        final AsyncAssertBeanBuilder<String> builder = new AsyncAssertBeanBuilder<String>(bean);
+        builder.that(Matchers.is("worked")).notNull();
+        final CompletableFuture<Void> result = builder.runAssertAsync();
+        assertFalse("The assertions ran before the bean was produced", result.isDone());
+        bean.complete("worked");
+        result.join();
+    }
+
+    @Test
+    public void testRunAssertAsyncFailure() {
+        final AsyncAssertBeanBuilder<String> builder = new AsyncAssertBeanBuilder<String>("name",
+                CompletableFuture.completedFuture("notWork"));
+        builder.that(Matchers.is("worked"));
+        assertEquals("name failed because: \nExpected: is \"worked\"\n     but: was \"notWork\"",
+                failure(builder.runAssertAsync()).getMessage());
+    }
+
+    @Test
+    public void testRunAssertAsyncSourceFailure() {
+        final CompletableFuture<String> bean = new CompletableFuture<String>();
+        bean.completeExceptionally(new IllegalStateException("down"));
+        final AssertionError error = failure(new AsyncAssertBeanBuilder<String>("name", bean).runAssertAsync());
+        assertEquals("Could not retrieve object (name).", error.getMessage());
+        assertEquals("down", error.getCause().getMessage());
+    }
+
+    @Test
+    public void testRunAssertBlocks() {
+        final AsyncAssertBeanBuilder<String> builder = new AsyncAssertBeanBuilder<String>(
+                CompletableFuture.supplyAsync(new Supplier<String>() {
+                    @Override
+                    public String get() {
+                        return "worked";
+                    }
+                }));
+        builder.that(Matchers.is("worked"));
+        builder.runAssert();
+    }
+
+    @Test
+    public void testRunAssertKeepsInterrupt() {
+        final AsyncAssertBeanBuilder<String> builder = new AsyncAssertBeanBuilder<String>("never",
+                new CompletableFuture<String>());
+        builder.that(Matchers.is("worked"));
+        Thread.currentThread().interrupt();
+        try {
+            builder.runAssert();
+            fail("The wait was interrupted.");
+        } catch (final AssertionError e) {
+            assertEquals(InterruptedException.class, e.getCause().getClass());
+            assertTrue("The thread should still be interrupted", Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testCollectorFanOut() {
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        final List<CompletableFuture<String>> beans = new ArrayList<CompletableFuture<String>>();
+        for (int i = 0; i < 100; i++) {
+            final CompletableFuture<String> bean = new CompletableFuture<String>();
+            beans.add(bean);
+            collector.createAsyncAssertBeanBuilder(bean).that(Matchers.is("worked"));
+        }
+        final CompletableFuture<Void> result = collector.runAssertAsync();
+        // complete them backwards, the failures are still reported in the order they were added
+        for (int i = beans.size() - 1; i >= 0; i--) {
+            assertFalse("The collector finished before all the beans were produced", result.isDone());
+            beans.get(i).complete((i == 10 || i == 20) ? "failed " + i : "worked");
+        }
+        final AssertionError error = failure(result);
+        assertEquals("Multiple assertion errors:\n" +
+                "  \n  Expected: is \"worked\"\n       but: was \"failed 10\"\n" +
+                "  \n  Expected: is \"worked\"\n       but: was \"failed 20\"", error.getMessage());
+    }
+
+    /**
+     * Gets the AssertionError a future failed with.
+     *
+     * @param future that should fail.
+     * @return the AssertionError.
+     */
+    private static AssertionError failure(final CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (final CompletionException e) {
+            return (AssertionError) e.getCause();
+        }
+        fail("No assertion error");
+        return null;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for the BeanDiffMatcher class.
+ */
+public class BeanDiffMatcherTest {
+
+    @Test
+    public void testSame() {
+        assertTrue(BeanDiffMatcher.sameBeanAs(tree()).matches(tree()));
+        assertTrue(BeanDiffMatcher.sameBeanAs(null).matches(null));
+        assertFalse(BeanDiffMatcher.sameBeanAs(tree()).matches(null));
+    }
+
+    @Test
+    public void testEveryDifferenceReported() {
+        final Node actual = tree();
+        actual.setValue(2);
+        actual.getChildren().get(1).setName("other");
+        actual.getChildren().add(new Node("extra", 9));
+        actual.getAttributes().remove("color");
+        actual.getAttributes().put("size", "large");
+        assertEquals("attributes[color] expected \"red\" but was missing,\n" +
+                "          attributes[size] was not expected but was \"large\",\n" +
+                "          children[2] was not expected but was a Node,\n" +
+                "          children[1].name expected \"b\" but was \"other\",\n" +
+                "          value expected <1> but was <2>", mismatch(
+                BeanDiffMatcher.sameBeanAs(tree()), actual));
+    }
+
+    @Test
+    public void testTypeDifference() {
+        final Node actual = tree();
+        actual.setNext(new Object());
+        final Node expected = tree();
+        expected.setNext(new Node("next", 3));
+        assertEquals("next expected a Node but was <" + actual.getNext() + ">",
+                mismatch(BeanDiffMatcher.sameBeanAs(expected), actual));
+    }
+
+    @Test
+    public void testCycles() {
+        final Node expected = tree();
+        expected.setNext(expected);
+        final Node actual = tree();
+        actual.setNext(actual);
+        assertTrue(BeanDiffMatcher.sameBeanAs(expected).matches(actual));
+
+        actual.getChildren().get(0).setValue(5);
+        assertEquals("children[0].value expected <1> but was <5>", mismatch(BeanDiffMatcher.sameBeanAs(expected),
+                actual));
+    }
+
+    @Test
+    public void testLongChain() {
+        // deeper than the call stack could walk
+        Node expected = null;
+        Node actual = null;
+        for (int i = 0; i < 100000; i++) {
+            final Node expectedNode = new Node("n", i);
+            expectedNode.setNext(expected);
+            expected = expectedNode;
+            final Node actualNode = new Node("n", i);
+            actualNode.setNext(actual);
+            actual = actualNode;
+        }
+        assertTrue(BeanDiffMatcher.sameBeanAs(expected).matches(actual));
+    }
+
+    @Test
+    public void testIgnored() {
+        final Node actual = tree();
+        actual.setValue(2);
+        actual.getChildren().get(0).setName("x");
+        actual.getChildren().get(1).setName("y");
+        final BeanDiffMatcher matcher = BeanDiffMatcher.sameBeanAs(tree()).withIgnored("value", "children[*].name");
+        assertTrue(matcher.matches(actual));
+        assertEquals("the same bean as a Node ignoring \"children[*].name\", \"value\"",
+                StringDescription.toString(matcher));
+        assertFalse(BeanDiffMatcher.sameBeanAs(tree()).withIgnored("children[0].name").matches(actual));
+    }
+
+    @Test
+    public void testMatcherOverride() {
+        final Node actual = tree();
+        actual.getChildren().get(0).setName("generated-1");
+        final BeanDiffMatcher matcher = BeanDiffMatcher.sameBeanAs(tree()).withMatcher("children[0].name",
+                Matchers.startsWith("generated"));
+        assertTrue(matcher.matches(actual));
+        actual.getChildren().get(0).setName("other");
+        assertEquals("children[0].name expected a string starting with \"generated\" but was \"other\"",
+                mismatch(matcher, actual));
+    }
+
+    @Test
+    public void testMaximumDepth() {
+        final Node actual = tree();
+        actual.getChildren().get(0).setName("x");
+        // the children are at depth 2, below the List, and compared with equals, which Node does not override
+        assertEquals("children[0] expected a Node but was a Node,\n" +
+                "          children[1] expected a Node but was a Node",
+                mismatch(BeanDiffMatcher.sameBeanAs(tree()).withMaximumDepth(1), actual));
+        assertFalse(BeanDiffMatcher.sameBeanAs(tree()).withMaximumDepth(2).matches(actual));
+    }
+
+    @Test
+    public void testArraysAndSets() {
+        final Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("ints", new int[]{1, 2, 3});
+        expected.put("names", new String[]{"a", "b"});
+        expected.put("set", Collections.singleton("a"));
+        final Map<String, Object> actual = new LinkedHashMap<String, Object>();
+        actual.put("ints", new int[]{1, 2, 4});
+        actual.put("names", new String[]{"a"});
+        actual.put("set", Collections.singleton("a"));
+        assertEquals("[ints][2] expected <3> but was <4>,\n          [names][1] expected \"b\" but was missing",
+                mismatch(BeanDiffMatcher.sameBeanAs(expected), actual));
+    }
+
+    @Test
+    public void testAssertBeanBuilder() {
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        final Node actual = tree();
+        actual.setName("changed");
+        collector.createAssertBeanBuilder(actual).thatSameBeanAs(tree());
+        try {
+            collector.runAssert();
+        } catch (final AssertionError e) {
+            assertEquals("\nExpected: the same bean as a Node\n     but: name expected \"root\" but was \"changed\"",
+                    e.getMessage());
+            return;
+        }
+        throw new AssertionError("The bean should differ.");
+    }
+
+    @Test(timeout = 5000)
+    public void testPathIsValue() {
+        // every element of a Path is a new Path, so walking it element by element never ends
+        final Node expected = tree();
+        expected.setNext(Paths.get("data", "orders.csv"));
+        final Node actual = tree();
+        actual.setNext(Paths.get("data", "orders.csv"));
+        assertTrue(BeanDiffMatcher.sameBeanAs(expected).matches(actual));
+        actual.setNext(Paths.get("data", "lines.csv"));
+        assertEquals("next expected <" + Paths.get("data", "orders.csv") + "> but was <" +
+                Paths.get("data", "lines.csv") + ">", mismatch(BeanDiffMatcher.sameBeanAs(expected), actual));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDepth() {
+        BeanDiffMatcher.sameBeanAs(tree()).withMaximumDepth(-1);
+    }
+
+    /**
+     * Describes why the matcher does not match.
+     *
+     * @param matcher to apply.
+     * @param actual  to apply it to.
+     * @return the mismatch.
+     */
+    private static String mismatch(final BeanDiffMatcher matcher, final Object actual) {
+        assertFalse(matcher.matches(actual));
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    /**
+     * @return a new tree of nodes.
+     */
+    private static Node tree() {
+        final Node root = new Node("root", 1);
+        root.getChildren().addAll(Arrays.asList(new Node("a", 1), new Node("b", 2)));
+        root.getAttributes().put("color", "red");
+        return root;
+    }
+
+    /**
+     * A bean for the tests.
+     */
+    public static class Node {
+
+        private String name;
+        private int value;
+        private Object next;
+        private final List<Node> children = new ArrayList<Node>();
+        private final Map<String, String> attributes = new LinkedHashMap<String, String>();
+
+        public Node(final String name, final int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(final int value) {
+            this.value = value;
+        }
+
+        public Object getNext() {
+            return next;
+        }
+
+        public void setNext(final Object next) {
+            this.next = next;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+    }
+}
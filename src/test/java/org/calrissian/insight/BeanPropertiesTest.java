@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the org.calrissian.insight.BeanProperties class
+ */
+public class BeanPropertiesTest {
+
+    @Test
+    public void testResolvedOncePerClass() {
+        assertSame("The properties were introspected again", BeanProperties.of(Bean.class),
+                BeanProperties.of(Bean.class));
+    }
+
+    @Test
+    public void testGetReadMethod() throws Exception {
+        assertEquals("Wrong getter", Bean.class.getMethod("getText"),
+                BeanProperties.of(Bean.class).getReadMethod("text"));
+    }
+
+    @Test
+    public void testWriteOnlyPropertyNotReadable() {
+        assertNull("A write only property was readable", BeanProperties.of(Bean.class).getReadMethod("other"));
+    }
+
+    @Test
+    public void testClassReadableButNotWalked() throws Exception {
+        assertEquals("Wrong getter", Object.class.getMethod("getClass"),
+                BeanProperties.of(Bean.class).getReadMethod("class"));
+        assertArrayEquals("The class should not be walked", new String[]{"text"},
+                BeanProperties.of(Bean.class).getPropertyNames());
+        assertEquals("Object should not have properties to walk", 0,
+                BeanProperties.of(Object.class).getPropertyNames().length);
+    }
+
+    /**
+     * Bean used for the tests.
+     */
+    public static class Bean {
+
+        public String getText() {
+            return "text";
+        }
+
+        public void setOther(final String other) {
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the ConcurrentAssertBuilderCollector class.
+ */
+public class ConcurrentAssertBuilderCollectorTest {
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() {
+        new ConcurrentAssertBuilderCollector().add(null);
+    }
+
+    @Test
+    public void testAddFromManyThreads() throws Exception {
+        final int threads = 8;
+        final int perThread = 500;
+        final ConcurrentAssertBuilderCollector collector = new ConcurrentAssertBuilderCollector();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int j = 0; j < perThread; j++) {
+                            collector.add(failure());
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue("Adding did not finish", executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try {
+            collector.runAndReset();
+            fail("No assertion error");
+        } catch (final MultipleAssertionError e) {
+            assertEquals("AssertBuilders were lost", threads * perThread, e.getErrors().size());
+        }
+        // everything was taken off by the run
+        collector.runAssert();
+    }
+
+    @Test
+    public void testReset() {
+        final ConcurrentAssertBuilderCollector collector = new ConcurrentAssertBuilderCollector();
+        collector.add(failure());
+        collector.reset();
+        collector.runAssert();
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testRunAssertKeepsAssertions() {
+        final ConcurrentAssertBuilderCollector collector = new ConcurrentAssertBuilderCollector();
+        collector.add(failure());
+        try {
+            collector.runAssert();
+        } catch (final AssertionError e) {
+            // the assertion is still there
+        }
+        collector.runAssert();
+    }
+
+    @Test
+    public void testRunAndResetClearsSources() throws Exception {
+        final ConcurrentAssertBuilderCollector collector = new ConcurrentAssertBuilderCollector();
+        final int[] calls = new int[1];
+        final MemoizingCallable<Integer> source = collector.memoize(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return ++calls[0];
+            }
+        });
+        source.call();
+        collector.runAndReset();
+        assertEquals("The run should have invalidated the source", 2, (int) source.call());
+
+        collector.add(success());
+        collector.runAssert();
+        assertEquals("A source from before the reset should not be invalidated", 2, (int) source.call());
+    }
+
+    /**
+     * AssertBuilder that will always pass.
+     *
+     * @return an AssertBuilder that will pass.
+     */
+    private static AssertBuilder success() {
+        return new AssertBuilder() {
+            @Override
+            public void runAssert() {
+            }
+        };
+    }
+
+    /**
+     * AssertBuilder that will always fail.
+     *
+     * @return an AssertBuilder that will fail.
+     */
+    private static AssertBuilder failure() {
+        return new AssertBuilder() {
+            @Override
+            public void runAssert() {
+                throw new AssertionError("failed");
+            }
+        };
+    }
+}
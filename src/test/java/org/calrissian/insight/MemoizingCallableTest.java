@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the MemoizingCallable class.
+ */
+public class MemoizingCallableTest {
+
+    @Test(expected = NullPointerException.class)
+    public void testNullCallable() {
+        MemoizingCallable.of(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTtl() {
+        MemoizingCallable.withTtl(counting(new AtomicInteger()), -1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCalledOnceUntilInvalidated() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final MemoizingCallable<Integer> callable = MemoizingCallable.of(counting(calls));
+        assertEquals(Integer.valueOf(1), callable.call());
+        assertEquals(Integer.valueOf(1), callable.call());
+        callable.invalidate();
+        assertEquals(Integer.valueOf(2), callable.call());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        final long[] now = new long[1];
+        final AtomicInteger calls = new AtomicInteger();
+        final MemoizingCallable<Integer> callable = new MemoizingCallable<Integer>(counting(calls), 10,
+                new LongSupplier() {
+                    @Override
+                    public long getAsLong() {
+                        return now[0];
+                    }
+                });
+        assertEquals(Integer.valueOf(1), callable.call());
+        now[0] = 9;
+        assertEquals(Integer.valueOf(1), callable.call());
+        now[0] = 10;
+        assertEquals(Integer.valueOf(2), callable.call());
+    }
+
+    @Test
+    public void testFailureRemembered() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final MemoizingCallable<Object> callable = MemoizingCallable.of(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw new IllegalStateException("call " + calls.incrementAndGet());
+            }
+        });
+        for (int i = 0; i < 2; i++) {
+            try {
+                callable.call();
+                fail("No exception");
+            } catch (final IllegalStateException e) {
+                assertEquals("call 1", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testFailureNotKeptForTtl() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final MemoizingCallable<Integer> callable = MemoizingCallable.withTtl(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("call 1");
+                }
+                return calls.get();
+            }
+        }, 1, TimeUnit.HOURS);
+        try {
+            callable.call();
+            fail("No exception");
+        } catch (final IllegalStateException e) {
+            assertEquals("call 1", e.getMessage());
+        }
+        assertEquals(Integer.valueOf(2), callable.call());
+        assertEquals(Integer.valueOf(2), callable.call());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneCall() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final MemoizingCallable<Integer> callable = MemoizingCallable.of(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return calls.incrementAndGet();
+            }
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<Integer> first = executor.submit(callable);
+            started.await(10, TimeUnit.SECONDS);
+            final Future<Integer> second = executor.submit(callable);
+            final Future<Integer> third = executor.submit(callable);
+            release.countDown();
+            assertEquals(Integer.valueOf(1), first.get(10, TimeUnit.SECONDS));
+            assertEquals(Integer.valueOf(1), second.get(10, TimeUnit.SECONDS));
+            assertEquals(Integer.valueOf(1), third.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOncePerCollectorRun() {
+        final AtomicInteger calls = new AtomicInteger();
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        final MemoizingCallable<Integer> source = collector.memoize(counting(calls));
+        collector.createAssertBeanBuilder(source).that(Matchers.greaterThan(0));
+        collector.createAssertBeanBuilder(source).notNull();
+        collector.runAssert();
+        assertEquals(1, calls.get());
+        collector.runAssert();
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Creates a callable that returns how many times it was called.
+     *
+     * @param calls the number of calls.
+     * @return the callable.
+     */
+    private static Callable<Integer> counting(final AtomicInteger calls) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        };
+    }
+}
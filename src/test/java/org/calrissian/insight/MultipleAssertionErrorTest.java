@@ -17,11 +17,15 @@ package org.calrissian.insight;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests the org.calrissian.insight.MultipleAssertionError class
@@ -54,4 +58,57 @@ public class MultipleAssertionErrorTest {
         assertEquals("The message was wrong", "Name had multiple failures:\n  test1",
                 new MultipleAssertionError("Name", Arrays.asList(new AssertionError("test1"))).getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetMessageIndentsEachLine() {
+        assertEquals("Multiple assertion errors:\n  test1\n  line2\n  null",
+                new MultipleAssertionError(Arrays.asList(new AssertionError("test1\nline2"), new AssertionError()))
+                        .getMessage());
+    }
+
+    @Test
+    public void testGetMessageIsCached() {
+        final MultipleAssertionError error = new MultipleAssertionError(Arrays.asList(new AssertionError("test1")));
+        assertSame(error.getMessage(), error.getMessage());
+    }
+
+    @Test
+    public void testAppendTo() throws IOException {
+        final MultipleAssertionError error = new MultipleAssertionError("Name", Arrays.asList(
+                new AssertionError("test1"), new AssertionError("test2")));
+        final StringWriter writer = new StringWriter();
+        error.appendTo(writer);
+        assertEquals(error.getMessage(), writer.toString());
+    }
+
+    @Test
+    public void testGetMessageTruncatedByErrors() {
+        assertEquals("Multiple assertion errors:\n  test1\n  test2\n...and 2 more",
+                new MultipleAssertionError(null, errors(4), 2, 1000).getMessage());
+    }
+
+    @Test
+    public void testGetMessageTruncatedByLength() {
+        assertEquals("Multiple assertion errors:\n  test1\n  te\n...and 3 more",
+                new MultipleAssertionError(null, errors(4), 100, 39).getMessage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNoErrorsRendered() {
+        new MultipleAssertionError(null, errors(1), 0, 100);
+    }
+
+    /**
+     * Creates errors with the messages test1, test2, ...
+     *
+     * @param count of errors.
+     * @return the errors.
+     */
+    private static List<AssertionError> errors(final int count) {
+        final List<AssertionError> errors = new ArrayList<AssertionError>();
+        for (int i = 1; i <= count; i++) {
+            errors.add(new AssertionError("test" + i));
+        }
+        return errors;
+    }
+}
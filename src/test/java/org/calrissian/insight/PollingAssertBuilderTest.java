@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the org.calrissian.insight.PollingAssertBuilder class
+ */
+public class PollingAssertBuilderTest {
+
+    /**
+     * Policy with short delays so the tests run quickly.
+     */
+    private static final PollingPolicy POLICY = PollingPolicy.within(5, TimeUnit.SECONDS)
+            .withBackoff(1, 10, TimeUnit.MILLISECONDS);
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullAssertBuilder() {
+        new PollingAssertBuilder(null, POLICY);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullPolicy() {
+        new PollingAssertBuilder(new AssertBuilderCollector(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolicyInvalidBackoff() {
+        POLICY.withBackoff(10, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolicyInvalidJitter() {
+        POLICY.withJitter(2);
+    }
+
+    @Test
+    public void testPolicyDelays() {
+        final PollingPolicy policy = POLICY.withJitter(0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), policy.delayNanos(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(8), policy.delayNanos(3));
+        assertEquals("Delay grew past the maximum", TimeUnit.MILLISECONDS.toNanos(10), policy.delayNanos(20));
+    }
+
+    @Test
+    public void testEventuallyPasses() {
+        final AtomicInteger calls = new AtomicInteger();
+        new AssertBeanBuilder<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        }).that(Matchers.greaterThan(3)).eventually(POLICY).runAssert();
+        assertEquals("Wrong number of attempts", 4, calls.get());
+    }
+
+    @Test
+    public void testTimesOutWithLastFailure() {
+        final AtomicInteger calls = new AtomicInteger();
+        final AssertBeanBuilder<Integer> builder = new AssertBeanBuilder<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        });
+        builder.that(Matchers.lessThan(0));
+        try {
+            builder.eventually(PollingPolicy.within(50, TimeUnit.MILLISECONDS)
+                    .withBackoff(1, 5, TimeUnit.MILLISECONDS)).runAssert();
+            fail("No assertion error");
+        } catch (final AssertionError e) {
+            assertEquals("Only the last failure should be reported", "\nExpected: a value less than <0>\n" +
+                    "     but: <" + calls.get() + "> was greater than <0>", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionStopsPolling() {
+        new PollingAssertBuilder(new AssertBuilder() {
+            @Override
+            public void runAssert() {
+                throw new IllegalStateException("broken");
+            }
+        }, POLICY).runAssert();
+    }
+
+    @Test
+    public void testCollectorEventuallyDoesNotBlock() {
+        final CompletableFuture<String> bean = new CompletableFuture<String>();
+        final AtomicInteger calls = new AtomicInteger();
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        collector.createAsyncAssertBeanBuilder(new Supplier<CompletableFuture<String>>() {
+            @Override
+            public CompletableFuture<String> get() {
+                calls.incrementAndGet();
+                return bean;
+            }
+        }).that(Matchers.is("worked"));
+        final CompletableFuture<Void> result = collector.eventually(POLICY).runAssertAsync();
+        assertFalse("Polling finished before the bean was produced", result.isDone());
+        bean.complete("worked");
+        result.join();
+        assertEquals("Wrong number of attempts", 1, calls.get());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ */
+public class PrimitiveMatchersTest {
+
+    @Test
+    public void testIntBetween() {
+        final IntMatcher matcher = PrimitiveMatchers.intBetween(1, 3);
+        assertTrue(matcher.matchesInt(1));
+        assertTrue(matcher.matchesInt(3));
+        assertFalse(matcher.matchesInt(4));
+        assertTrue(matcher.matches(2));
+        assertFalse(matcher.matches(2L));
+        assertFalse(matcher.matches(null));
+        assertEquals("a value between <1> and <3>", StringDescription.toString(matcher));
+    }
+
+    @Test
+    public void testLongBetween() {
+        final LongMatcher matcher = PrimitiveMatchers.longBetween(1, 3);
+        assertTrue(matcher.matchesLong(3));
+        assertFalse(matcher.matchesLong(0));
+        assertTrue(matcher.matches(2L));
+        assertEquals("a value between <1L> and <3L>", StringDescription.toString(matcher));
+    }
+
+    @Test
+    public void testDoubleBetween() {
+        final DoubleMatcher matcher = PrimitiveMatchers.doubleBetween(0, 1);
+        assertTrue(matcher.matchesDouble(0.5));
+        assertFalse(matcher.matchesDouble(Double.NaN));
+        assertTrue(matcher.matches(1.0));
+    }
+
+    @Test
+    public void testPredicates() {
+        assertTrue(PrimitiveMatchers.intThat(new IntPredicate() {
+            @Override
+            public boolean test(final int value) {
+                return value % 2 == 0;
+            }
+        }, "even").matchesInt(2));
+        assertFalse(PrimitiveMatchers.longThat(new LongPredicate() {
+            @Override
+            public boolean test(final long value) {
+                return value > 0;
+            }
+        }, "positive").matches(-1L));
+        assertEquals("finite", StringDescription.toString(PrimitiveMatchers.doubleThat(new DoublePredicate() {
+            @Override
+            public boolean test(final double value) {
+                return !Double.isInfinite(value);
+            }
+        }, "finite")));
+    }
+}
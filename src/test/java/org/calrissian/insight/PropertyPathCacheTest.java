@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the org.calrissian.insight.PropertyPathCache class
+ */
+public class PropertyPathCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorZeroSize() {
+        new PropertyPathCache(0);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        final PropertyPathCache cache = new PropertyPathCache(10);
+        final PropertyPath path = cache.get("a.b[3].c");
+        assertSame("The compiled path was not reused", path, cache.get("a.b[3].c"));
+        assertEquals("Wrong number of hits", 1, cache.getHitCount());
+        assertEquals("Wrong number of misses", 1, cache.getMissCount());
+        assertEquals("Wrong size", 1, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        final PropertyPathCache cache = new PropertyPathCache(2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+        assertEquals("Cache grew past its maximum size", 2, cache.size());
+        assertEquals("Wrong number of misses", 3, cache.getMissCount());
+    }
+
+    @Test
+    public void testEvictsFirstCached() {
+        final PropertyPathCache cache = new PropertyPathCache(2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+        cache.get("b");
+        assertEquals("The path cached second was evicted", 2, cache.getHitCount());
+        cache.get("a");
+        assertEquals("The path cached first was kept although it was used last", 4, cache.getMissCount());
+    }
+
+    @Test
+    public void testBoundedUnderContention() throws Exception {
+        final PropertyPathCache cache = new PropertyPathCache(4);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final AtomicInteger largest = new AtomicInteger();
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 2000; i++) {
+                            cache.get("p" + ((i * 8 + thread) % 64));
+                            final int size = cache.size();
+                            if (size > largest.get()) {
+                                largest.set(size);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue("Cache grew to " + largest.get(), largest.get() <= 4);
+        assertEquals("Wrong size", 4, cache.size());
+        cache.clear();
+        cache.get("a");
+        assertEquals("Wrong size after clear", 1, cache.size());
+    }
+
+    @Test
+    public void testInvalidPathNotCached() {
+        final PropertyPathCache cache = new PropertyPathCache(10);
+        try {
+            cache.get("a..b*");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("Invalid path was cached", 0, cache.size());
+    }
+
+    @Test
+    public void testClear() {
+        final PropertyPathCache cache = new PropertyPathCache(10);
+        cache.get("a");
+        cache.get("a");
+        cache.clear();
+        assertEquals("Wrong size", 0, cache.size());
+        assertEquals("Wrong number of hits", 0, cache.getHitCount());
+        assertEquals("Wrong number of misses", 0, cache.getMissCount());
+    }
+
+    @Test
+    public void testCompiledPathAccess() {
+        final PropertyPath path = new PropertyPathCache(10).get("[1]");
+        assertEquals("Wrong value", "worked", path.get(Arrays.asList("test", "worked")));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the org.calrissian.insight.PropertyReaders class
+ */
+public class PropertyReadersTest {
+
+    @Test
+    public void testGenerated() throws Throwable {
+        final PropertyReader reader = PropertyReaders.generated(Bean.class.getMethod("getText"));
+        assertEquals("Wrong value", "text", reader.read(new Bean()));
+    }
+
+    @Test
+    public void testGeneratedBoxesPrimitive() throws Throwable {
+        final PropertyReader reader = PropertyReaders.generated(Bean.class.getMethod("getCount"));
+        assertEquals("Wrong value", 5, reader.read(new Bean()));
+    }
+
+    @Test
+    public void testGeneratedThrowsGetterException() throws Throwable {
+        assertThrowsGetterException(PropertyReaders.generated(Bean.class.getMethod("getBroken")));
+    }
+
+    @Test
+    public void testMethodHandle() throws Throwable {
+        final PropertyReader reader = PropertyReaders.methodHandle(Bean.class.getMethod("getCount"));
+        assertEquals("Wrong value", 5, reader.read(new Bean()));
+    }
+
+    @Test
+    public void testMethodHandleThrowsGetterException() throws Throwable {
+        assertThrowsGetterException(PropertyReaders.methodHandle(Bean.class.getMethod("getBroken")));
+    }
+
+    @Test
+    public void testReflective() throws Throwable {
+        final PropertyReader reader = PropertyReaders.reflective(Bean.class.getMethod("getText"));
+        assertEquals("Wrong value", "text", reader.read(new Bean()));
+    }
+
+    @Test
+    public void testReflectiveThrowsGetterException() throws Throwable {
+        assertThrowsGetterException(PropertyReaders.reflective(Bean.class.getMethod("getBroken")));
+    }
+
+    @Test
+    public void testCreateNonPublicClass() throws Throwable {
+        final Object bean = new Object() {
+            public String getText() {
+                return "anonymous";
+            }
+        };
+        final Method getter = bean.getClass().getMethod("getText");
+        assertEquals("Wrong value", "anonymous", PropertyReaders.create(getter).read(bean));
+    }
+
+    /**
+     * Checks the reader throws the exception of the getter without wrapping it.
+     *
+     * @param reader that reads Bean#getBroken
+     */
+    private static void assertThrowsGetterException(final PropertyReader reader) throws Throwable {
+        try {
+            reader.read(new Bean());
+            fail("No exception thrown");
+        } catch (final IllegalStateException e) {
+            assertEquals("Wrong exception", "broken", e.getMessage());
+        }
+    }
+
+    /**
+     * Bean used for the tests.
+     */
+    public static class Bean {
+
+        public String getText() {
+            return "text";
+        }
+
+        public int getCount() {
+            return 5;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
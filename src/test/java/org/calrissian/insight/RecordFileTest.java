@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the RecordFile class.
+ */
+public class RecordFileTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCsv() throws Exception {
+        final Path path = write("id,name,note\r\n1,plain,\r\n\r\n2,\"a, b\",\"say \"\"hi\"\"\"\r\n3,\"two\nlines\",x");
+        final List<Map<String, Object>> records = read(RecordFile.csv(path));
+        assertEquals(3, records.size());
+        assertEquals(Arrays.asList("id", "name", "note"), Arrays.asList(records.get(0).keySet().toArray()));
+        assertEquals("plain", records.get(0).get("name"));
+        assertEquals("", records.get(0).get("note"));
+        assertEquals("a, b", records.get(1).get("name"));
+        assertEquals("say \"hi\"", records.get(1).get("note"));
+        assertEquals("two\nlines", records.get(2).get("name"));
+        assertEquals("x", records.get(2).get("note"));
+        assertNull(records.get(2).get("missing"));
+        assertFalse(records.get(2).containsKey("missing"));
+    }
+
+    @Test
+    public void testSeparator() throws Exception {
+        final Path path = write("id\tname\n1\tone\n");
+        final List<Map<String, Object>> records = read(RecordFile.csv(path).withSeparator('\t'));
+        assertEquals(1, records.size());
+        assertEquals("one", records.get(0).get("name"));
+    }
+
+    @Test
+    public void testCsvFieldCount() throws Exception {
+        final Path path = write("id,name\n1,one\n\n2\n");
+        final AssertionError e = runTable(RecordFile.csv(path), Matchers.notNullValue());
+        assertEquals("records failed because: Line 4 of " + path + " has 1 fields but the header has 2.",
+                e.getMessage());
+        assertTrue("The failure thrown should have a stack trace", e.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testJsonLines() throws Exception {
+        final Path path = write("{\"id\": 1, \"price\": 2.5, \"big\": 123456789012345678901234567890}\n" +
+                "\n{\"id\": -2, \"tags\": [\"a\", \"\\u00e9\\n\"], \"customer\": {\"name\": null, \"vip\": true}}\n");
+        final List<Map<String, Object>> records = read(RecordFile.jsonLines(path));
+        assertEquals(2, records.size());
+        assertEquals(1L, records.get(0).get("id"));
+        assertEquals(2.5, records.get(0).get("price"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), records.get(0).get("big"));
+        assertEquals(-2L, records.get(1).get("id"));
+        assertEquals(Arrays.asList("a", "\u00e9\n"), records.get(1).get("tags"));
+        assertThat((Map<String, Object>) records.get(1).get("customer"), Matchers.hasEntry("vip", (Object) true));
+        assertThat((Map<String, Object>) records.get(1).get("customer"), Matchers.hasKey("name"));
+    }
+
+    @Test
+    public void testJsonLinesSplitObject() throws Exception {
+        final Path path = write("{\"id\": 1,\n\"price\": 2.5}\n");
+        assertEquals("records failed because: Line 1 of " + path + " has the end of the line where a member name " +
+                "was expected.", runTable(RecordFile.jsonLines(path), Matchers.notNullValue()).getMessage());
+    }
+
+    @Test
+    public void testJsonLinesNotObject() throws Exception {
+        final Path path = write("{}\n[1]\n");
+        try {
+            read(RecordFile.jsonLines(path));
+            fail("Line 2 is not an object.");
+        } catch (final AssertionError e) {
+            assertEquals("Line 2 of " + path + " is not a JSON object.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMalformedKeepsRowFailures() throws Exception {
+        final Path path = write("{\"id\": 1}\n{\"id\": 2}\n[3]\n{\"id\": 4}\n");
+        final AssertionError e = runTable(RecordFile.jsonLines(path), Matchers.nullValue());
+        assertThat(e.getMessage(), Matchers.startsWith("records had multiple failures:"));
+        assertThat(e.getMessage(), Matchers.containsString("row 0 failed because: "));
+        assertThat(e.getMessage(), Matchers.containsString("row 1 failed because: "));
+        assertThat(e.getMessage(), Matchers.containsString("Line 3 of " + path + " is not a JSON object."));
+        assertThat(e.getMessage(), Matchers.not(Matchers.containsString("row 2")));
+    }
+
+    @Test
+    public void testUndecodableLine() throws Exception {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, new byte[]{'i', 'd', '\n', '1', '\n', '2', '\n', (byte) 0xff, '\n'});
+        final AssertionError e = runTable(RecordFile.csv(path), Matchers.nullValue());
+        assertThat(e.getMessage(), Matchers.startsWith("records had multiple failures:"));
+        assertThat(e.getMessage(), Matchers.containsString("row 1 failed because: "));
+        assertThat(e.getMessage(), Matchers.containsString("Line 4 of " + path + " could not be read: " +
+                "java.nio.charset.MalformedInputException"));
+    }
+
+    @Test
+    public void testTableOverLargeFile() throws Exception {
+        // larger than the buffers so records and characters are split between reads
+        final Path path = folder.newFile("orders.csv").toPath();
+        try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("id,customer,quantity\n");
+            for (int i = 0; i < 20000; i++) {
+                writer.write(i + ",\"caf\u00e9 " + i + "\"," + (i == 15000 ? 0 : i % 7 + 1) + "\n");
+            }
+        }
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        final TableAssertBuilder<Map<String, Object>> builder = collector.createTableAssertBuilder("orders",
+                RecordFile.csv(path));
+        builder.setRowId(new java.util.function.Function<Map<String, Object>, Object>() {
+            @Override
+            public Object apply(final Map<String, Object> row) {
+                return row.get("id");
+            }
+        });
+        builder.that("[customer]", Matchers.startsWith("caf\u00e9 ")).that("[quantity]",
+                Matchers.not(Matchers.equalTo("0")));
+        try {
+            collector.runAssert();
+            fail("Order 15000 has no quantity.");
+        } catch (final AssertionError e) {
+            assertEquals("orders failed because: row 15000 failed because: \nExpected: [quantity] not \"0\"\n" +
+                    "     but: [quantity] was \"0\"", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param text of the file.
+     * @return the path of the file.
+     * @throws java.io.IOException if the file could not be written.
+     */
+    private Path write(final String text) throws IOException {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * Runs a table of the records of a file that must fail.
+     *
+     * @param file to read.
+     * @param id   matches the id of every record.
+     * @return the failure thrown.
+     */
+    private static AssertionError runTable(final RecordFile file, final Matcher<Object> id) {
+        final TableAssertBuilder<Map<String, Object>> builder = new TableAssertBuilder<Map<String, Object>>("records",
+                file);
+        builder.that("[id]", id);
+        try {
+            builder.runAssert();
+        } catch (final AssertionError e) {
+            return e;
+        }
+        throw new AssertionError("The table should have failed.");
+    }
+
+    /**
+     * Reads every record of a file.
+     *
+     * @param file to read.
+     * @return the records.
+     * @throws java.lang.Exception if the file could not be read.
+     */
+    private static List<Map<String, Object>> read(final RecordFile file) throws Exception {
+        try (final Stream<Map<String, Object>> records = file.call()) {
+            return records.collect(Collectors.<Map<String, Object>>toList());
+        }
+    }
+}
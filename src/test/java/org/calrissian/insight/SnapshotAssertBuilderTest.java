@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the SnapshotAssertBuilder class.
+ */
+public class SnapshotAssertBuilderTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriter() throws IOException {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put("b", "two\nlines \"quoted\"");
+        attributes.put("a", 1);
+        attributes.put("empty", Collections.emptyList());
+        attributes.put("none", Collections.emptyMap());
+        attributes.put("set", new HashSet<String>(Arrays.asList("z", "y")));
+        final Item item = new Item("root", attributes);
+        item.getChildren().add(new Item("child", null));
+        item.getChildren().get(0).getChildren().add(item);
+
+        final StringWriter out = new StringWriter();
+        SnapshotWriter.write(item, out);
+        assertEquals("attributes[a] = 1\n" +
+                "attributes[b] = \"two\\nlines \\\"quoted\\\"\"\n" +
+                "attributes[empty] = []\n" +
+                "attributes[none] = {}\n" +
+                "attributes[set][0] = \"y\"\n" +
+                "attributes[set][1] = \"z\"\n" +
+                "children[0].attributes = null\n" +
+                "children[0].children[0] = <cycle to root>\n" +
+                "children[0].name = \"child\"\n" +
+                "name = \"root\"\n", out.toString());
+
+        final StringWriter value = new StringWriter();
+        SnapshotWriter.write(5L, value);
+        assertEquals("= 5\n", value.toString());
+    }
+
+    @Test
+    public void testMissingSnapshotWritten() throws IOException {
+        final Path snapshot = folder.getRoot().toPath().resolve("snapshots").resolve("item.snap");
+        final SnapshotAssertBuilder<Item> builder = new SnapshotAssertBuilder<Item>(items(3), snapshot);
+        try {
+            builder.runAssert();
+            fail("A missing snapshot should fail.");
+        } catch (final AssertionError e) {
+            assertThat(e.getMessage(), Matchers.containsString("did not exist"));
+        }
+        assertTrue(Files.exists(snapshot));
+
+        builder.runAssert();
+        assertFalse(Files.exists(builder.getActual()));
+    }
+
+    @Test
+    public void testDifferingRegions() throws IOException {
+        final Path snapshot = folder.newFile("item.snap").toPath();
+        write(snapshot, items(5));
+        final SnapshotAssertBuilder<Item> builder = new SnapshotAssertBuilder<Item>("items", changed(), snapshot);
+        try {
+            builder.runAssert();
+            fail("The snapshot should not match.");
+        } catch (final AssertionError e) {
+            assertEquals("items failed because: Snapshot (" + snapshot + ") does not match the bean written to " +
+                    builder.getActual() + ":\n" +
+                    "@@ -10,1 +10,1 @@\n" +
+                    "- children[2].name = \"item 2\"\n" +
+                    "+ children[2].name = \"changed\"\n" +
+                    "@@ -17,0 +17,3 @@\n" +
+                    "+ children[5].attributes = null\n" +
+                    "+ children[5].children = []\n" +
+                    "+ children[5].name = \"new\"\n", e.getMessage());
+        }
+        assertTrue(Files.exists(builder.getActual()));
+    }
+
+    @Test
+    public void testUpdate() throws IOException {
+        final Path snapshot = folder.newFile("item.snap").toPath();
+        write(snapshot, items(5));
+        System.setProperty(SnapshotAssertBuilder.UPDATE_PROPERTY, "true");
+        try {
+            new SnapshotAssertBuilder<Item>(changed(), snapshot).runAssert();
+        } finally {
+            System.clearProperty(SnapshotAssertBuilder.UPDATE_PROPERTY);
+        }
+        new SnapshotAssertBuilder<Item>(changed(), snapshot).runAssert();
+    }
+
+    @Test
+    public void testRegionsLimited() throws IOException {
+        final Path snapshot = folder.newFile("item.snap").toPath();
+        final StringBuilder expected = new StringBuilder();
+        final List<Integer> actual = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            expected.append('[').append(i).append("] = ").append(i % 2 == 0 ? i : -i).append('\n');
+            actual.add(i);
+        }
+        Files.write(snapshot, expected.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            new SnapshotAssertBuilder<List<Integer>>(constant(actual), snapshot).runAssert();
+            fail("The snapshot should not match.");
+        } catch (final AssertionError e) {
+            assertThat(e.getMessage(), Matchers.endsWith("@@ -40,1 +40,1 @@\n- [39] = -39\n+ [39] = 39\n" +
+                    "...and 480 more differing regions\n"));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testPathIsValue() throws IOException {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put("path", Paths.get("data", "orders.csv"));
+        final StringWriter out = new StringWriter();
+        SnapshotWriter.write(new Item("item", attributes), out);
+        assertEquals("attributes[path] = \"" + Paths.get("data", "orders.csv") + "\"\n" +
+                "children = []\n" +
+                "name = \"item\"\n", out.toString());
+    }
+
+    @Test
+    public void testSetOfBeansSortedByLines() throws IOException {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        final Set<Item> set = new HashSet<Item>();
+        for (final String name : Arrays.asList("c", "a", "d", "b")) {
+            set.add(new Item(name, null));
+        }
+        attributes.put("set", set);
+        attributes.put("iterable", new Iterable<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                throw new UnsupportedOperationException("An Iterable that is not a Collection is a value.");
+            }
+
+            @Override
+            public String toString() {
+                return "iterable";
+            }
+        });
+        final StringWriter out = new StringWriter();
+        SnapshotWriter.write(new Item("items", attributes), out);
+        assertEquals("attributes[iterable] = \"iterable\"\n" +
+                "attributes[set][0].attributes = null\n" +
+                "attributes[set][0].children = []\n" +
+                "attributes[set][0].name = \"a\"\n" +
+                "attributes[set][1].attributes = null\n" +
+                "attributes[set][1].children = []\n" +
+                "attributes[set][1].name = \"b\"\n" +
+                "attributes[set][2].attributes = null\n" +
+                "attributes[set][2].children = []\n" +
+                "attributes[set][2].name = \"c\"\n" +
+                "attributes[set][3].attributes = null\n" +
+                "attributes[set][3].children = []\n" +
+                "attributes[set][3].name = \"d\"\n" +
+                "children = []\n" +
+                "name = \"items\"\n", out.toString());
+    }
+
+    @Test
+    public void testGetterFailure() throws IOException {
+        final Path snapshot = folder.newFile("broken.snap").toPath();
+        final SnapshotAssertBuilder<Broken> builder = new SnapshotAssertBuilder<Broken>("broken",
+                constant(new Broken()), snapshot);
+        try {
+            builder.runAssert();
+            fail("A getter that throws should fail.");
+        } catch (final AssertionError e) {
+            assertThat(e.getMessage(), Matchers.startsWith("broken failed because: Error accessing bean (value)"));
+            assertTrue(e.getStackTrace().length > 0);
+        }
+        assertFalse(Files.exists(builder.getActual()));
+    }
+
+    /**
+     * Writes the snapshot of a bean.
+     *
+     * @param snapshot the file to write.
+     * @param callable that gets the bean.
+     * @throws java.io.IOException if the file could not be written.
+     */
+    private static void write(final Path snapshot, final Callable<Item> callable) throws IOException {
+        final StringWriter out = new StringWriter();
+        try {
+            SnapshotWriter.write(callable.call(), out);
+        } catch (final Exception e) {
+            throw new IOException(e);
+        }
+        Files.write(snapshot, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param count the number of children.
+     * @return a callable of an item with children.
+     */
+    private static Callable<Item> items(final int count) {
+        final Item item = new Item("items", null);
+        for (int i = 0; i < count; i++) {
+            item.getChildren().add(new Item("item " + i, null));
+        }
+        return constant(item);
+    }
+
+    /**
+     * @return a callable of the items with a child renamed and a child added.
+     */
+    private static Callable<Item> changed() throws IOException {
+        try {
+            final Item item = items(5).call();
+            item.getChildren().add(new Item("new", null));
+            item.getChildren().get(2).setName("changed");
+            return constant(item);
+        } catch (final Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param value to return.
+     * @param <T>   type of the value.
+     * @return a callable that returns the value.
+     */
+    private static <T> Callable<T> constant(final T value) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return value;
+            }
+        };
+    }
+
+    /**
+     * A bean for the tests.
+     */
+    public static class Item {
+
+        private String name;
+        private final Map<String, Object> attributes;
+        private final List<Item> children = new ArrayList<Item>();
+
+        public Item(final String name, final Map<String, Object> attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        public List<Item> getChildren() {
+            return children;
+        }
+    }
+
+    /**
+     * A bean whose getter throws.
+     */
+    public static class Broken {
+
+        public String getValue() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
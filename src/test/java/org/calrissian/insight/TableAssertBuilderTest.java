@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 The Calrissian Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.calrissian.insight;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the TableAssertBuilder class.
+ */
+public class TableAssertBuilderTest {
+
+    @Test
+    public void testPasses() {
+        final TableAssertBuilder<Map<String, Object>> builder = new TableAssertBuilder<Map<String, Object>>(
+                rows(0, 1, 2, 3));
+        builder.that("[quantity]", Matchers.greaterThanOrEqualTo(0)).that("[id]", Matchers.notNullValue());
+        builder.runAssert();
+    }
+
+    @Test
+    public void testRowFailures() {
+        final TableAssertBuilder<Map<String, Object>> builder = new TableAssertBuilder<Map<String, Object>>(
+                "orders", rows(1, 0, 2, -1));
+        builder.that("[quantity]", Matchers.greaterThan(0));
+        try {
+            builder.runAssert();
+            fail("Rows 1 and 3 should fail.");
+        } catch (final MultipleAssertionError e) {
+            assertEquals(2, e.getErrors().size());
+            assertEquals("row 1 failed because: \nExpected: [quantity] a value greater than <0>\n" +
+                    "     but: [quantity] <0> was equal to <0>", ((AssertionError) e.getErrors().get(0)).getMessage());
+            assertThat(((AssertionError) e.getErrors().get(1)).getMessage(), Matchers.startsWith("row 3 failed because: "));
+        }
+    }
+
+    @Test
+    public void testRowId() {
+        final TableAssertBuilder<Map<String, Object>> builder = new TableAssertBuilder<Map<String, Object>>(
+                "orders", rows(1, 0, 2));
+        builder.setRowId(new Function<Map<String, Object>, Object>() {
+            @Override
+            public Object apply(final Map<String, Object> row) {
+                return row.get("id");
+            }
+        });
+        builder.that("[quantity]", Matchers.greaterThan(0)).that("[id]", Matchers.startsWith("order-2"));
+        try {
+            builder.runAssert();
+            fail("Rows order-0 and order-1 should fail.");
+        } catch (final MultipleAssertionError e) {
+            assertEquals(2, e.getErrors().size());
+            assertEquals("row order-0 failed because: \nExpected: [id] a string starting with \"order-2\"\n" +
+                    "     but: [id] was \"order-0\"", ((AssertionError) e.getErrors().get(0)).getMessage());
+            assertThat(e.getErrors().get(1), Matchers.instanceOf(MultipleAssertionError.class));
+            assertThat(((AssertionError) e.getErrors().get(1)).getMessage(), Matchers.startsWith("row order-1"));
+        }
+    }
+
+    @Test
+    public void testStreamWalkedOnceAndClosed() {
+        final AtomicInteger walked = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final TableAssertBuilder<Integer> builder = new TableAssertBuilder<Integer>(new Callable<Stream<Integer>>() {
+            @Override
+            public Stream<Integer> call() throws Exception {
+                return IntStream.range(0, 100000).boxed().peek(new Consumer<Integer>() {
+                    @Override
+                    public void accept(final Integer row) {
+                        walked.incrementAndGet();
+                    }
+                }).onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        closed.set(true);
+                    }
+                });
+            }
+        });
+        builder.that(Matchers.lessThan(10));
+        builder.setFailurePolicy(FailurePolicy.failFast());
+        try {
+            builder.runAssert();
+            fail("Row 10 should fail.");
+        } catch (final AssertionError e) {
+            assertEquals("row 10 failed because: \nExpected: a value less than <10>\n     but: <10> was equal " +
+                    "to <10>", e.getMessage());
+        }
+        assertEquals(11, walked.get());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testCollector() {
+        final AssertBuilderCollector collector = new AssertBuilderCollector();
+        collector.createTableAssertBuilder("numbers", new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return Arrays.asList(1, 2, 3).iterator();
+            }
+        }).that(Matchers.lessThan(3));
+        try {
+            collector.runAssert();
+            fail("Row 2 should fail.");
+        } catch (final AssertionError e) {
+            assertThat(e.getMessage(), Matchers.startsWith("numbers failed because: row 2 failed because: "));
+        }
+    }
+
+    @Test
+    public void testNotRows() {
+        final TableAssertBuilder<Object> builder = new TableAssertBuilder<Object>("table", new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return 5;
+            }
+        });
+        try {
+            builder.runAssert();
+            fail("5 is not a table.");
+        } catch (final AssertionError e) {
+            assertEquals("The rows of table are not an Iterator, Iterable or Stream but a java.lang.Integer",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Creates rows with an id and a quantity.
+     *
+     * @param quantities of the rows.
+     * @return a callable that returns the rows.
+     */
+    private static Callable<Iterable<Map<String, Object>>> rows(final int... quantities) {
+        return new Callable<Iterable<Map<String, Object>>>() {
+            @Override
+            public Iterable<Map<String, Object>> call() throws Exception {
+                final Map<String, Object>[] rows = new Map[quantities.length];
+                for (int i = 0; i < quantities.length; i++) {
+                    final Map<String, Object> row = new LinkedHashMap<String, Object>();
+                    row.put("id", "order-" + i);
+                    row.put("quantity", quantities[i]);
+                    rows[i] = Collections.unmodifiableMap(row);
+                }
+                return Arrays.asList(rows);
+            }
+        };
+    }
+}